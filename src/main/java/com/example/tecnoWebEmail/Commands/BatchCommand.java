@@ -0,0 +1,219 @@
+package com.example.tecnoWebEmail.Commands;
+
+import com.example.tecnoWebEmail.Service.EmailResponseService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * BATCH: ejecuta varios comandos escritos en el cuerpo del correo, uno por
+ * línea, y responde con un solo correo con el estado de cada línea.
+ *
+ * Con BATCH["ATOMICO"] todas las líneas corren en una única transacción: al
+ * primer error se revierte todo y las líneas restantes no se ejecutan.
+ * BATCH no es de sólo lectura, así que ya corre en el hilo escritor y las
+ * líneas se llaman directamente, sin volver a pasar por {@link CommandExecutor}.
+ */
+@Service
+@CommandGroup(value = "LOTES", order = 12)
+public class BatchCommand {
+
+    @Autowired
+    private EmailResponseService emailResponseService;
+    @Autowired
+    private CommandRegistry commandRegistry;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${mail.batch.max-lines:500}")
+    private int maxLines;
+
+    private static final String MINI_SEPARATOR = "------------------------";
+
+    @EmailCommand(value = "BATCH",
+            description = "Ejecutar los comandos del cuerpo, uno por línea (BATCH[\"ATOMICO\"]: todo o nada)",
+            requiresBody = true, timeoutMs = 300000)
+    public String handleBatch(String[] parameters, String body) {
+        try {
+            boolean atomic = parameters.length > 0 && isAtomicMode(parameters[0]);
+            List<BatchLine> lines = parseLines(body);
+            if (lines.isEmpty()) {
+                return emailResponseService.formatErrorResponse(
+                        "El cuerpo del correo no contiene comandos. Escriba un comando por línea, ej: INSPRO[\"sku\",...]",
+                        "BATCH");
+            }
+            if (lines.size() > maxLines) {
+                return emailResponseService.formatErrorResponse(
+                        "El lote tiene " + lines.size() + " comandos; el máximo es " + maxLines + ".", "BATCH");
+            }
+
+            if (atomic) {
+                TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+                transaction.executeWithoutResult(status -> {
+                    if (runLines(lines, true)) {
+                        status.setRollbackOnly();
+                    }
+                });
+            } else {
+                runLines(lines, false);
+            }
+            return formatBatchResponse(lines, atomic);
+        } catch (Exception e) {
+            return emailResponseService.formatErrorResponse("Error al ejecutar el lote: " + e.getMessage(), "BATCH");
+        }
+    }
+
+    private static boolean isAtomicMode(String parameter) {
+        String mode = parameter.trim().toUpperCase();
+        return mode.equals("ATOMICO") || mode.equals("ATÓMICO") || mode.equals("ATOMIC");
+    }
+
+    /**
+     * Una pasada por el cuerpo: ignora líneas vacías, comentarios (#) y citas
+     * (>), y se detiene en la firma ("-- ").
+     */
+    private static List<BatchLine> parseLines(String body) {
+        List<BatchLine> lines = new ArrayList<>();
+        if (body == null) return lines;
+        int number = 0;
+        for (String raw : body.split("\r?\n")) {
+            number++;
+            if (raw.equals("-- ") || raw.equals("--")) break;
+            String text = raw.trim();
+            if (text.isEmpty() || text.startsWith("#") || text.startsWith(">")) continue;
+            lines.add(new BatchLine(number, text));
+        }
+        return lines;
+    }
+
+    /**
+     * Ejecuta las líneas en orden. En modo atómico se corta al primer error.
+     * Devuelve true si alguna línea falló.
+     */
+    private boolean runLines(List<BatchLine> lines, boolean stopOnError) {
+        boolean failed = false;
+        for (BatchLine line : lines) {
+            if (failed && stopOnError) {
+                line.status = LineStatus.SKIPPED;
+                continue;
+            }
+            run(line);
+            if (line.status == LineStatus.ERROR) {
+                failed = true;
+            }
+        }
+        if (failed && stopOnError) {
+            for (BatchLine line : lines) {
+                if (line.status == LineStatus.OK) line.status = LineStatus.ROLLED_BACK;
+            }
+        }
+        return failed;
+    }
+
+    private void run(BatchLine line) {
+        try {
+            ParsedCommand parsed = CommandParser.parse(line.text);
+            line.command = parsed.getName();
+            CommandDefinition command = commandRegistry.find(parsed.getName());
+            if (command == null) {
+                line.fail("Comando no reconocido");
+                return;
+            }
+            if (command.isRequiresBody() || command.isAttachment()) {
+                line.fail("No se puede usar dentro de BATCH");
+                return;
+            }
+            String[] parameters = parsed.getParameters();
+            if (parameters.length < command.getRequiredParameterCount()) {
+                line.fail("Faltan parámetros. Uso: " + command.usage());
+                return;
+            }
+            String response = command.invoke(parameters, null).body();
+            if (emailResponseService.isErrorResponse(response)) {
+                line.fail(emailResponseService.errorDetail(response));
+            } else {
+                line.status = LineStatus.OK;
+            }
+        } catch (Exception e) {
+            line.fail(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        }
+    }
+
+    private String formatBatchResponse(List<BatchLine> lines, boolean atomic) {
+        int ok = 0, errors = 0, skipped = 0, rolledBack = 0;
+        for (BatchLine line : lines) {
+            switch (line.status) {
+                case OK -> ok++;
+                case ERROR -> errors++;
+                case SKIPPED -> skipped++;
+                case ROLLED_BACK -> rolledBack++;
+            }
+        }
+
+        StringBuilder response = new StringBuilder();
+        response.append(emailResponseService.generateHeader("BATCH"));
+        response.append("RESULTADO DEL LOTE\n");
+        response.append(MINI_SEPARATOR).append("\n");
+        response.append("Modo: ").append(atomic ? "atómico (todo o nada)" : "independiente (cada línea por separado)").append("\n");
+        response.append("Comandos: ").append(lines.size())
+                .append(" | OK: ").append(ok)
+                .append(" | Errores: ").append(errors);
+        if (atomic) {
+            response.append(" | Revertidos: ").append(rolledBack)
+                    .append(" | No ejecutados: ").append(skipped);
+        }
+        response.append("\n");
+        if (atomic && errors > 0) {
+            response.append("Se produjo un error: ningún cambio del lote fue guardado.\n");
+        }
+        response.append(MINI_SEPARATOR).append("\n");
+
+        for (BatchLine line : lines) {
+            response.append("Línea ").append(line.number).append(" ")
+                    .append(line.command != null ? line.command : line.text)
+                    .append(": ").append(line.status.label);
+            if (line.error != null) {
+                response.append(" - ").append(line.error);
+            }
+            response.append("\n");
+        }
+        return response.toString();
+    }
+
+    private enum LineStatus {
+        PENDING("PENDIENTE"),
+        OK("OK"),
+        ERROR("ERROR"),
+        ROLLED_BACK("REVERTIDO"),
+        SKIPPED("NO EJECUTADO");
+
+        private final String label;
+
+        LineStatus(String label) {
+            this.label = label;
+        }
+    }
+
+    private static class BatchLine {
+        private final int number;
+        private final String text;
+        private String command;
+        private LineStatus status = LineStatus.PENDING;
+        private String error;
+
+        BatchLine(int number, String text) {
+            this.number = number;
+            this.text = text;
+        }
+
+        void fail(String message) {
+            this.status = LineStatus.ERROR;
+            this.error = message;
+        }
+    }
+}
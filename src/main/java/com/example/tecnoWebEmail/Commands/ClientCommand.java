@@ -3,31 +3,45 @@ package com.example.tecnoWebEmail.Commands;
 import com.example.tecnoWebEmail.Models.Client;
 import com.example.tecnoWebEmail.Service.ClientService;
 import com.example.tecnoWebEmail.Service.EmailResponseService;
+import com.example.tecnoWebEmail.Service.Keyset;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
 import java.util.Objects;
 
 @Service
+@CommandGroup(value = "CLIENTES", order = 1)
 public class ClientCommand {
     @Autowired
     private ClientService clientService;
     @Autowired
     private EmailResponseService emailResponseService;
+    @Autowired
+    private ListPagination listPagination;
     private static final String MINI_SEPARATOR = "------------------------";
 
 
-    public String handleListClientes() {
+    // LISCLI ["after=id","limit=n","nombre=texto"] (todas opcionales)
+    @EmailCommand(value = "LISCLI", description = "Listar clientes por páginas (opciones: after=, limit=, nombre=)", readOnly = true, cost = EmailCommand.Cost.HIGH)
+    public String handleListClientes(String[] parameters) {
         try {
-            List<Client> clients = clientService.getAllClients();
-            return formatListClientsResponse(clients, "LISPER");
+            ListPagination.ListQuery query = listPagination.parse(parameters, 0, "nombre");
+            StringBuilder response = new StringBuilder();
+            response.append(emailResponseService.generateHeader("LISCLI"));
+            response.append(" LISTADO DE PERSONAS\n");
+            response.append(MINI_SEPARATOR).append("\n");
+            Keyset.Page page = clientService.forEachClient(query.after(), query.limit(), query.filter("nombre"),
+                    (client, n) -> appendClient(response, client, n));
+            listPagination.appendFooter(response, "LISCLI", query, page);
+            response.append("OK\n");
+            return response.toString();
         } catch (Exception e) {
             return emailResponseService.formatErrorResponse("Error al listar personas: " + e.getMessage(), "LISCLI");
 
         }
     }
 
+    @EmailCommand(value = "BUSCLI", params = {"ci"}, description = "Buscar cliente por CI", readOnly = true)
     public String handleFindClientByCI(String[] parameters){
         try {
             String ci = parameters[0];
@@ -42,6 +56,7 @@ public class ClientCommand {
         }
     }
 
+    @EmailCommand(value = "INSCLI", params = {"ci", "nombre", "apellido", "email", "telefono", "direccion"}, description = "Insertar cliente")
     public String handleInsertClient(String[] parameters) {
         try {
             // El modelo Client tiene 6 campos (ci, firstName, lastName, email, phone, address)
@@ -83,33 +98,14 @@ public class ClientCommand {
         }
     }
 
-    public String formatListClientsResponse(List<Client> clients, String command) {
-        StringBuilder response = new StringBuilder();
-        response.append(emailResponseService.generateHeader(command));
-
-        if (clients.isEmpty()) {
-            response.append("RESULTADO DEL LISTADO\n");
-            response.append(MINI_SEPARATOR).append("\n");
-            response.append(" No se encontraron cliens en la base de datos.\n");
-        } else {
-            response.append(" LISTADO DE PERSONAS\n");
-            response.append(MINI_SEPARATOR).append("\n");
-            response.append("Total de registros encontrados: ").append(clients.size()).append("\n\n");
-
-            int contador = 1;
-            for (Client client : clients) {
-                response.append(" PERSONA #").append(contador).append("\n");
-                response.append("   • CI: ").append(client.getId()).append("\n");
-                response.append("   • Nombre: ").append(client.getFirstName()).append(" ").append(client.getLastName()).append("\n");
-                response.append("   • Direccion: ").append(client.getAddress()).append("\n");
-                response.append("   • Teléfono: ").append(client.getPhone()).append("\n");
-                response.append("   • Email: ").append(client.getEmail()).append("\n");
-                response.append("\n");
-                contador++;
-            }
-        }
-        System.out.println(response.toString());
-        return response.toString();
+    private void appendClient(StringBuilder response, Client client, int contador) {
+        response.append(" PERSONA #").append(contador).append("\n");
+        response.append("   • CI: ").append(client.getId()).append("\n");
+        response.append("   • Nombre: ").append(client.getFirstName()).append(" ").append(client.getLastName()).append("\n");
+        response.append("   • Direccion: ").append(client.getAddress()).append("\n");
+        response.append("   • Teléfono: ").append(client.getPhone()).append("\n");
+        response.append("   • Email: ").append(client.getEmail()).append("\n");
+        response.append("\n");
     }
     private String paramToNull(String param) {
         if (param == null || param.trim().isEmpty()) {
@@ -0,0 +1,146 @@
+package com.example.tecnoWebEmail.Commands;
+
+import com.example.tecnoWebEmail.Service.service_email.EmailReply;
+
+import java.io.Reader;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Un comando registrado: metadatos de {@link EmailCommand} más el bean y el
+ * método que lo atienden. Se construye una sola vez al iniciar.
+ */
+public class CommandDefinition {
+
+    private final String name;
+    private final String[] params;
+    private final String description;
+    private final String group;
+    private final int groupOrder;
+    private final boolean readOnly;
+    private final EmailCommand.Cost cost;
+    private final long timeoutMs;
+    private final boolean requiresBody;
+    private final boolean attachment;
+    private final Object bean;
+    private final Method method;
+    private final boolean takesParameters;
+    private final boolean takesBody;
+
+    CommandDefinition(EmailCommand annotation, CommandGroup group, Object bean, Method method) {
+        this.name = annotation.value().toUpperCase();
+        this.params = annotation.params();
+        this.description = annotation.description();
+        this.group = group != null ? group.value() : "OTROS";
+        this.groupOrder = group != null ? group.order() : Integer.MAX_VALUE;
+        this.readOnly = annotation.readOnly();
+        this.cost = annotation.cost();
+        this.timeoutMs = annotation.timeoutMs();
+        this.requiresBody = annotation.requiresBody();
+        this.attachment = annotation.attachment();
+        this.bean = bean;
+        this.method = method;
+        this.takesParameters = method.getParameterCount() >= 1;
+        this.takesBody = method.getParameterCount() == 2;
+    }
+
+    /**
+     * Llama al handler. Las excepciones del handler se propagan sin envolver.
+     */
+    public EmailReply invoke(String[] parameters, String body) throws Exception {
+        try {
+            if (takesBody) {
+                return toReply(method.invoke(bean, parameters, body));
+            }
+            return toReply(takesParameters
+                    ? method.invoke(bean, (Object) parameters)
+                    : method.invoke(bean));
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) throw (Exception) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw e;
+        }
+    }
+
+    /**
+     * Llama a un handler de adjunto con el CSV abierto sobre el mensaje.
+     */
+    public EmailReply invokeWithAttachment(String[] parameters, Reader attachmentContent) throws Exception {
+        if (!attachment) {
+            throw new IllegalStateException("El comando " + name + " no recibe adjuntos");
+        }
+        try {
+            return toReply(method.invoke(bean, parameters, attachmentContent));
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) throw (Exception) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw e;
+        }
+    }
+
+    // Los handlers devuelven String (sólo texto) o EmailReply (texto + adjunto)
+    private static EmailReply toReply(Object result) {
+        return result instanceof EmailReply reply ? reply : EmailReply.text((String) result);
+    }
+
+    /**
+     * Forma de uso para la ayuda y los mensajes de error: COMANDO["a","b"].
+     */
+    public String usage() {
+        if (params.length == 0) {
+            return name + "[\"*\"]";
+        }
+        StringBuilder usage = new StringBuilder(name).append('[');
+        for (int i = 0; i < params.length; i++) {
+            if (i > 0) usage.append(',');
+            usage.append('"').append(params[i]).append('"');
+        }
+        return usage.append(']').toString();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String[] getParams() {
+        return params.clone();
+    }
+
+    public int getRequiredParameterCount() {
+        return params.length;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getGroup() {
+        return group;
+    }
+
+    public int getGroupOrder() {
+        return groupOrder;
+    }
+
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    public EmailCommand.Cost getCost() {
+        return cost;
+    }
+
+    public long getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    public boolean isRequiresBody() {
+        return requiresBody;
+    }
+
+    public boolean isAttachment() {
+        return attachment;
+    }
+}
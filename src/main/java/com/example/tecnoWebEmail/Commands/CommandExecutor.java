@@ -0,0 +1,156 @@
+package com.example.tecnoWebEmail.Commands;
+
+import com.example.tecnoWebEmail.Service.EmailResponseService;
+import com.example.tecnoWebEmail.Service.service_email.EmailReply;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ejecuta los handlers según sus metadatos:
+ * <ul>
+ *   <li>Los de sólo lectura van a un pool de varios hilos; los HIGH además
+ *       comparten un cupo para no acaparar el pool.</li>
+ *   <li>Los que modifican datos van a un único hilo escritor, así dos
+ *       comandos no compiten por las mismas filas (stock, pagos...).</li>
+ * </ul>
+ * Si el handler no responde dentro de su timeout se contesta con un error.
+ * Una consulta vencida se cancela. Una modificación no: su timeout corre
+ * desde que el escritor la empieza, y si vence se avisa que sigue en curso.
+ * Si espera en la cola más de {@code write-queue-timeout-ms} se descarta sin
+ * haberse ejecutado.
+ */
+@Component
+public class CommandExecutor {
+
+    @Autowired
+    private EmailResponseService emailResponseService;
+
+    private final ExecutorService readPool;
+    private final ExecutorService writer;
+    private final Semaphore heavyReads;
+    private final long writeQueueTimeoutMs;
+
+    public CommandExecutor(@Value("${mail.commands.read-threads:8}") int readThreads,
+                           @Value("${mail.commands.heavy-read-permits:2}") int heavyReadPermits,
+                           @Value("${mail.commands.write-queue-timeout-ms:60000}") long writeQueueTimeoutMs) {
+        this.readPool = Executors.newFixedThreadPool(Math.max(1, readThreads),
+                Thread.ofPlatform().name("cmd-read-", 0).factory());
+        this.writer = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("cmd-writer").factory());
+        this.heavyReads = new Semaphore(Math.max(1, heavyReadPermits));
+        this.writeQueueTimeoutMs = Math.max(1, writeQueueTimeoutMs);
+    }
+
+    public EmailReply execute(CommandDefinition command, String[] parameters, String body) throws Exception {
+        return execute(command, () -> command.invoke(parameters, body));
+    }
+
+    /**
+     * Ejecuta {@code work} como el handler de {@code command}: en el pool de
+     * lectura o en el escritor según sus metadatos.
+     */
+    public EmailReply execute(CommandDefinition command, Callable<EmailReply> work) throws Exception {
+        return command.isReadOnly() ? executeRead(command, work) : executeWrite(command, work);
+    }
+
+    private EmailReply executeRead(CommandDefinition command, Callable<EmailReply> work) throws Exception {
+        boolean heavy = command.getCost() == EmailCommand.Cost.HIGH;
+        Future<EmailReply> result = readPool.submit(() -> {
+            if (heavy) heavyReads.acquire();
+            try {
+                return work.call();
+            } finally {
+                if (heavy) heavyReads.release();
+            }
+        });
+
+        try {
+            return result.get(command.getTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            return error(command, "El comando excedió el tiempo límite de " + command.getTimeoutMs() + " ms.");
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    private EmailReply executeWrite(CommandDefinition command, Callable<EmailReply> work) throws Exception {
+        WriteTask task = new WriteTask(work);
+        Future<EmailReply> result = writer.submit(task);
+
+        if (!task.started.await(writeQueueTimeoutMs, TimeUnit.MILLISECONDS)) {
+            if (task.state.compareAndSet(WriteTask.QUEUED, WriteTask.ABANDONED)) {
+                result.cancel(false);
+                return error(command, "El sistema está ocupado con otras modificaciones y el comando no llegó a ejecutarse"
+                        + " (esperó " + writeQueueTimeoutMs + " ms). No se aplicó ningún cambio: puede reintentarlo.");
+            }
+            task.started.await(); // empezó justo ahora
+        }
+
+        try {
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - task.startedAt);
+            return result.get(Math.max(0, command.getTimeoutMs() - elapsedMs), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Una modificación empezada no se interrumpe: se deja terminar
+            return error(command, "El comando sigue ejecutándose después de " + command.getTimeoutMs() + " ms."
+                    + " Verifique el estado antes de reintentar: el cambio pudo haberse aplicado.");
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    private EmailReply error(CommandDefinition command, String message) {
+        return EmailReply.text(emailResponseService.formatErrorResponse(message, command.getName()));
+    }
+
+    private static Exception unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        return cause instanceof Exception ? (Exception) cause : e;
+    }
+
+    /**
+     * Modificación en la cola del escritor. Sólo uno de los dos pasa de QUEUED:
+     * el escritor (RUNNING, la ejecuta) o quien espera (ABANDONED, no se
+     * ejecutará nunca).
+     */
+    private static final class WriteTask implements Callable<EmailReply> {
+        static final int QUEUED = 0;
+        static final int RUNNING = 1;
+        static final int ABANDONED = 2;
+
+        final AtomicInteger state = new AtomicInteger(QUEUED);
+        final CountDownLatch started = new CountDownLatch(1);
+        final Callable<EmailReply> work;
+        volatile long startedAt;
+
+        WriteTask(Callable<EmailReply> work) {
+            this.work = work;
+        }
+
+        @Override
+        public EmailReply call() throws Exception {
+            if (!state.compareAndSet(QUEUED, RUNNING)) return null;
+            startedAt = System.nanoTime();
+            started.countDown();
+            return work.call();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        readPool.shutdownNow();
+        writer.shutdownNow();
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.tecnoWebEmail.Commands;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Sección de la ayuda a la que pertenecen los comandos de un bean *Command.
+ */
+@Documented
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CommandGroup {
+
+    /** Título de la sección en HELP (ej. "CLIENTES"). */
+    String value();
+
+    /** Posición de la sección en HELP (menor primero). */
+    int order() default 100;
+}
@@ -0,0 +1,132 @@
+package com.example.tecnoWebEmail.Commands;
+
+/**
+ * Parser de una sola pasada para la gramática de los comandos por correo:
+ *
+ * <pre>
+ * comando    := NOMBRE '[' [parametro (',' parametro)*] ']'
+ * parametro  := '"' (caracter | '\"' | '\\')* '"'  |  texto sin comillas ni comas
+ * </pre>
+ *
+ * Los espacios alrededor de cada parámetro se ignoran. Dentro de las comillas
+ * se aceptan comas y corchetes, y {@code \"} / {@code \\} como escapes.
+ * Lo que venga después del ']' final se ignora. Cualquier error de formato
+ * lanza {@link IllegalArgumentException} con un mensaje para el usuario.
+ */
+public final class CommandParser {
+
+    static final String FORMAT_HINT = "Use: COMANDO[\"parametros\"]";
+
+    private CommandParser() {}
+
+    public static ParsedCommand parse(String subject) {
+        return parse(subject, new ParsedCommand());
+    }
+
+    /**
+     * Parsea el Subject dentro de {@code target} (que se limpia antes) y lo devuelve.
+     */
+    public static ParsedCommand parse(String subject, ParsedCommand target) {
+        if (subject == null) {
+            throw new IllegalArgumentException("Formato de comando inválido. " + FORMAT_HINT);
+        }
+        int length = subject.length();
+        int pos = skipSpaces(subject, 0);
+
+        // Nombre del comando: sólo letras
+        int nameStart = pos;
+        while (pos < length && isLetter(subject.charAt(pos))) {
+            pos++;
+        }
+        if (pos == nameStart || pos >= length || subject.charAt(pos) != '[') {
+            throw new IllegalArgumentException("Formato de comando inválido. " + FORMAT_HINT);
+        }
+        target.reset(subject.substring(nameStart, pos).toUpperCase());
+        pos++; // '['
+
+        pos = skipSpaces(subject, pos);
+        if (pos < length && subject.charAt(pos) == ']') {
+            return target; // COMANDO[]
+        }
+
+        StringBuilder value = null;
+        while (true) {
+            pos = skipSpaces(subject, pos);
+            if (pos >= length) {
+                throw missingBracket();
+            }
+            if (subject.charAt(pos) == '"') {
+                // Parámetro entre comillas, con escapes
+                pos++;
+                int start = pos;
+                boolean escaped = false;
+                while (pos < length) {
+                    char c = subject.charAt(pos);
+                    if (c == '"') break;
+                    if (c == '\\' && pos + 1 < length) {
+                        if (!escaped) {
+                            if (value == null) value = new StringBuilder();
+                            value.setLength(0);
+                            escaped = true;
+                        }
+                        value.append(subject, start, pos).append(subject.charAt(pos + 1));
+                        pos += 2;
+                        start = pos;
+                        continue;
+                    }
+                    pos++;
+                }
+                if (pos >= length) {
+                    throw new IllegalArgumentException("Falta cerrar las comillas de un parámetro. " + FORMAT_HINT);
+                }
+                if (escaped) {
+                    target.addParameter(value.append(subject, start, pos).toString());
+                } else {
+                    target.addParameter(subject.substring(start, pos));
+                }
+                pos = skipSpaces(subject, pos + 1);
+            } else {
+                // Parámetro sin comillas: hasta la coma o el corchete
+                int start = pos;
+                while (pos < length && subject.charAt(pos) != ',' && subject.charAt(pos) != ']') {
+                    if (subject.charAt(pos) == '"') {
+                        throw new IllegalArgumentException("Comillas inesperadas en un parámetro. " + FORMAT_HINT);
+                    }
+                    pos++;
+                }
+                int end = pos;
+                while (end > start && subject.charAt(end - 1) <= ' ') {
+                    end--;
+                }
+                target.addParameter(subject.substring(start, end));
+            }
+
+            if (pos >= length) {
+                throw missingBracket();
+            }
+            char separator = subject.charAt(pos);
+            if (separator == ']') {
+                return target;
+            }
+            if (separator != ',') {
+                throw new IllegalArgumentException("Se esperaba ',' o ']' después de un parámetro. " + FORMAT_HINT);
+            }
+            pos++;
+        }
+    }
+
+    private static IllegalArgumentException missingBracket() {
+        return new IllegalArgumentException("Falta el ']' final del comando. " + FORMAT_HINT);
+    }
+
+    private static int skipSpaces(String s, int pos) {
+        while (pos < s.length() && s.charAt(pos) <= ' ') {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+    }
+}
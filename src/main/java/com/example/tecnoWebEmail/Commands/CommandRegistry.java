@@ -0,0 +1,100 @@
+package com.example.tecnoWebEmail.Commands;
+
+import com.example.tecnoWebEmail.Service.service_email.EmailReply;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.stereotype.Service;
+
+import java.io.Reader;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registro de comandos por correo. Al terminar de crear los beans, recorre los
+ * beans *Command buscando métodos con {@link EmailCommand} y arma el mapa
+ * nombre -> {@link CommandDefinition} que usa {@link CommandProcessor}.
+ */
+@Component
+public class CommandRegistry implements SmartInitializingSingleton {
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    private Map<String, CommandDefinition> commands = Collections.emptyMap();
+    private List<CommandDefinition> ordered = Collections.emptyList();
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        Map<String, CommandDefinition> found = new HashMap<>();
+        for (Object bean : applicationContext.getBeansWithAnnotation(Service.class).values()) {
+            Class<?> type = AopUtils.getTargetClass(bean);
+            if (!type.getSimpleName().endsWith("Command")) continue;
+            CommandGroup group = AnnotationUtils.findAnnotation(type, CommandGroup.class);
+
+            for (Method method : type.getMethods()) {
+                EmailCommand annotation = AnnotationUtils.findAnnotation(method, EmailCommand.class);
+                if (annotation == null) continue;
+                validateSignature(type, method, annotation);
+                CommandDefinition definition = new CommandDefinition(annotation, group, bean, method);
+                CommandDefinition previous = found.put(definition.getName(), definition);
+                if (previous != null) {
+                    throw new IllegalStateException("Comando duplicado " + definition.getName()
+                            + " en " + type.getSimpleName() + "." + method.getName());
+                }
+            }
+        }
+
+        List<CommandDefinition> sorted = new ArrayList<>(found.values());
+        sorted.sort(Comparator.comparingInt(CommandDefinition::getGroupOrder)
+                .thenComparing(CommandDefinition::getName));
+        this.commands = Map.copyOf(found);
+        this.ordered = List.copyOf(sorted);
+        System.out.println("Comandos registrados: " + commands.size());
+    }
+
+    private static void validateSignature(Class<?> type, Method method, EmailCommand annotation) {
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        if (annotation.attachment()) {
+            if (!validReturnType(method) || parameterTypes.length != 2
+                    || parameterTypes[0] != String[].class || parameterTypes[1] != Reader.class) {
+                throw new IllegalStateException("@EmailCommand(attachment = true) " + type.getSimpleName() + "."
+                        + method.getName() + " debe devolver String o EmailReply y recibir (String[], Reader adjunto)");
+            }
+            return;
+        }
+        boolean validParameters = parameterTypes.length == 0
+                || (parameterTypes.length == 1 && parameterTypes[0] == String[].class)
+                || (parameterTypes.length == 2 && parameterTypes[0] == String[].class && parameterTypes[1] == String.class);
+        if (!validReturnType(method) || !validParameters) {
+            throw new IllegalStateException("@EmailCommand " + type.getSimpleName() + "." + method.getName()
+                    + " debe devolver String o EmailReply y recibir (), (String[]) o (String[], String cuerpo)");
+        }
+    }
+
+    private static boolean validReturnType(Method method) {
+        return method.getReturnType() == String.class || method.getReturnType() == EmailReply.class;
+    }
+
+    /**
+     * Definición del comando, o null si no existe. El nombre ya viene en mayúsculas.
+     */
+    public CommandDefinition find(String name) {
+        return commands.get(name);
+    }
+
+    /**
+     * Todos los comandos, ordenados por sección de ayuda y por nombre.
+     */
+    public List<CommandDefinition> getCommands() {
+        return ordered;
+    }
+}
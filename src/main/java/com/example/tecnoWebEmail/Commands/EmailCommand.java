@@ -0,0 +1,58 @@
+package com.example.tecnoWebEmail.Commands;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marca un método de un bean *Command como el handler de un comando por correo.
+ *
+ * El método debe devolver String (o {@link com.example.tecnoWebEmail.Service.service_email.EmailReply}
+ * si la respuesta lleva un adjunto) y recibir {@code String[]} (los parámetros),
+ * {@code (String[], String)} (parámetros y cuerpo del correo),
+ * {@code (String[], Reader)} (parámetros y adjunto CSV, con {@link #attachment()}) o nada. {@link CommandRegistry} arma el mapa de despacho al iniciar la
+ * aplicación y {@link HelpCommand} genera la ayuda a partir de estos datos.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface EmailCommand {
+
+    /** Nombre del comando en el Subject, en mayúsculas (ej. "LISCLI"). */
+    String value();
+
+    /**
+     * Parámetros obligatorios, en orden. Si el correo trae menos, se responde
+     * con el uso correcto sin llamar al handler. Vacío: el comando no usa
+     * parámetros y se escribe COMANDO["*"].
+     */
+    String[] params() default {};
+
+    String description() default "";
+
+    /** Sólo lectura: se ejecuta en el pool de lectura, en paralelo con otros. */
+    boolean readOnly() default false;
+
+    /** Costo estimado; los HIGH de lectura tienen un cupo de ejecución propio. */
+    Cost cost() default Cost.LOW;
+
+    /** Tiempo máximo de espera por la respuesta del handler. */
+    long timeoutMs() default 30000;
+
+    /** El comando necesita el cuerpo del correo (ClientPOP hará RETR). */
+    boolean requiresBody() default false;
+
+    /**
+     * El comando lee un adjunto CSV. ClientPOP lo copia a un archivo temporal
+     * y el handler lo recibe como Reader, ejecutado por {@link CommandExecutor}
+     * como cualquier otro comando.
+     */
+    boolean attachment() default false;
+
+    enum Cost {
+        LOW,   // Búsquedas puntuales, altas y modificaciones simples
+        HIGH   // Listados completos y cálculos sobre muchas filas
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.tecnoWebEmail.Commands;
+
+import com.example.tecnoWebEmail.Service.CsvImportService;
+import com.example.tecnoWebEmail.Service.CsvImportService.ImportResult;
+import com.example.tecnoWebEmail.Service.EmailResponseService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.Reader;
+
+/**
+ * Importación masiva desde un adjunto CSV. El CSV (copiado del mensaje a un
+ * archivo temporal) se lee mientras se inserta por lotes; la respuesta resume cuántas
+ * filas se insertaron y por qué se rechazaron las demás.
+ */
+@Service
+@CommandGroup(value = "IMPORTACIÓN CSV", order = 13)
+public class ImportCommand {
+
+	@Autowired
+	private CsvImportService csvImportService;
+
+	@Autowired
+	private EmailResponseService emailResponseService;
+
+	private static final String MINI_SEPARATOR = "------------------------";
+
+	// Un CSV grande tarda más que un alta suelta
+	private static final long IMPORT_TIMEOUT_MS = 300000;
+
+	// IMPPRO ["*"] + adjunto: sku,nombre,descripcion,precio,stockInicial
+	@EmailCommand(value = "IMPPRO", description = "Importar productos de un CSV adjunto (sku,nombre,descripcion,precio,stockInicial)", attachment = true, timeoutMs = IMPORT_TIMEOUT_MS)
+	public String handleImportProducts(String[] parameters, Reader csv) {
+		try {
+			return formatImportResponse(csvImportService.importProducts(csv), "PRODUCTOS", "IMPPRO");
+		} catch (Exception e) {
+			return emailResponseService.formatErrorResponse("Error al importar productos: " + e.getMessage(), "IMPPRO");
+		}
+	}
+
+	// IMPSUP ["*"] + adjunto: nombre,descripcion,unidadMedida,stockInicial
+	@EmailCommand(value = "IMPSUP", description = "Importar insumos de un CSV adjunto (nombre,descripcion,unidadMedida,stockInicial)", attachment = true, timeoutMs = IMPORT_TIMEOUT_MS)
+	public String handleImportSupplies(String[] parameters, Reader csv) {
+		try {
+			return formatImportResponse(csvImportService.importSupplies(csv), "INSUMOS", "IMPSUP");
+		} catch (Exception e) {
+			return emailResponseService.formatErrorResponse("Error al importar insumos: " + e.getMessage(), "IMPSUP");
+		}
+	}
+
+	// IMPCLI ["*"] + adjunto: ci,nombre,apellido,email,telefono,direccion
+	@EmailCommand(value = "IMPCLI", description = "Importar clientes de un CSV adjunto (ci,nombre,apellido,email,telefono,direccion)", attachment = true, timeoutMs = IMPORT_TIMEOUT_MS)
+	public String handleImportClients(String[] parameters, Reader csv) {
+		try {
+			return formatImportResponse(csvImportService.importClients(csv), "CLIENTES", "IMPCLI");
+		} catch (Exception e) {
+			return emailResponseService.formatErrorResponse("Error al importar clientes: " + e.getMessage(), "IMPCLI");
+		}
+	}
+
+	private String formatImportResponse(ImportResult result, String entity, String command) {
+		StringBuilder response = new StringBuilder();
+		response.append(emailResponseService.generateHeader(command));
+		response.append("IMPORTACIÓN DE ").append(entity).append("\n");
+		response.append(MINI_SEPARATOR).append("\n");
+		response.append("Filas leídas: ").append(result.getRows())
+				.append(" | Insertadas: ").append(result.getInserted())
+				.append(" | Rechazadas: ").append(result.getRejected()).append("\n");
+		if (result.getRejected() > 0) {
+			response.append(MINI_SEPARATOR).append("\n");
+			response.append("FILAS RECHAZADAS\n");
+			for (String rejection : result.getRejections()) {
+				response.append(rejection).append("\n");
+			}
+			int omitted = result.getRejected() - result.getRejections().size();
+			if (omitted > 0) {
+				response.append("... y ").append(omitted).append(" filas rechazadas más\n");
+			}
+		}
+		return response.toString();
+	}
+}
@@ -1,6 +1,6 @@
 package com.example.tecnoWebEmail.Commands;
 
-import com.example.tecnoWebEmail.Models.Installment;
+import com.example.tecnoWebEmail.Repository.InstallmentRepository;
 import com.example.tecnoWebEmail.Service.EmailResponseService;
 import com.example.tecnoWebEmail.Service.InstallmentService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,6 +11,7 @@ import java.time.format.DateTimeFormatter;
 import java.util.List;
 
 @Service
+@CommandGroup(value = "CUOTAS", order = 10)
 public class InstallmentCommand {
 
     @Autowired
@@ -26,6 +27,7 @@ public class InstallmentCommand {
      * Maneja el comando LISCUP ["orderId"]
      * Lista todas las cuotas de un pedido específico.
      */
+    @EmailCommand(value = "LISCUP", params = {"orderId"}, description = "Listar cuotas de una orden", readOnly = true)
     public String handleListInstallmentsByOrder(String[] parameters) {
         String command = "LISCUP";
         try {
@@ -34,7 +36,7 @@ public class InstallmentCommand {
             }
             Long orderId = Long.parseLong(parameters[0].trim());
 
-            List<Installment> installments = installmentService.getInstallmentsByOrderId(orderId);
+            List<InstallmentRepository.ListRow> installments = installmentService.getInstallmentsByOrderId(orderId);
             String title = "CUOTAS DEL PEDIDO #" + orderId;
             return formatListInstallmentResponse(installments, title, command);
 
@@ -49,10 +51,11 @@ public class InstallmentCommand {
      * Maneja el comando LISVEN []
      * Lista todas las cuotas vencidas que no estén pagadas.
      */
+    @EmailCommand(value = "LISVEN", description = "Listar cuotas vencidas no pagadas", readOnly = true, cost = EmailCommand.Cost.HIGH)
     public String handleListOverdueInstallments() {
         String command = "LISVEN";
         try {
-            List<Installment> installments = installmentService.getOverdueInstallments();
+            List<InstallmentRepository.ListRow> installments = installmentService.getOverdueInstallments();
             String title = "CUOTAS VENCIDAS Y NO PAGADAS";
             return formatListInstallmentResponse(installments, title, command);
         } catch (Exception e) {
@@ -64,6 +67,7 @@ public class InstallmentCommand {
      * Maneja el comando LISCES ["estado"]
      * Lista todas las cuotas por un estado específico (Pending, Partial, Paid).
      */
+    @EmailCommand(value = "LISCES", params = {"estado"}, description = "Listar cuotas por estado", readOnly = true)
     public String handleListInstallmentsByState(String[] parameters) {
         String command = "LISCES";
         try {
@@ -72,7 +76,7 @@ public class InstallmentCommand {
             }
             String state = parameters[0].trim();
 
-            List<Installment> installments = installmentService.getInstallmentsByState(state);
+            List<InstallmentRepository.ListRow> installments = installmentService.getInstallmentsByState(state);
             String title = "CUOTAS CON ESTADO: " + state.toUpperCase();
             return formatListInstallmentResponse(installments, title, command);
 
@@ -87,7 +91,7 @@ public class InstallmentCommand {
     /**
      * Formatea una lista de cuotas en una respuesta de email.
      */
-    private String formatListInstallmentResponse(List<Installment> installments, String title, String command) {
+    private String formatListInstallmentResponse(List<InstallmentRepository.ListRow> installments, String title, String command) {
         StringBuilder response = new StringBuilder();
         response.append(emailResponseService.generateHeader(command));
 
@@ -101,9 +105,9 @@ public class InstallmentCommand {
             response.append("Total de registros encontrados: ").append(installments.size()).append("\n\n");
 
             int contador = 1;
-            for (Installment inst : installments) {
+            for (InstallmentRepository.ListRow inst : installments) {
                 response.append(" CUOTA #").append(contador).append(" (ID: ").append(inst.getId()).append(")\n");
-                response.append("   • Pedido ID: ").append(inst.getOrder().getId()).append("\n");
+                response.append("   • Pedido ID: ").append(inst.getOrderId()).append("\n");
                 response.append("   • Nro. Cuota: ").append(inst.getInstallmentNumber()).append("\n");
                 response.append("   • Monto Cuota: ").append(inst.getInstallmentAmount()).append("\n");
                 response.append("   • Monto Pagado: ").append(inst.getAmountPaid()).append("\n");
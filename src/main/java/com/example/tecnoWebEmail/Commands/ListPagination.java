@@ -0,0 +1,150 @@
+package com.example.tecnoWebEmail.Commands;
+
+import com.example.tecnoWebEmail.Service.Keyset;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Opciones de los listados paginados: {@code after=<id>}, {@code limit=<n>},
+ * {@code formato=csv} y los filtros que acepte cada comando
+ * (ej. LISPAG["pedido=5","after=123","limit=200"]). También arma el pie de la
+ * respuesta con el comando de la página siguiente.
+ *
+ * Una página que supera {@code list.attachment.threshold-rows} filas o
+ * {@code list.attachment.threshold-bytes} de texto se envía como CSV comprimido
+ * adjunto ({@link ListReply}); {@code formato=csv} lo pide siempre.
+ */
+@Component
+public class ListPagination {
+
+    private static final String MINI_SEPARATOR = "------------------------";
+
+    private final int defaultLimit;
+    private final int maxLimit;
+    private final int thresholdRows;
+    private final int thresholdBytes;
+    private final boolean gzip;
+
+    @Autowired
+    public ListPagination(@Value("${list.page.default-limit:200}") int defaultLimit,
+                          @Value("${list.page.max-limit:20000}") int maxLimit,
+                          @Value("${list.attachment.threshold-rows:500}") int thresholdRows,
+                          @Value("${list.attachment.threshold-bytes:262144}") int thresholdBytes,
+                          @Value("${list.attachment.format:zip}") String format) {
+        this.maxLimit = Math.max(1, maxLimit);
+        this.defaultLimit = Math.max(1, Math.min(defaultLimit, this.maxLimit));
+        this.thresholdRows = Math.max(1, thresholdRows);
+        this.thresholdBytes = Math.max(1, thresholdBytes);
+        this.gzip = format.trim().equalsIgnoreCase("gzip");
+    }
+
+    public ListPagination(int defaultLimit, int maxLimit) {
+        this(defaultLimit, maxLimit, 500, 262144, "zip");
+    }
+
+    /**
+     * Lee las opciones desde {@code parameters[from]}. "*" y los vacíos se
+     * ignoran; una opción desconocida es un error.
+     */
+    public ListQuery parse(String[] parameters, int from, String... filters) {
+        List<String> allowed = Arrays.asList(filters);
+        Long after = null;
+        Integer limit = null;
+        boolean csv = false;
+        Map<String, String> values = new LinkedHashMap<>();
+        for (int i = from; i < parameters.length; i++) {
+            String option = parameters[i].trim();
+            if (option.isEmpty() || option.equals("*")) continue;
+            int eq = option.indexOf('=');
+            String key = eq < 0 ? option.toLowerCase() : option.substring(0, eq).trim().toLowerCase();
+            String value = eq < 0 ? "" : option.substring(eq + 1).trim();
+            if (key.equals("after")) {
+                after = parsePositive(key, value);
+            } else if (key.equals("limit")) {
+                limit = (int) Math.min(parsePositive(key, value), maxLimit);
+            } else if (key.equals("formato") && (value.equalsIgnoreCase("csv") || value.equalsIgnoreCase("texto"))) {
+                csv = value.equalsIgnoreCase("csv");
+            } else if (allowed.contains(key) && !value.isEmpty()) {
+                values.put(key, value);
+            } else {
+                throw new IllegalArgumentException("Opción no válida '" + option + "'. Opciones: after=, limit=, formato=csv"
+                        + (filters.length > 0 ? ", " + String.join("=, ", filters) + "=" : ""));
+            }
+        }
+        // Un CSV pedido explícitamente trae por defecto la página más grande
+        return new ListQuery(after, limit != null ? limit : csv ? maxLimit : defaultLimit, values, csv);
+    }
+
+    /**
+     * Respuesta de un listado con las columnas de su CSV; elige texto o
+     * adjunto según los umbrales mientras recibe las filas.
+     */
+    public ListReply reply(String command, ListQuery query, String... columns) {
+        return new ListReply(this, command, query, columns);
+    }
+
+    /**
+     * Pie del listado: cantidad de la página y, si hay más, el comando que pide
+     * la siguiente. {@code fixed} son los parámetros obligatorios del comando.
+     */
+    public void appendFooter(StringBuilder response, String command, ListQuery query, Keyset.Page page, String... fixed) {
+        response.append(MINI_SEPARATOR).append("\n");
+        response.append("Registros en esta página: ").append(page.count()).append("\n");
+        if (page.next() == null) {
+            response.append("Última página.\n");
+        } else {
+            StringBuilder next = new StringBuilder(command).append('[');
+            for (String parameter : fixed) {
+                next.append('"').append(parameter).append("\",");
+            }
+            for (Map.Entry<String, String> filter : query.filters().entrySet()) {
+                next.append('"').append(filter.getKey()).append('=').append(filter.getValue()).append("\",");
+            }
+            if (query.csv()) {
+                next.append("\"formato=csv\",");
+            }
+            next.append("\"after=").append(page.next()).append("\",\"limit=").append(query.limit()).append("\"]");
+            response.append("Página siguiente: ").append(next).append("\n");
+        }
+        response.append("\n");
+    }
+
+    int getThresholdRows() {
+        return thresholdRows;
+    }
+
+    int getThresholdBytes() {
+        return thresholdBytes;
+    }
+
+    boolean isGzip() {
+        return gzip;
+    }
+
+    private static long parsePositive(String key, String value) {
+        try {
+            long number = Long.parseLong(value);
+            if (number > 0) return number;
+        } catch (NumberFormatException ignored) {
+            // se informa abajo
+        }
+        throw new IllegalArgumentException("La opción " + key + "= debe ser un número mayor que cero");
+    }
+
+    /**
+     * Página pedida: {@code after} es null en la primera; {@code csv} si se
+     * pidió formato=csv.
+     */
+    public record ListQuery(Long after, int limit, Map<String, String> filters, boolean csv) {
+
+        public String filter(String key) {
+            return filters.get(key);
+        }
+    }
+}
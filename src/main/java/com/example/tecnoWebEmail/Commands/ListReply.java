@@ -0,0 +1,167 @@
+package com.example.tecnoWebEmail.Commands;
+
+import com.example.tecnoWebEmail.Service.Keyset;
+import com.example.tecnoWebEmail.Service.service_email.EmailReply;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Respuesta de un listado paginado que elige su formato mientras recibe las
+ * filas. Mientras la página es chica las filas van como texto en el cuerpo;
+ * al superar el umbral de filas o de bytes pasa a un CSV comprimido (zip o
+ * gzip) adjunto y el cuerpo queda con un resumen. Desde ese momento cada fila
+ * se escribe directo al compresor a medida que llega de la base: el listado
+ * nunca se arma completo en memoria, sólo sus bytes comprimidos.
+ *
+ * Se crea con {@link ListPagination#reply}; el handler escribe el encabezado
+ * en {@link #text()}, llama a {@link #row} por cada registro y termina con
+ * {@link #finish}.
+ */
+public class ListReply {
+
+    private static final int CSV_BUFFER = 8192;
+
+    private final ListPagination pagination;
+    private final String command;
+    private final ListPagination.ListQuery query;
+    private final String[] columns;
+    private final StringBuilder response = new StringBuilder();
+
+    // Modo texto: dónde empiezan las filas en response y su CSV por si se pasa al adjunto
+    private int rowsStart = -1;
+    private int textRows;
+    private StringBuilder pendingCsv = new StringBuilder();
+
+    // Modo adjunto
+    private ByteArrayOutputStream compressed;
+    private Writer csv;
+
+    ListReply(ListPagination pagination, String command, ListPagination.ListQuery query, String[] columns) {
+        this.pagination = pagination;
+        this.command = command;
+        this.query = query;
+        this.columns = columns;
+        if (query.csv()) {
+            try {
+                startAttachment();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Cuerpo de la respuesta; el handler escribe aquí el encabezado antes de
+     * la primera fila.
+     */
+    public StringBuilder text() {
+        return response;
+    }
+
+    /**
+     * Agrega un registro: {@code text} lo escribe en el cuerpo (sólo se llama
+     * en modo texto) y {@code fields} son sus valores para el CSV, en el orden
+     * de las columnas.
+     */
+    public void row(Consumer<StringBuilder> text, Object... fields) {
+        try {
+            if (csv != null) {
+                appendCsvLine(csv, fields);
+                return;
+            }
+            if (rowsStart < 0) rowsStart = response.length();
+            text.accept(response);
+            appendCsvLine(pendingCsv, fields);
+            if (++textRows > pagination.getThresholdRows()
+                    || response.length() - rowsStart > pagination.getThresholdBytes()) {
+                startAttachment();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Pasa al adjunto: descarta las filas de texto y vuelca al compresor las ya leídas
+    private void startAttachment() throws IOException {
+        compressed = new ByteArrayOutputStream();
+        OutputStream out;
+        if (pagination.isGzip()) {
+            out = new GZIPOutputStream(compressed, CSV_BUFFER);
+        } else {
+            ZipOutputStream zip = new ZipOutputStream(compressed);
+            zip.putNextEntry(new ZipEntry(command.toLowerCase() + ".csv"));
+            out = zip;
+        }
+        csv = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), CSV_BUFFER);
+        csv.write('\uFEFF'); // BOM: Excel abre el CSV como UTF-8 (acentos)
+        appendCsvLine(csv, columns);
+        csv.append(pendingCsv);
+        pendingCsv = null;
+        if (rowsStart >= 0) response.setLength(rowsStart);
+    }
+
+    /**
+     * Cierra el listado: filas (o resumen del adjunto), pie con la página
+     * siguiente y "OK". {@code fixed} son los parámetros obligatorios del comando.
+     */
+    public EmailReply finish(Keyset.Page page, String... fixed) {
+        EmailReply.Attachment attachment = null;
+        if (csv != null) {
+            try {
+                csv.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            byte[] data = compressed.toByteArray();
+            String fileName = command.toLowerCase() + (pagination.isGzip() ? ".csv.gz" : ".zip");
+            attachment = new EmailReply.Attachment(fileName,
+                    pagination.isGzip() ? "application/gzip" : "application/zip", data);
+            response.append(" Listado adjunto: ").append(fileName)
+                    .append(" (CSV comprimido, ").append(Math.max(1, data.length / 1024)).append(" KB)\n\n");
+        }
+        pagination.appendFooter(response, command, query, page, fixed);
+        response.append("OK\n");
+        return new EmailReply(response.toString(), attachment);
+    }
+
+    static void appendCsvLine(Appendable out, Object[] fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) out.append(',');
+            appendCsvField(out, fields[i]);
+        }
+        out.append("\r\n");
+    }
+
+    private static void appendCsvField(Appendable out, Object value) throws IOException {
+        if (value == null) return;
+        String text = value instanceof BigDecimal number ? number.toPlainString() : value.toString();
+        boolean quote = false;
+        for (int i = 0; i < text.length() && !quote; i++) {
+            char c = text.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.append(text);
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') out.append('"');
+            out.append(c);
+        }
+        out.append('"');
+    }
+}
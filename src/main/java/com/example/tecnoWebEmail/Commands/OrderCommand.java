@@ -3,14 +3,16 @@ package com.example.tecnoWebEmail.Commands;
 import com.example.tecnoWebEmail.Models.Order;
 import com.example.tecnoWebEmail.Models.OrderDetail;
 import com.example.tecnoWebEmail.Service.EmailResponseService;
+import com.example.tecnoWebEmail.Service.Keyset;
 import com.example.tecnoWebEmail.Service.OrderService;
+import com.example.tecnoWebEmail.Service.service_email.EmailReply;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.time.format.DateTimeFormatter;
-import java.util.List;
 
 @Service
+@CommandGroup(value = "ÓRDENES", order = 7)
 public class OrderCommand {
 
     @Autowired
@@ -19,24 +21,49 @@ public class OrderCommand {
     @Autowired
     private EmailResponseService emailResponseService;
 
+    @Autowired
+    private ListPagination listPagination;
+
     private static final String MINI_SEPARATOR = "------------------------";
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
 
     /**
-     * Maneja el comando LISORD []
+     * Maneja el comando LISORD ["after=id","limit=n","estado=...","pago=..."]
+     * (todas opcionales; estado = estado de producción, pago = estado de pago)
      */
-    public String handleListOrders() {
+    @EmailCommand(value = "LISORD", description = "Listar órdenes por páginas (opciones: after=, limit=, estado=, pago=, formato=csv)", readOnly = true, cost = EmailCommand.Cost.HIGH)
+    public EmailReply handleListOrders(String[] parameters) {
         try {
-            List<Order> orders = orderService.getAllOrders();
-            return formatListOrderResponse(orders, "LISORD");
+            ListPagination.ListQuery query = listPagination.parse(parameters, 0, "estado", "pago");
+            ListReply reply = listPagination.reply("LISORD", query,
+                    "id", "cliente", "fecha", "total", "estado_pago", "estado_produccion");
+            StringBuilder response = reply.text();
+            response.append(emailResponseService.generateHeader("LISORD"));
+            response.append(" LISTADO DE ÓRDENES\n");
+            response.append(MINI_SEPARATOR).append("\n");
+            Keyset.Page page = orderService.forEachOrder(query.after(), query.limit(),
+                    query.filter("estado"), query.filter("pago"), (order, n) -> {
+                        String date = order.getOrderDate().format(DATE_FORMATTER);
+                        reply.row(text -> {
+                            text.append(" ORDEN #").append(n).append(" (ID: ").append(order.getId()).append(")\n");
+                            text.append("   • Cliente: ").append(order.getClientName()).append("\n");
+                            text.append("   • Fecha: ").append(date).append("\n");
+                            text.append("   • Total: ").append(order.getTotalAmount()).append("\n");
+                            text.append("   • Estado Pago: ").append(order.getPaymentState()).append("\n");
+                            text.append("   • Estado Prod.: ").append(order.getStatus()).append("\n\n");
+                        }, order.getId(), order.getClientName(), date, order.getTotalAmount(),
+                                order.getPaymentState(), order.getStatus());
+                    });
+            return reply.finish(page);
         } catch (Exception e) {
-            return emailResponseService.formatErrorResponse("Error al listar órdenes: " + e.getMessage(), "LISORD");
+            return EmailReply.text(emailResponseService.formatErrorResponse("Error al listar órdenes: " + e.getMessage(), "LISORD"));
         }
     }
 
     /**
      * Maneja el comando BUSORD ["id"]
      */
+    @EmailCommand(value = "BUSORD", params = {"id"}, description = "Buscar orden por ID", readOnly = true)
     public String handleSearchOrder(String[] parameters) {
         String command = "BUSORD";
         try {
@@ -61,6 +88,7 @@ public class OrderCommand {
      * Formato: ["ci_cliente", "ci_usuario", "CondicionPago"]
      * (Ej: INSORD["123456", "789012", "Credit"])
      */
+    @EmailCommand(value = "INSORD", params = {"ciCliente", "ciUsuario", "condPago"}, description = "Insertar orden")
     public String handleInsertOrder(String[] parameters) {
         String command = "INSORD";
         try {
@@ -94,6 +122,7 @@ public class OrderCommand {
      * Formato: ["order_id", "num_cuotas"]
      * (Ej: CONFORD["12", "3"] o CONFORD["13", "0"] si es al contado)
      */
+    @EmailCommand(value = "CONFORD", params = {"id", "numCuotas"}, description = "Confirmar orden y generar cuotas")
     public String handleConfirmOrder(String[] parameters) {
         String command = "CONFORD";
         try {
@@ -150,31 +179,4 @@ public class OrderCommand {
         response.append("\nOK\n");
         return response.toString();
     }
-
-    private String formatListOrderResponse(List<Order> orders, String command) {
-        // (Este método se mantiene igual que en tu versión original)
-        StringBuilder response = new StringBuilder();
-        response.append(emailResponseService.generateHeader(command));
-        if (orders.isEmpty()) {
-            response.append("RESULTADO DEL LISTADO\n");
-            response.append(MINI_SEPARATOR).append("\n");
-            response.append(" No se encontraron órdenes en la base de datos.\n");
-        } else {
-            response.append(" LISTADO DE ÓRDENES\n");
-            response.append(MINI_SEPARATOR).append("\n");
-            response.append("Total de registros encontrados: ").append(orders.size()).append("\n\n");
-            int contador = 1;
-            for (Order order : orders) {
-                response.append(" ORDEN #").append(contador).append(" (ID: ").append(order.getId()).append(")\n");
-                response.append("   • Cliente: ").append(order.getClient().getFirstName()).append("\n");
-                response.append("   • Fecha: ").append(order.getOrderDate().format(DATE_FORMATTER)).append("\n");
-                response.append("   • Total: ").append(order.getTotalAmount()).append("\n");
-                response.append("   • Estado Pago: ").append(order.getPaymentState()).append("\n");
-                response.append("   • Estado Prod.: ").append(order.getStatus()).append("\n\n");
-                contador++;
-            }
-        }
-        response.append("OK\n");
-        return response.toString();
-    }
 }
\ No newline at end of file
@@ -9,8 +9,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @Service
+@CommandGroup(value = "DETALLES DE ORDEN", order = 8)
 public class OrderDetailCommand {
 
     @Autowired
@@ -28,6 +32,7 @@ public class OrderDetailCommand {
      * Maneja el comando ADDET (Añadir Detalle)
      * Formato: ["order_id", "product_id", "quantity"]
      */
+    @EmailCommand(value = "ADDET", params = {"orderId", "productId", "cantidad"}, description = "Agregar detalle a orden")
     public String handleAddDetailToOrder(String[] parameters) {
         String command = "ADDET";
         try {
@@ -55,12 +60,127 @@ public class OrderDetailCommand {
         }
     }
 
+    /**
+     * Maneja el comando ADDETM (Añadir varios detalles de una vez)
+     * Formato: ["order_id", "product_id:quantity", "product_id:quantity", ...]
+     */
+    @EmailCommand(value = "ADDETM", params = {"orderId", "productId:cantidad"},
+            description = "Agregar varios detalles a una orden (un \"productId:cantidad\" más por cada producto)")
+    public String handleAddDetailsToOrder(String[] parameters) {
+        String command = "ADDETM";
+        try {
+            if (parameters.length < 2) {
+                return emailResponseService.formatErrorResponse(
+                        "Número incorrecto de parámetros. Se esperaban: [order_id, product_id:quantity, ...]",
+                        command);
+            }
+
+            Long orderId = Long.parseLong(parameters[0].trim());
+            Map<Long, Integer> quantities = new LinkedHashMap<>();
+            for (int i = 1; i < parameters.length; i++) {
+                String[] line = parameters[i].split(":");
+                if (line.length != 2) {
+                    return emailResponseService.formatErrorResponse(
+                            "Línea inválida: '" + parameters[i].trim() + "'. Formato esperado product_id:quantity",
+                            command);
+                }
+                quantities.merge(Long.parseLong(line[0].trim()), Integer.parseInt(line[1].trim()), Integer::sum);
+            }
+
+            List<OrderDetail> savedDetails = orderDetailService.addDetailsToOrder(orderId, quantities);
+            Order updatedOrder = orderService.getOrderById(orderId).get();
+
+            StringBuilder response = new StringBuilder();
+            response.append(emailResponseService.generateHeader(command));
+            response.append(" DETALLES AÑADIDOS EXITOSAMENTE (").append(savedDetails.size()).append(")\n");
+            response.append(MINI_SEPARATOR).append("\n");
+            for (OrderDetail detail : savedDetails) {
+                response.append("   • [").append(detail.getId()).append("] ")
+                        .append(detail.getProduct().getNombre()).append(" (ID: ").append(detail.getProduct().getId()).append(")")
+                        .append(" x ").append(detail.getQuantity())
+                        .append(" @ ").append(detail.getUnitPrice()).append("\n");
+            }
+            response.append("\n");
+            response.append("   • ID de Orden: ").append(updatedOrder.getId()).append("\n");
+            response.append("   • NUEVO TOTAL (Temporal): ").append(updatedOrder.getTotalAmount()).append("\n");
+            response.append("\nOK\n");
+            return response.toString();
+
+        } catch (Exception e) {
+            return emailResponseService.formatErrorResponse("Error al añadir detalles: " + e.getMessage(), command);
+        }
+    }
+
+    /**
+     * Maneja el comando UPDDET (Cambiar la cantidad de un detalle)
+     * Formato: ["detail_id", "quantity"]
+     */
+    @EmailCommand(value = "UPDDET", params = {"detailId", "cantidad"}, description = "Cambiar la cantidad de un detalle")
+    public String handleUpdateDetail(String[] parameters) {
+        String command = "UPDDET";
+        try {
+            if (parameters.length < 2) {
+                return emailResponseService.formatErrorResponse(
+                        "Número incorrecto de parámetros. Se esperaban 2: [detail_id, quantity]",
+                        command);
+            }
+
+            Long detailId = Long.parseLong(parameters[0].trim());
+            Integer quantity = Integer.parseInt(parameters[1].trim());
+
+            OrderDetail savedDetail = orderDetailService.updateDetailQuantity(detailId, quantity);
+            Order updatedOrder = orderService.getOrderById(savedDetail.getOrder().getId()).get();
+
+            return formatDetailResponse(savedDetail, updatedOrder, command, " DETALLE ACTUALIZADO EXITOSAMENTE");
+
+        } catch (Exception e) {
+            return emailResponseService.formatErrorResponse("Error al actualizar detalle: " + e.getMessage(), command);
+        }
+    }
+
+    /**
+     * Maneja el comando DELDET (Eliminar un detalle)
+     * Formato: ["detail_id"]
+     */
+    @EmailCommand(value = "DELDET", params = {"detailId"}, description = "Eliminar un detalle de la orden")
+    public String handleRemoveDetail(String[] parameters) {
+        String command = "DELDET";
+        try {
+            if (parameters.length < 1) {
+                return emailResponseService.formatErrorResponse(
+                        "Número incorrecto de parámetros. Se esperaba 1: [detail_id]",
+                        command);
+            }
+
+            Long detailId = Long.parseLong(parameters[0].trim());
+            Long orderId = orderDetailService.removeDetail(detailId);
+            Order updatedOrder = orderService.getOrderById(orderId).get();
+
+            StringBuilder response = new StringBuilder();
+            response.append(emailResponseService.generateHeader(command));
+            response.append(" DETALLE ELIMINADO EXITOSAMENTE\n");
+            response.append(MINI_SEPARATOR).append("\n");
+            response.append("   • ID Detalle: ").append(detailId).append("\n");
+            response.append("   • ID de Orden: ").append(updatedOrder.getId()).append("\n");
+            response.append("   • NUEVO TOTAL (Temporal): ").append(updatedOrder.getTotalAmount()).append("\n");
+            response.append("\nOK\n");
+            return response.toString();
+
+        } catch (Exception e) {
+            return emailResponseService.formatErrorResponse("Error al eliminar detalle: " + e.getMessage(), command);
+        }
+    }
+
     // --- Helper de Formato ---
 
     private String formatDetailResponse(OrderDetail detail, Order order, String command) {
+        return formatDetailResponse(detail, order, command, " DETALLE AÑADIDO EXITOSAMENTE");
+    }
+
+    private String formatDetailResponse(OrderDetail detail, Order order, String command, String title) {
         StringBuilder response = new StringBuilder();
         response.append(emailResponseService.generateHeader(command));
-        response.append(" DETALLE AÑADIDO EXITOSAMENTE\n");
+        response.append(title).append("\n");
         response.append(MINI_SEPARATOR).append("\n");
         response.append("   • ID Detalle: ").append(detail.getId()).append("\n");
         response.append("   • Producto: ").append(detail.getProduct().getNombre()).append(" (ID: ").append(detail.getProduct().getId()).append(")\n");
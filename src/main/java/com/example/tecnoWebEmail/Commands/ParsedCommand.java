@@ -0,0 +1,59 @@
+package com.example.tecnoWebEmail.Commands;
+
+import java.util.Arrays;
+
+/**
+ * Resultado de {@link CommandParser}: nombre del comando (en mayúsculas) y sus
+ * parámetros ya sin comillas ni escapes.
+ *
+ * Se puede reutilizar entre llamadas a {@link CommandParser#parse(String, ParsedCommand)}
+ * para no crear un objeto por mensaje.
+ */
+public class ParsedCommand {
+
+    private static final String[] NO_PARAMETERS = new String[0];
+
+    private String name;
+    private String[] parameters = NO_PARAMETERS;
+    private int parameterCount;
+
+    void reset(String name) {
+        this.name = name;
+        Arrays.fill(parameters, 0, parameterCount, null);
+        this.parameterCount = 0;
+    }
+
+    void addParameter(String value) {
+        if (parameterCount == parameters.length) {
+            parameters = Arrays.copyOf(parameters, Math.max(4, parameterCount * 2));
+        }
+        parameters[parameterCount++] = value;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getParameterCount() {
+        return parameterCount;
+    }
+
+    public String getParameter(int index) {
+        if (index < 0 || index >= parameterCount) {
+            throw new IndexOutOfBoundsException("Parámetro " + index + " fuera de rango (" + parameterCount + " parámetros)");
+        }
+        return parameters[index];
+    }
+
+    /**
+     * Copia de los parámetros con el largo exacto, como la esperan los handlers.
+     */
+    public String[] getParameters() {
+        return parameterCount == 0 ? NO_PARAMETERS : Arrays.copyOf(parameters, parameterCount);
+    }
+
+    @Override
+    public String toString() {
+        return name + Arrays.toString(getParameters());
+    }
+}
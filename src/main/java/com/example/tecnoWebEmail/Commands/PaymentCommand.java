@@ -4,7 +4,9 @@ import com.example.tecnoWebEmail.Models.Installment;
 import com.example.tecnoWebEmail.Models.Order;
 import com.example.tecnoWebEmail.Models.Payment;
 import com.example.tecnoWebEmail.Service.EmailResponseService;
+import com.example.tecnoWebEmail.Service.Keyset;
 import com.example.tecnoWebEmail.Service.PaymentService;
+import com.example.tecnoWebEmail.Service.service_email.EmailReply;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -13,6 +15,7 @@ import java.time.format.DateTimeFormatter;
 import java.util.List;
 
 @Service
+@CommandGroup(value = "PAGOS", order = 11)
 public class PaymentCommand {
 
     @Autowired
@@ -21,6 +24,9 @@ public class PaymentCommand {
     @Autowired
     private EmailResponseService emailResponseService;
 
+    @Autowired
+    private ListPagination listPagination;
+
     private static final String MINI_SEPARATOR = "------------------------";
     private static final DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
 
@@ -29,6 +35,7 @@ public class PaymentCommand {
      * Formato: ["order_id", "amount", "payment_type", "installment_id"]
      * (Usar "0" para installment_id si no aplica)
      */
+    @EmailCommand(value = "INSPAG", params = {"orderId", "monto", "tipoPago", "installmentId"}, description = "Registrar pago (installmentId 0 si no aplica)")
     public String handleInsertPayment(String[] parameters) {
         String command = "INSPAG";
         try {
@@ -79,23 +86,36 @@ public class PaymentCommand {
     }
 
     /**
-     * Maneja el comando LISPAG []
-     * Lista todos los pagos registrados.
+     * Maneja el comando LISPAG ["after=id","limit=n","pedido=id","tipo=tipoPago"]
+     * Lista los pagos registrados por páginas (todas las opciones son opcionales).
      */
-    public String handleListAllPayments() {
+    @EmailCommand(value = "LISPAG", description = "Listar pagos por páginas (opciones: after=, limit=, pedido=, tipo=, formato=csv)", readOnly = true, cost = EmailCommand.Cost.HIGH)
+    public EmailReply handleListAllPayments(String[] parameters) {
         String command = "LISPAG";
         try {
-            List<Payment> payments = paymentService.getAllPayments();
-            String title = "LISTADO DE TODOS LOS PAGOS";
-            return formatListPaymentResponse(payments, title, command);
+            ListPagination.ListQuery query = listPagination.parse(parameters, 0, "pedido", "tipo");
+            Long orderId = query.filter("pedido") != null ? Long.parseLong(query.filter("pedido")) : null;
+            ListReply reply = listPagination.reply(command, query, "id", "pedido", "cuota", "tipo", "monto", "fecha");
+            StringBuilder response = reply.text();
+            response.append(emailResponseService.generateHeader(command));
+            response.append(" LISTADO DE PAGOS\n");
+            response.append(MINI_SEPARATOR).append("\n");
+            Keyset.Page page = paymentService.forEachPayment(query.after(), query.limit(), orderId, query.filter("tipo"),
+                    (payment, n) -> reply.row(text -> appendPayment(text, payment, n),
+                            payment.getId(), payment.getOrder().getId(),
+                            payment.getInstallment() != null ? payment.getInstallment().getId() : null,
+                            payment.getPaymentType(), payment.getAmount(),
+                            payment.getPaymentDate().format(DATETIME_FORMATTER)));
+            return reply.finish(page);
         } catch (Exception e) {
-            return emailResponseService.formatErrorResponse("Error al listar pagos: " + e.getMessage(), command);
+            return EmailReply.text(emailResponseService.formatErrorResponse("Error al listar pagos: " + e.getMessage(), command));
         }
     }
 
     /**
      * Maneja el comando BUSPAG ["id_pago"]
      */
+    @EmailCommand(value = "BUSPAG", params = {"id"}, description = "Buscar pago por ID", readOnly = true)
     public String handleSearchPayment(String[] parameters) {
         String command = "BUSPAG";
         try {
@@ -117,6 +137,7 @@ public class PaymentCommand {
      * Maneja el comando LISPEDPAG ["id_pedido"]
      * Lista todos los pagos de un pedido específico.
      */
+    @EmailCommand(value = "LISPEDPAG", params = {"orderId"}, description = "Listar pagos de una orden", readOnly = true)
     public String handleListPaymentsByOrder(String[] parameters) {
         String command = "LISPEDPAG";
         try {
@@ -137,6 +158,7 @@ public class PaymentCommand {
      * Maneja el comando LISCUPAG ["id_cuota"]
      * Lista todos los pagos (abonos) de una cuota específica.
      */
+    @EmailCommand(value = "LISCUPAG", params = {"installmentId"}, description = "Listar pagos de una cuota", readOnly = true)
     public String handleListPaymentsByInstallment(String[] parameters) {
         String command = "LISCUPAG";
         try {
@@ -188,20 +210,24 @@ public class PaymentCommand {
 
             int contador = 1;
             for (Payment payment : payments) {
-                response.append(" PAGO #").append(contador).append(" (ID: ").append(payment.getId()).append(")\n");
-                response.append("   • ID Pedido: ").append(payment.getOrder().getId()).append("\n");
-
-                String installmentId = (payment.getInstallment() != null)
-                        ? payment.getInstallment().getId().toString()
-                        : "N/A";
-                response.append("   • ID Cuota: ").append(installmentId).append("\n");
-
-                response.append("   • Monto: ").append(payment.getAmount()).append("\n");
-                response.append("   • Fecha: ").append(payment.getPaymentDate().format(DATETIME_FORMATTER)).append("\n\n");
+                appendPayment(response, payment, contador);
                 contador++;
             }
         }
         response.append("OK\n");
         return response.toString();
     }
+
+    private void appendPayment(StringBuilder response, Payment payment, int contador) {
+        response.append(" PAGO #").append(contador).append(" (ID: ").append(payment.getId()).append(")\n");
+        response.append("   • ID Pedido: ").append(payment.getOrder().getId()).append("\n");
+
+        String installmentId = (payment.getInstallment() != null)
+                ? payment.getInstallment().getId().toString()
+                : "N/A";
+        response.append("   • ID Cuota: ").append(installmentId).append("\n");
+
+        response.append("   • Monto: ").append(payment.getAmount()).append("\n");
+        response.append("   • Fecha: ").append(payment.getPaymentDate().format(DATETIME_FORMATTER)).append("\n\n");
+    }
 }
\ No newline at end of file
@@ -3,14 +3,15 @@ package com.example.tecnoWebEmail.Commands;
 import com.example.tecnoWebEmail.Models.Product;
 import com.example.tecnoWebEmail.Models.ProductMovement;
 import com.example.tecnoWebEmail.Service.EmailResponseService;
+import com.example.tecnoWebEmail.Service.Keyset;
 import com.example.tecnoWebEmail.Service.ProductService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
-import java.util.List;
 
 @Service
+@CommandGroup(value = "PRODUCTOS", order = 4)
 public class ProductCommand {
 
 	@Autowired
@@ -19,19 +20,39 @@ public class ProductCommand {
 	@Autowired
 	private EmailResponseService emailResponseService;
 
+	@Autowired
+	private ListPagination listPagination;
+
 	private static final String MINI_SEPARATOR = "------------------------";
 
-	// LISTADO: devuelve todos los productos
-	public String handleListProducts() {
+	// LISPRO ["after=id","limit=n","nombre=texto"] (todas opcionales)
+	@EmailCommand(value = "LISPRO", description = "Listar productos por páginas (opciones: after=, limit=, nombre=)", readOnly = true, cost = EmailCommand.Cost.HIGH)
+	public String handleListProducts(String[] parameters) {
 		try {
-			List<Product> products = productService.getAllProducts();
-			return formatListProductsResponse(products, "LISPRO");
+			ListPagination.ListQuery query = listPagination.parse(parameters, 0, "nombre");
+			StringBuilder response = new StringBuilder();
+			response.append(emailResponseService.generateHeader("LISPRO"));
+			response.append(" LISTADO DE PRODUCTOS\n");
+			response.append(MINI_SEPARATOR).append("\n");
+			Keyset.Page page = productService.forEachProduct(query.after(), query.limit(), query.filter("nombre"),
+					(product, n) -> {
+						response.append(" PRODUCTO #").append(n).append("\n");
+						response.append("   • ID: ").append(product.getId()).append("\n");
+						response.append("   • SKU: ").append(product.getSku()).append("\n");
+						response.append("   • Nombre: ").append(product.getNombre()).append("\n");
+						response.append("   • Precio: ").append(product.getPrecioVenta()).append("\n");
+						response.append("   • Stock: ").append(product.getStockActual()).append("\n\n");
+					});
+			listPagination.appendFooter(response, "LISPRO", query, page);
+			response.append("OK\n");
+			return response.toString();
 		} catch (Exception e) {
 			return emailResponseService.formatErrorResponse("Error al listar productos: " + e.getMessage(), "LISPRO");
 		}
 	}
 
 	// BUSPRO ["sku"]
+	@EmailCommand(value = "BUSPRO", params = {"sku"}, description = "Buscar producto por SKU", readOnly = true)
 	public String handleSearchProductBySku(String[] parameters) {
 		try {
 			if (parameters.length < 1 || parameters[0].trim().isEmpty()) {
@@ -49,6 +70,7 @@ public class ProductCommand {
 	}
 
 	// INSPRO ["sku","nombre","descripcion","precio","stockInicial"]
+	@EmailCommand(value = "INSPRO", params = {"sku", "nombre", "descripcion", "precio", "stockInicial"}, description = "Insertar producto")
 	public String handleInsertProduct(String[] parameters) {
 		try {
 			if (parameters.length < 5) {
@@ -76,6 +98,7 @@ public class ProductCommand {
 	}
 
 	// UPDPRO ["sku","nuevoNombre","nuevaDescripcion","nuevoPrecio"]
+	@EmailCommand(value = "UPDPRO", params = {"sku", "nombre", "descripcion", "precio"}, description = "Actualizar producto")
 	public String handleUpdateProduct(String[] parameters) {
 		try {
 			if (parameters.length < 4) {
@@ -97,6 +120,7 @@ public class ProductCommand {
 	}
 
 	// ENTPRO ["productId","cantidad","motivo"] -> registrar entrada
+	@EmailCommand(value = "ENTPRO", params = {"productId", "cantidad", "motivo"}, description = "Registrar entrada de stock")
 	public String handleRegisterEntry(String[] parameters) {
 		try {
 			if (parameters.length < 3) {
@@ -114,6 +138,7 @@ public class ProductCommand {
 	}
 
 	// SALPRO ["productId","cantidad","motivo"] -> registrar salida
+	@EmailCommand(value = "SALPRO", params = {"productId", "cantidad", "motivo"}, description = "Registrar salida de stock")
 	public String handleRegisterExit(String[] parameters) {
 		try {
 			if (parameters.length < 3) {
@@ -131,6 +156,7 @@ public class ProductCommand {
 	}
 
 	// ADJPRO ["productId","nuevoStock","motivo"] -> ajuste
+	@EmailCommand(value = "ADJPRO", params = {"productId", "nuevoStock", "motivo"}, description = "Ajustar stock")
 	public String handleAdjustStock(String[] parameters) {
 		try {
 			if (parameters.length < 3) {
@@ -163,32 +189,4 @@ public class ProductCommand {
 		return response.toString();
 	}
 
-	private String formatListProductsResponse(List<Product> products, String command) {
-		StringBuilder response = new StringBuilder();
-		response.append(emailResponseService.generateHeader(command));
-
-		if (products.isEmpty()) {
-			response.append("RESULTADO DEL LISTADO\n");
-			response.append(MINI_SEPARATOR).append("\n");
-			response.append(" No se encontraron productos en la base de datos.\n");
-		} else {
-			response.append(" LISTADO DE PRODUCTOS\n");
-			response.append(MINI_SEPARATOR).append("\n");
-			response.append("Total de registros encontrados: ").append(products.size()).append("\n\n");
-
-			int contador = 1;
-			for (Product product : products) {
-				response.append(" PRODUCTO #").append(contador).append("\n");
-				response.append("   • ID: ").append(product.getId()).append("\n");
-				response.append("   • SKU: ").append(product.getSku()).append("\n");
-				response.append("   • Nombre: ").append(product.getNombre()).append("\n");
-				response.append("   • Precio: ").append(product.getPrecioVenta()).append("\n");
-				response.append("   • Stock: ").append(product.getStockActual()).append("\n\n");
-				contador++;
-			}
-		}
-		response.append("OK\n");
-		return response.toString();
-	}
-
 }
@@ -2,27 +2,40 @@ package com.example.tecnoWebEmail.Commands;
 
 import com.example.tecnoWebEmail.Models.ProductSupply;
 import com.example.tecnoWebEmail.Models.Supply;
+import com.example.tecnoWebEmail.Service.BomCache;
 import com.example.tecnoWebEmail.Service.EmailResponseService;
+import com.example.tecnoWebEmail.Service.MrpService;
+import com.example.tecnoWebEmail.Service.MrpService.MrpLine;
+import com.example.tecnoWebEmail.Service.MrpService.MrpPlan;
 import com.example.tecnoWebEmail.Service.ProductSupplyService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 @Service
+@CommandGroup(value = "RELACIONES PRODUCTO-INSUMO", order = 6)
 public class ProductSupplyCommand {
 
     @Autowired
     private ProductSupplyService productSupplyService;
 
+    @Autowired
+    private MrpService mrpService;
+
+    @Autowired
+    private BomCache bomCache;
+
     @Autowired
     private EmailResponseService emailResponseService;
 
     private static final String MINI_SEPARATOR = "------------------------";
 
     // ADDSUPP ["productId","supplyId","requiredAmount"]
+    @EmailCommand(value = "ADDSUPP", params = {"productId", "supplyId", "requiredAmount"}, description = "Agregar insumo a producto")
     public String handleAddSupplyToProduct(String[] parameters) {
         try {
             if (parameters.length < 3) {
@@ -53,6 +66,7 @@ public class ProductSupplyCommand {
     }
 
     // REMSUPP ["productId","supplyId"]
+    @EmailCommand(value = "REMSUPP", params = {"productId", "supplyId"}, description = "Remover insumo de producto")
     public String handleRemoveSupplyFromProduct(String[] parameters) {
         try {
             if (parameters.length < 2) {
@@ -80,6 +94,7 @@ public class ProductSupplyCommand {
     }
 
     // UPDPSP ["productId","supplyId","newAmount"]
+    @EmailCommand(value = "UPDPSP", params = {"productId", "supplyId", "newAmount"}, description = "Actualizar cantidad requerida")
     public String handleUpdateRequiredAmount(String[] parameters) {
         try {
             if (parameters.length < 3) {
@@ -108,6 +123,7 @@ public class ProductSupplyCommand {
     }
 
     // LISPSP ["productId"] -> listar insumos de un producto
+    @EmailCommand(value = "LISPSP", params = {"productId"}, description = "Listar insumos de un producto", readOnly = true)
     public String handleListSuppliesForProduct(String[] parameters) {
         try {
             if (parameters.length < 1) {
@@ -152,6 +168,7 @@ public class ProductSupplyCommand {
     }
 
     // LISUPP ["supplyId"] -> listar productos que usan un insumo
+    @EmailCommand(value = "LISUPP", params = {"supplyId"}, description = "Listar productos que usan un insumo", readOnly = true)
     public String handleListProductsUsingSupply(String[] parameters) {
         try {
             if (parameters.length < 1) {
@@ -190,6 +207,7 @@ public class ProductSupplyCommand {
     }
 
     // CALRSU ["productId","quantity"] -> calcular insumos requeridos
+    @EmailCommand(value = "CALRSU", params = {"productId", "quantity"}, description = "Calcular insumos requeridos", readOnly = true)
     public String handleCalculateRequiredSupplies(String[] parameters) {
         try {
             if (parameters.length < 2) {
@@ -229,6 +247,7 @@ public class ProductSupplyCommand {
     }
 
     // VALSUPP ["productId","quantity"] -> validar disponibilidad
+    @EmailCommand(value = "VALSUPP", params = {"productId", "quantity"}, description = "Validar disponibilidad de insumos", readOnly = true)
     public String handleValidateSuppliesAvailability(String[] parameters) {
         try {
             if (parameters.length < 2) {
@@ -256,6 +275,7 @@ public class ProductSupplyCommand {
     }
 
     // CONSUPP ["productId","quantity","productionOrderId"] -> consumir insumos para producción
+    @EmailCommand(value = "CONSUPP", params = {"productId", "quantity", "productionOrderId"}, description = "Consumir insumos para producción")
     public String handleConsumeSuppliesForProduction(String[] parameters) {
         try {
             if (parameters.length < 3) {
@@ -283,4 +303,118 @@ public class ProductSupplyCommand {
                     "Error al consumir insumos para producción: " + e.getMessage(), "CONSUPP");
         }
     }
+
+    // FABSUP ["supplyId","productId"] -> el insumo se fabrica con la receta del producto ("0" = se compra)
+    @EmailCommand(value = "FABSUP", params = {"supplyId", "productId"}, description = "Marcar insumo como sub-ensamble de un producto (productId 0 = insumo comprado)")
+    public String handleSetManufacturingProduct(String[] parameters) {
+        try {
+            Long supplyId = Long.parseLong(parameters[0].trim());
+            long productId = Long.parseLong(parameters[1].trim());
+
+            Supply supply = productSupplyService.setManufacturingProduct(supplyId, productId == 0 ? null : productId);
+
+            StringBuilder sb = new StringBuilder();
+            sb.append(emailResponseService.generateHeader("FABSUP"));
+            if (productId == 0) {
+                sb.append(" El insumo ").append(supply.getNombre()).append(" ahora se compra.\n");
+            } else {
+                sb.append(" El insumo ").append(supply.getNombre())
+                        .append(" ahora se fabrica con la receta del producto ").append(productId).append(".\n");
+            }
+            sb.append("OK\n");
+            return sb.toString();
+        } catch (Exception e) {
+            return emailResponseService.formatErrorResponse(
+                    "Error al marcar el insumo como sub-ensamble: " + e.getMessage(), "FABSUP");
+        }
+    }
+
+    // MRPCAL ["productId:cantidad", ...] o MRPCAL ["PEDIDOS"] -> plan de materiales de varios niveles
+    @EmailCommand(value = "MRPCAL", params = {"productId:cantidad"},
+            description = "Plan de materiales (varios niveles, neto de stock) para varios productos; MRPCAL[\"PEDIDOS\"] usa los pedidos pendientes",
+            readOnly = true, cost = EmailCommand.Cost.HIGH)
+    public String handleMaterialRequirements(String[] parameters) {
+        try {
+            MrpPlan plan;
+            if (parameters.length == 1 && parameters[0].trim().equalsIgnoreCase("PEDIDOS")) {
+                plan = mrpService.planOrders("Pending");
+            } else {
+                Map<Long, BigDecimal> demand = new LinkedHashMap<>();
+                for (String parameter : parameters) {
+                    String[] pair = parameter.split(":");
+                    if (pair.length != 2) {
+                        return emailResponseService.formatErrorResponse(
+                                "Formato inválido: " + parameter + ". Use productId:cantidad, ej: MRPCAL[\"3:10\",\"5:2\"]",
+                                "MRPCAL");
+                    }
+                    demand.merge(Long.parseLong(pair[0].trim()), new BigDecimal(pair[1].trim()), BigDecimal::add);
+                }
+                plan = mrpService.plan(demand);
+            }
+            return formatMrpResponse(plan);
+        } catch (Exception e) {
+            return emailResponseService.formatErrorResponse(
+                    "Error al calcular el plan de materiales: " + e.getMessage(), "MRPCAL");
+        }
+    }
+
+    private String formatMrpResponse(MrpPlan plan) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(emailResponseService.generateHeader("MRPCAL"));
+        sb.append(" PLAN DE REQUERIMIENTOS DE MATERIALES\n");
+        sb.append(MINI_SEPARATOR).append("\n");
+        if (plan.toProduce().isEmpty()) {
+            sb.append(" No hay demanda para planificar.\n");
+            sb.append("OK\n");
+            return sb.toString();
+        }
+
+        sb.append("PRODUCCIÓN (pedidos + sub-ensambles faltantes)\n");
+        for (Map.Entry<Long, BigDecimal> entry : plan.toProduce().entrySet()) {
+            sb.append("   • Producto ").append(entry.getKey()).append(" - ")
+                    .append(plan.productNames().get(entry.getKey())).append(": ")
+                    .append(entry.getValue().stripTrailingZeros().toPlainString()).append("\n");
+        }
+
+        int shortages = 0;
+        sb.append("\nINSUMOS (bruto / stock / neto)\n");
+        for (MrpLine line : plan.lines()) {
+            sb.append("   • ").append(line.name()).append(" (ID ").append(line.supplyId()).append("): ")
+                    .append(line.gross().stripTrailingZeros().toPlainString()).append(" / ")
+                    .append(line.stock().stripTrailingZeros().toPlainString()).append(" / ")
+                    .append(line.net().stripTrailingZeros().toPlainString());
+            if (line.unit() != null) sb.append(" ").append(line.unit());
+            if (line.manufacturedBy() != null) {
+                sb.append(" [se fabrica: producto ").append(line.manufacturedBy()).append("]");
+            } else if (line.net().signum() > 0) {
+                sb.append(" [COMPRAR]");
+                shortages++;
+            }
+            sb.append("\n");
+        }
+        sb.append(MINI_SEPARATOR).append("\n");
+        sb.append("Insumos a comprar: ").append(shortages).append("\n\n");
+        sb.append("OK\n");
+        return sb.toString();
+    }
+
+    // ESTBOM ["*"] -> estadísticas de la caché de recetas
+    @EmailCommand(value = "ESTBOM", description = "Estadísticas de la caché de recetas (aciertos, fallos, tamaño)", readOnly = true)
+    public String handleBomCacheStats() {
+        long hits = bomCache.getHits();
+        long misses = bomCache.getMisses();
+        StringBuilder sb = new StringBuilder();
+        sb.append(emailResponseService.generateHeader("ESTBOM"));
+        sb.append(" CACHÉ DE RECETAS\n");
+        sb.append(MINI_SEPARATOR).append("\n");
+        sb.append("   • Recetas en caché: ").append(bomCache.getSize()).append("\n");
+        sb.append("   • Líneas: ").append(bomCache.getLines()).append(" de ").append(bomCache.getMaxLines()).append("\n");
+        sb.append("   • Aciertos: ").append(hits).append("\n");
+        sb.append("   • Fallos: ").append(misses).append("\n");
+        sb.append("   • Tasa de aciertos: ").append(hits + misses == 0 ? 0 : Math.round(100.0 * hits / (hits + misses))).append("%\n");
+        sb.append("   • Descartadas por tamaño: ").append(bomCache.getEvictions()).append("\n");
+        sb.append("   • Invalidaciones: ").append(bomCache.getInvalidations()).append("\n\n");
+        sb.append("OK\n");
+        return sb.toString();
+    }
 }
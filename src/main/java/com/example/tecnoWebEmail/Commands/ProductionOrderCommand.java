@@ -1,6 +1,7 @@
 package com.example.tecnoWebEmail.Commands;
 
 import com.example.tecnoWebEmail.Models.ProductionOrder;
+import com.example.tecnoWebEmail.Repository.ProductionOrderRepository;
 import com.example.tecnoWebEmail.Service.EmailResponseService;
 import com.example.tecnoWebEmail.Service.ProductionOrderService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,6 +11,7 @@ import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 
 @Service
+@CommandGroup(value = "ÓRDENES DE PRODUCCIÓN", order = 9)
 public class ProductionOrderCommand {
 
     @Autowired
@@ -26,6 +28,7 @@ public class ProductionOrderCommand {
      * Formato: ["order_detail_id", "start_date", "estimated_date"]
      * (Ej: INSPROD["5", "2025-11-10", "2025-11-20"])
      */
+    @EmailCommand(value = "INSPROD", params = {"orderDetailId", "fechaInicio", "fechaEstimada"}, description = "Crear orden de producción (fechas YYYY-MM-DD)")
     public String handleCreateProductionOrder(String[] parameters) {
         String command = "INSPROD";
         try {
@@ -43,9 +46,8 @@ public class ProductionOrderCommand {
             // 2. Llamar al servicio (esto cierra la transacción)
             ProductionOrder prodOrder = productionOrderService.createProductionOrder(orderDetailId, startDate, estimatedDate);
 
-            // Volver a buscar la orden, pero esta vez con todos los datos
-            // para el formateador de respuesta.
-            ProductionOrder loadedProdOrder = productionOrderService.getProductionOrderWithDetails(prodOrder.getId())
+            // Volver a buscar la orden, sólo con los datos que imprime la respuesta
+            ProductionOrderRepository.Summary loadedProdOrder = productionOrderService.getProductionOrderSummary(prodOrder.getId())
                     .orElseThrow(() -> new RuntimeException("Error fatal: No se pudo recargar la orden de producción " + prodOrder.getId()));
 
             return formatProductionOrderResponse(loadedProdOrder, "ORDEN DE PRODUCCIÓN CREADA", command);
@@ -57,15 +59,15 @@ public class ProductionOrderCommand {
 
     // --- Helper de Formato ---
 
-    private String formatProductionOrderResponse(ProductionOrder po, String message, String command) {
+    private String formatProductionOrderResponse(ProductionOrderRepository.Summary po, String message, String command) {
         StringBuilder response = new StringBuilder();
         response.append(emailResponseService.generateHeader(command));
         response.append(" ").append(message).append("\n");
         response.append(MINI_SEPARATOR).append("\n");
         response.append("   • ID Orden Prod.: ").append(po.getId()).append("\n");
-        response.append("   • ID Detalle Pedido: ").append(po.getOrderDetail().getId()).append("\n");
-        response.append("   • Producto a Fabricar: ").append(po.getOrderDetail().getProduct().getNombre()).append("\n");
-        response.append("   • Cantidad: ").append(po.getOrderDetail().getQuantity()).append("\n");
+        response.append("   • ID Detalle Pedido: ").append(po.getOrderDetailId()).append("\n");
+        response.append("   • Producto a Fabricar: ").append(po.getProductName()).append("\n");
+        response.append("   • Cantidad: ").append(po.getQuantity()).append("\n");
         response.append("   • Estado: ").append(po.getStatus()).append("\n");
         response.append("   • Fecha Inicio: ").append(po.getStartDate().format(DATE_FORMATTER)).append("\n");
         response.append("   • Fecha Estimada: ").append(po.getEstimatedCompletionDate().format(DATE_FORMATTER)).append("\n");
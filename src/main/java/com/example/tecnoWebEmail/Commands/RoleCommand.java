@@ -9,6 +9,7 @@ import org.springframework.stereotype.Service;
 import java.util.List;
 
 @Service
+@CommandGroup(value = "ROLES", order = 2)
 public class RoleCommand {
 
     @Autowired
@@ -22,6 +23,7 @@ public class RoleCommand {
     /**
      * Maneja el comando LISROL
      */
+    @EmailCommand(value = "LISROL", description = "Listar todos los roles", readOnly = true, cost = EmailCommand.Cost.HIGH)
     public String handleListRoles() {
         try {
             List<Role> roles = roleService.getAllRoles();
@@ -34,6 +36,7 @@ public class RoleCommand {
     /**
      * Maneja el comando INSROL ["nombre"]
      */
+    @EmailCommand(value = "INSROL", params = {"nombre"}, description = "Insertar rol")
     public String handleInsertRole(String[] parameters) {
         try {
             if (parameters.length < 1 || parameters[0].trim().isEmpty()) {
@@ -54,6 +57,7 @@ public class RoleCommand {
     /**
      * Maneja el comando BUSROL ["nombre"]
      */
+    @EmailCommand(value = "BUSROL", params = {"nombre"}, description = "Buscar rol por nombre", readOnly = true)
     public String handleSearchRole(String[] parameters) {
         try {
             if (parameters.length < 1 || parameters[0].trim().isEmpty()) {
@@ -73,6 +77,7 @@ public class RoleCommand {
     /**
      * Maneja el comando UPDROL ["nombreActual", "nombreNuevo"]
      */
+    @EmailCommand(value = "UPDROL", params = {"nombreActual", "nombreNuevo"}, description = "Renombrar rol")
     public String handleUpdateRole(String[] parameters) {
         try {
             if (parameters.length < 2) {
@@ -3,14 +3,16 @@ package com.example.tecnoWebEmail.Commands;
 import com.example.tecnoWebEmail.Models.Supply;
 import com.example.tecnoWebEmail.Models.SupplyMovement;
 import com.example.tecnoWebEmail.Service.EmailResponseService;
+import com.example.tecnoWebEmail.Service.Keyset;
 import com.example.tecnoWebEmail.Service.SupplyService;
+import com.example.tecnoWebEmail.Service.service_email.EmailReply;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
-import java.util.List;
 
 @Service
+@CommandGroup(value = "INSUMOS", order = 5)
 public class SupplyCommand {
 
     @Autowired
@@ -19,19 +21,38 @@ public class SupplyCommand {
     @Autowired
     private EmailResponseService emailResponseService;
 
+    @Autowired
+    private ListPagination listPagination;
+
     private static final String MINI_SEPARATOR = "------------------------";
 
-    // LISSUP -> listar todos los insumos
-    public String handleListSupplies() {
+    // LISSUP ["after=id","limit=n","nombre=texto"] (todas opcionales) -> listar insumos por páginas
+    @EmailCommand(value = "LISSUP", description = "Listar insumos por páginas (opciones: after=, limit=, nombre=)", readOnly = true, cost = EmailCommand.Cost.HIGH)
+    public String handleListSupplies(String[] parameters) {
         try {
-            List<Supply> supplies = supplyService.getAllSupplies();
-            return formatListSuppliesResponse(supplies, "LISSUP");
+            ListPagination.ListQuery query = listPagination.parse(parameters, 0, "nombre");
+            StringBuilder response = new StringBuilder();
+            response.append(emailResponseService.generateHeader("LISSUP"));
+            response.append(" LISTADO DE INSUMOS\n");
+            response.append(MINI_SEPARATOR).append("\n");
+            Keyset.Page page = supplyService.forEachSupply(query.after(), query.limit(), query.filter("nombre"),
+                    (s, n) -> {
+                        response.append(" INSUMO #").append(n).append("\n");
+                        response.append("   • ID: ").append(s.getId()).append("\n");
+                        response.append("   • Nombre: ").append(s.getNombre()).append("\n");
+                        response.append("   • Unidad: ").append(s.getUnidadMedida()).append("\n");
+                        response.append("   • Stock: ").append(s.getStockActual()).append("\n\n");
+                    });
+            listPagination.appendFooter(response, "LISSUP", query, page);
+            response.append("OK\n");
+            return response.toString();
         } catch (Exception e) {
             return emailResponseService.formatErrorResponse("Error al listar insumos: " + e.getMessage(), "LISSUP");
         }
     }
 
     // BUSSUP ["nombre"] -> buscar por nombre
+    @EmailCommand(value = "BUSSUP", params = {"nombre"}, description = "Buscar insumo por nombre", readOnly = true)
     public String handleSearchSupplyByName(String[] parameters) {
         try {
             if (parameters.length < 1 || parameters[0].trim().isEmpty()) {
@@ -49,6 +70,7 @@ public class SupplyCommand {
     }
 
     // INSSUP ["nombre","descripcion","unidadMedida","stockInicial"]
+    @EmailCommand(value = "INSSUP", params = {"nombre", "descripcion", "unidadMedida", "stockInicial"}, description = "Insertar insumo")
     public String handleInsertSupply(String[] parameters) {
         try {
             if (parameters.length < 4) {
@@ -74,6 +96,7 @@ public class SupplyCommand {
     }
 
     // UPDSUP ["id","nombre","descripcion","unidadMedida"]
+    @EmailCommand(value = "UPDSUP", params = {"id", "nombre", "descripcion", "unidadMedida"}, description = "Actualizar insumo")
     public String handleUpdateSupply(String[] parameters) {
         try {
             if (parameters.length < 4) {
@@ -95,6 +118,7 @@ public class SupplyCommand {
     }
 
     // DELSUP ["id"] -> eliminar insumo
+    @EmailCommand(value = "DELSUP", params = {"id"}, description = "Eliminar insumo")
     public String handleDeleteSupply(String[] parameters) {
         try {
             if (parameters.length < 1) {
@@ -109,6 +133,7 @@ public class SupplyCommand {
     }
 
     // ENTSUP ["supplyId","cantidad","motivo"] -> entrada
+    @EmailCommand(value = "ENTSUP", params = {"supplyId", "cantidad", "motivo"}, description = "Registrar entrada")
     public String handleRegisterEntry(String[] parameters) {
         try {
             if (parameters.length < 3) {
@@ -126,6 +151,7 @@ public class SupplyCommand {
     }
 
     // SALSUP ["supplyId","cantidad","motivo"] -> salida
+    @EmailCommand(value = "SALSUP", params = {"supplyId", "cantidad", "motivo"}, description = "Registrar salida")
     public String handleRegisterExit(String[] parameters) {
         try {
             if (parameters.length < 3) {
@@ -143,6 +169,7 @@ public class SupplyCommand {
     }
 
     // ADJSUP ["supplyId","nuevoStock","motivo"] -> ajuste
+    @EmailCommand(value = "ADJSUP", params = {"supplyId", "nuevoStock", "motivo"}, description = "Ajustar stock")
     public String handleAdjustStock(String[] parameters) {
         try {
             if (parameters.length < 3) {
@@ -159,32 +186,31 @@ public class SupplyCommand {
         }
     }
 
-    // MOVSUP ["supplyId"] -> listar movimientos de insumo
-    public String handleListMovements(String[] parameters) {
+    // MOVSUP ["supplyId","after=id","limit=n"] -> movimientos de insumo por páginas, recientes primero
+    @EmailCommand(value = "MOVSUP", params = {"supplyId"}, description = "Listar movimientos de insumo por páginas (opciones: after=, limit=, formato=csv)", readOnly = true)
+    public EmailReply handleListMovements(String[] parameters) {
         try {
             if (parameters.length < 1) {
-                return emailResponseService.formatErrorResponse("Parámetro [supplyId] faltante.", "MOVSUP");
+                return EmailReply.text(emailResponseService.formatErrorResponse("Parámetro [supplyId] faltante.", "MOVSUP"));
             }
             Long id = Long.parseLong(parameters[0].trim());
-            List<SupplyMovement> movements = supplyService.getMovementsBySupply(id);
-            StringBuilder sb = new StringBuilder();
+            ListPagination.ListQuery query = listPagination.parse(parameters, 1);
+            ListReply reply = listPagination.reply("MOVSUP", query, "id", "tipo", "cantidad", "fecha", "motivo");
+            StringBuilder sb = reply.text();
             sb.append(emailResponseService.generateHeader("MOVSUP"));
             sb.append(" MOVIMIENTOS DE INSUMO\n");
             sb.append(MINI_SEPARATOR).append("\n");
-            sb.append("Total de movimientos: ").append(movements.size()).append("\n\n");
-            int i = 1;
-            for (SupplyMovement mv : movements) {
-                sb.append(" MOV #").append(i).append("\n");
-                sb.append("   • Tipo: ").append(mv.getMovementType()).append("\n");
-                sb.append("   • Cantidad: ").append(mv.getQuantity()).append("\n");
-                sb.append("   • Fecha: ").append(mv.getDate()).append("\n");
-                sb.append("   • Motivo: ").append(mv.getReason()).append("\n\n");
-                i++;
-            }
-            sb.append("OK\n");
-            return sb.toString();
+            Keyset.Page page = supplyService.forEachMovement(id, query.after(), query.limit(), (mv, n) ->
+                    reply.row(text -> {
+                        text.append(" MOV #").append(n).append("\n");
+                        text.append("   • Tipo: ").append(mv.getMovementType()).append("\n");
+                        text.append("   • Cantidad: ").append(mv.getQuantity()).append("\n");
+                        text.append("   • Fecha: ").append(mv.getDate()).append("\n");
+                        text.append("   • Motivo: ").append(mv.getReason()).append("\n\n");
+                    }, mv.getId(), mv.getMovementType(), mv.getQuantity(), mv.getDate(), mv.getReason()));
+            return reply.finish(page, id.toString());
         } catch (Exception e) {
-            return emailResponseService.formatErrorResponse("Error al listar movimientos: " + e.getMessage(), "MOVSUP");
+            return EmailReply.text(emailResponseService.formatErrorResponse("Error al listar movimientos: " + e.getMessage(), "MOVSUP"));
         }
     }
 
@@ -203,29 +229,4 @@ public class SupplyCommand {
         return response.toString();
     }
 
-    private String formatListSuppliesResponse(List<Supply> supplies, String command) {
-        StringBuilder response = new StringBuilder();
-        response.append(emailResponseService.generateHeader(command));
-        if (supplies.isEmpty()) {
-            response.append("RESULTADO DEL LISTADO\n");
-            response.append(MINI_SEPARATOR).append("\n");
-            response.append(" No se encontraron insumos en la base de datos.\n");
-        } else {
-            response.append(" LISTADO DE INSUMOS\n");
-            response.append(MINI_SEPARATOR).append("\n");
-            response.append("Total de registros encontrados: ").append(supplies.size()).append("\n\n");
-            int contador = 1;
-            for (Supply s : supplies) {
-                response.append(" INSUMO #").append(contador).append("\n");
-                response.append("   • ID: ").append(s.getId()).append("\n");
-                response.append("   • Nombre: ").append(s.getNombre()).append("\n");
-                response.append("   • Unidad: ").append(s.getUnidadMedida()).append("\n");
-                response.append("   • Stock: ").append(s.getStockActual()).append("\n\n");
-                contador++;
-            }
-        }
-        response.append("OK\n");
-        return response.toString();
-    }
-
 }
@@ -2,13 +2,14 @@ package com.example.tecnoWebEmail.Commands;
 
 import com.example.tecnoWebEmail.Models.User;
 import com.example.tecnoWebEmail.Service.EmailResponseService;
+import com.example.tecnoWebEmail.Service.Keyset;
 import com.example.tecnoWebEmail.Service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
 
 @Service
+@CommandGroup(value = "USUARIOS", order = 3)
 public class UserCommand {
 
     @Autowired
@@ -17,15 +18,34 @@ public class UserCommand {
     @Autowired
     private EmailResponseService emailResponseService;
 
+    @Autowired
+    private ListPagination listPagination;
+
     private static final String MINI_SEPARATOR = "------------------------";
 
     /**
-     * Maneja el comando LISUSU
+     * Maneja el comando LISUSU ["after=id","limit=n","rol=nombreRol"] (todas opcionales)
      */
-    public String handleListUsers() {
+    @EmailCommand(value = "LISUSU", description = "Listar usuarios por páginas (opciones: after=, limit=, rol=)", readOnly = true, cost = EmailCommand.Cost.HIGH)
+    public String handleListUsers(String[] parameters) {
         try {
-            List<User> users = userService.getAllUsers();
-            return formatListUserResponse(users, "LISUSU");
+            ListPagination.ListQuery query = listPagination.parse(parameters, 0, "rol");
+            StringBuilder response = new StringBuilder();
+            response.append(emailResponseService.generateHeader("LISUSU"));
+            response.append(" LISTADO DE USUARIOS\n");
+            response.append(MINI_SEPARATOR).append("\n");
+            Keyset.Page page = userService.forEachUser(query.after(), query.limit(), query.filter("rol"), (user, n) -> {
+                response.append(" USUARIO #").append(n).append("\n");
+                response.append("   • CI: ").append(user.getCi()).append("\n");
+                response.append("   • Username: ").append(user.getUsername()).append("\n");
+                response.append("   • Nombre: ").append(user.getFirstName()).append(" ").append(user.getLastName()).append("\n");
+                response.append("   • Email: ").append(user.getEmail()).append("\n");
+                response.append("   • Rol: ").append(user.getRoleName()).append("\n");
+                response.append("   • Activo: ").append(user.isActive()).append("\n\n");
+            });
+            listPagination.appendFooter(response, "LISUSU", query, page);
+            response.append("OK\n");
+            return response.toString();
         } catch (Exception e) {
             return emailResponseService.formatErrorResponse("Error al listar usuarios: " + e.getMessage(), "LISUSU");
         }
@@ -34,6 +54,7 @@ public class UserCommand {
     /**
      * Maneja el comando BUSUSU ["ci"]
      */
+    @EmailCommand(value = "BUSUSU", params = {"ci"}, description = "Buscar usuario por CI", readOnly = true)
     public String handleSearchUserByCi(String[] parameters) {
         try {
             if (parameters.length < 1 || parameters[0].trim().isEmpty()) {
@@ -53,6 +74,7 @@ public class UserCommand {
     /**
      * Maneja el comando INSUSU ["ci", "username", "password", "email", "firstName", "lastName", "roleName"]
      */
+    @EmailCommand(value = "INSUSU", params = {"ci", "username", "password", "email", "nombre", "apellido", "rol"}, description = "Insertar usuario")
     public String handleInsertUser(String[] parameters) {
         try {
             // 7 parámetros requeridos
@@ -92,6 +114,7 @@ public class UserCommand {
     /**
      * Maneja el comando UPDUSU ["ci_a_buscar", "nuevo_username", "nuevo_email", "nuevo_firstName", "nuevo_lastName", "nuevo_rolName"]
      */
+    @EmailCommand(value = "UPDUSU", params = {"ci", "username", "email", "nombre", "apellido", "rol"}, description = "Actualizar usuario")
     public String handleUpdateUser(String[] parameters) {
         try {
             // 6 parámetros requeridos
@@ -152,33 +175,4 @@ public class UserCommand {
         response.append("\nOK\n");
         return response.toString();
     }
-
-    private String formatListUserResponse(List<User> users, String command) {
-        StringBuilder response = new StringBuilder();
-        response.append(emailResponseService.generateHeader(command));
-
-        if (users.isEmpty()) {
-            response.append("RESULTADO DEL LISTADO\n");
-            response.append(MINI_SEPARATOR).append("\n");
-            response.append(" No se encontraron usuarios en la base de datos.\n");
-        } else {
-            response.append(" LISTADO DE USUARIOS\n");
-            response.append(MINI_SEPARATOR).append("\n");
-            response.append("Total de registros encontrados: ").append(users.size()).append("\n\n");
-
-            int contador = 1;
-            for (User user : users) {
-                response.append(" USUARIO #").append(contador).append("\n");
-                response.append("   • CI: ").append(user.getCi()).append("\n");
-                response.append("   • Username: ").append(user.getUsername()).append("\n");
-                response.append("   • Nombre: ").append(user.getFirstName()).append(" ").append(user.getLastName()).append("\n");
-                response.append("   • Email: ").append(user.getEmail()).append("\n");
-                response.append("   • Rol: ").append(user.getRole().getName()).append("\n");
-                response.append("   • Activo: ").append(user.isActive()).append("\n\n");
-                contador++;
-            }
-        }
-        response.append("OK\n");
-        return response.toString();
-    }
 }
\ No newline at end of file
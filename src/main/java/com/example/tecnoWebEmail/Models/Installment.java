@@ -10,7 +10,8 @@ import java.util.Set;
 public class Installment {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "installments_seq")
+    @SequenceGenerator(name = "installments_seq", sequenceName = "installments_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "installment_number", nullable = false)
@@ -0,0 +1,56 @@
+package com.example.tecnoWebEmail.Models;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Índice de mensajes POP3 ya procesados, identificados por su UIDL.
+ * Evita volver a ejecutar un comando si el ciclo se cae antes del QUIT.
+ */
+@Entity
+@Table(name = "processed_emails")
+public class ProcessedEmail {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "processed_emails_seq")
+    @SequenceGenerator(name = "processed_emails_seq", sequenceName = "processed_emails_seq", allocationSize = 50)
+    private Long id;
+
+    // RFC 1939: el unique-id tiene como máximo 70 caracteres
+    @Column(name = "uid", length = 70, nullable = false, unique = true)
+    private String uid;
+
+    @Column(name = "processed_at", nullable = false)
+    private LocalDateTime processedAt;
+
+    public ProcessedEmail() {}
+
+    public ProcessedEmail(String uid) {
+        this.uid = uid;
+        this.processedAt = LocalDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getUid() {
+        return uid;
+    }
+
+    public void setUid(String uid) {
+        this.uid = uid;
+    }
+
+    public LocalDateTime getProcessedAt() {
+        return processedAt;
+    }
+
+    public void setProcessedAt(LocalDateTime processedAt) {
+        this.processedAt = processedAt;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.tecnoWebEmail.Models;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Correos ya respondidos, identificados por su Message-ID. Si el mismo
+ * mensaje vuelve a llegar (un ciclo POP3 se cayó antes del DELE, o el
+ * remitente lo reenvió) se contesta con la respuesta original del outbox en
+ * lugar de ejecutar el comando otra vez.
+ */
+@Entity
+@Table(name = "processed_messages",
+       indexes = @Index(name = "idx_processed_messages_processed_at", columnList = "processed_at"))
+public class ProcessedMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "processed_messages_seq")
+    @SequenceGenerator(name = "processed_messages_seq", sequenceName = "processed_messages_seq", allocationSize = 50)
+    @Column(name = "processed_message_id")
+    private Long id;
+
+    // SHA-256 (hex) del Message-ID: largo fijo aunque el Message-ID sea muy largo
+    @Column(name = "message_key", length = 64, nullable = false, unique = true)
+    private String messageKey;
+
+    // Respuesta original en outbound_emails (puede haber sido purgada)
+    @Column(name = "outbound_email_id")
+    private Long outboundEmailId;
+
+    @Column(name = "processed_at", nullable = false)
+    private LocalDateTime processedAt;
+
+    public ProcessedMessage() {}
+
+    public ProcessedMessage(String messageKey, Long outboundEmailId) {
+        this.messageKey = messageKey;
+        this.outboundEmailId = outboundEmailId;
+        this.processedAt = LocalDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getMessageKey() {
+        return messageKey;
+    }
+
+    public void setMessageKey(String messageKey) {
+        this.messageKey = messageKey;
+    }
+
+    public Long getOutboundEmailId() {
+        return outboundEmailId;
+    }
+
+    public void setOutboundEmailId(Long outboundEmailId) {
+        this.outboundEmailId = outboundEmailId;
+    }
+
+    public LocalDateTime getProcessedAt() {
+        return processedAt;
+    }
+
+    public void setProcessedAt(LocalDateTime processedAt) {
+        this.processedAt = processedAt;
+    }
+}
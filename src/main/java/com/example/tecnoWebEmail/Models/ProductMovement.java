@@ -8,7 +8,8 @@ import java.time.LocalDateTime;
 public class ProductMovement {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_movements_seq")
+    @SequenceGenerator(name = "product_movements_seq", sequenceName = "product_movements_seq", allocationSize = 50)
     @Column(name = "product_movement_id")
     private Long id;
 
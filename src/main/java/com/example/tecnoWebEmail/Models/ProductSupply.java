@@ -7,7 +7,8 @@ import java.math.BigDecimal;
 @Table(name = "product_supplies_bom")
 public class ProductSupply {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_supplies_bom_seq")
+    @SequenceGenerator(name = "product_supplies_bom_seq", sequenceName = "product_supplies_bom_seq", allocationSize = 50)
     @Column(name = "product_supply_id")
     private Long id;
     
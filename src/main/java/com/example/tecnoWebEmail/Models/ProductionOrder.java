@@ -7,7 +7,8 @@ import java.time.LocalDate;
 public class ProductionOrder {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "production_orders_seq")
+    @SequenceGenerator(name = "production_orders_seq", sequenceName = "production_orders_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "start_date")
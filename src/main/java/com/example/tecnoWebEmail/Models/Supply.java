@@ -8,7 +8,8 @@ import java.math.BigDecimal;
 public class Supply {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "supplies_seq")
+	@SequenceGenerator(name = "supplies_seq", sequenceName = "supplies_seq", allocationSize = 50)
 	@Column(name = "supply_id")
 	private Long id;
 
@@ -24,6 +25,12 @@ public class Supply {
 	@Column(name = "stock_current", precision = 10, scale = 2, nullable = false)
 	private BigDecimal stockActual = BigDecimal.valueOf(0.00);
 
+	// Sub-ensamble: si no es null, el insumo se fabrica con la receta de este producto
+	// (1 unidad del insumo = 1 unidad del producto) en lugar de comprarse
+	@ManyToOne(fetch = FetchType.LAZY)
+	@JoinColumn(name = "manufactured_product_id")
+	private Product productoFabricado;
+
 	// Constructor vacío
 	public Supply() {}
 
@@ -76,6 +83,14 @@ public class Supply {
 		this.stockActual = stockActual == null ? BigDecimal.valueOf(0.00) : stockActual;
 	}
 
+	public Product getProductoFabricado() {
+		return productoFabricado;
+	}
+
+	public void setProductoFabricado(Product productoFabricado) {
+		this.productoFabricado = productoFabricado;
+	}
+
 	@Override
 	public String toString() {
 		return "Supply{" +
@@ -9,7 +9,8 @@ import java.time.LocalDateTime;
 public class SupplyMovement {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "supply_movements_seq")
+    @SequenceGenerator(name = "supply_movements_seq", sequenceName = "supply_movements_seq", allocationSize = 50)
     @Column(name = "supply_movement_id")
     private Long id;
 
@@ -1,11 +1,20 @@
 package com.example.tecnoWebEmail.Repository;
 
 import com.example.tecnoWebEmail.Models.Client;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Repository
 public interface ClientRepository extends JpaRepository<Client, Long> {
@@ -16,6 +25,16 @@ public interface ClientRepository extends JpaRepository<Client, Long> {
     //
     Optional<Client> findByCi(String ci);
 
+    // Consultas por lote para la importación CSV: devuelven los valores que ya existen
+    @Query("select c.ci from Client c where c.ci in :cis")
+    Set<String> findExistingCis(@Param("cis") Collection<String> cis);
+
+    @Query("select c.email from Client c where c.email in :emails")
+    Set<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    @Query("select c.phone from Client c where c.phone in :phones")
+    Set<String> findExistingPhones(@Param("phones") Collection<String> phones);
+
     // Buscar cliente por número de teléfono
     Optional<Client> findByPhone(String phone);
 
@@ -24,4 +43,11 @@ public interface ClientRepository extends JpaRepository<Client, Long> {
 
     // Buscar clientes por nombre o apellido
     List<Client> findByFirstNameContainingIgnoreCaseOrLastNameContainingIgnoreCase(String firstName, String lastName);
+
+    // Página de LISCLI (keyset por id), opcionalmente filtrada por nombre o apellido
+    @Query("SELECT c FROM Client c WHERE c.id > :after " +
+            "AND (:pattern IS NULL OR lower(c.firstName) LIKE :pattern OR lower(c.lastName) LIKE :pattern) " +
+            "ORDER BY c.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "100"))
+    Stream<Client> streamPage(@Param("after") Long after, @Param("pattern") String pattern, Limit limit);
 }
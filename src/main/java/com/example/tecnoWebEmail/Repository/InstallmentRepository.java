@@ -3,8 +3,12 @@ package com.example.tecnoWebEmail.Repository;
 import com.example.tecnoWebEmail.Models.Installment;
 import com.example.tecnoWebEmail.Models.Order;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
 
@@ -22,4 +26,64 @@ public interface InstallmentRepository extends JpaRepository<Installment, Long>
 
     // Encontrar cuotas vencidas y pagadas
     List<Installment> findByDueDateBeforeAndStateNot(LocalDate date, String state);
-}
\ No newline at end of file
+
+    // Suma un abono a la cuota y actualiza su estado; sólo si la cuota pertenece
+    // al pedido indicado (0 filas = no existe o es de otro pedido)
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Installment i SET i.amountPaid = i.amountPaid + :amount, " +
+            "i.state = CASE WHEN i.amountPaid + :amount >= i.installmentAmount THEN 'Paid' ELSE 'Partial' END " +
+            "WHERE i.id = :installmentId AND i.order.id = :orderId")
+    int addPayment(@Param("installmentId") Long installmentId, @Param("orderId") Long orderId,
+                   @Param("amount") BigDecimal amount);
+
+    // Recalcula el pagado (y su estado) desde los abonos dentro del propio UPDATE,
+    // sólo si sigue siendo el pagado leído (0 filas = cambió entre medio, se omite)
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Installment i SET " +
+            "i.amountPaid = (SELECT COALESCE(SUM(p.amount), 0) FROM Payment p WHERE p.installment = i), " +
+            "i.state = CASE " +
+            "WHEN (SELECT COALESCE(SUM(p.amount), 0) FROM Payment p WHERE p.installment = i) >= i.installmentAmount THEN 'Paid' " +
+            "WHEN (SELECT COALESCE(SUM(p.amount), 0) FROM Payment p WHERE p.installment = i) > 0 THEN 'Partial' " +
+            "ELSE 'Pending' END " +
+            "WHERE i.id = :installmentId AND i.amountPaid = :seenAmountPaid")
+    int recomputeAmountPaid(@Param("installmentId") Long installmentId,
+                            @Param("seenAmountPaid") BigDecimal seenAmountPaid);
+
+    // Cuotas cuyo monto pagado no coincide con la suma de sus abonos: [installmentId, pagado, suma]
+    @Query("SELECT i.id, i.amountPaid, COALESCE(SUM(p.amount), 0) FROM Installment i " +
+            "LEFT JOIN i.payments p " +
+            "GROUP BY i.id, i.amountPaid " +
+            "HAVING i.amountPaid <> COALESCE(SUM(p.amount), 0)")
+    List<Object[]> findAmountPaidMismatches();
+
+    // Listados de cuotas (LISCUP, LISVEN, LISCES): sólo las columnas de la respuesta,
+    // el pedido por su clave foránea (sin join)
+    @Query("SELECT i.id AS id, i.order.id AS orderId, i.installmentNumber AS installmentNumber, " +
+            "i.installmentAmount AS installmentAmount, i.amountPaid AS amountPaid, i.state AS state, " +
+            "i.dueDate AS dueDate FROM Installment i WHERE i.order.id = :orderId ORDER BY i.installmentNumber")
+    List<ListRow> findRowsByOrderId(@Param("orderId") Long orderId);
+
+    @Query("SELECT i.id AS id, i.order.id AS orderId, i.installmentNumber AS installmentNumber, " +
+            "i.installmentAmount AS installmentAmount, i.amountPaid AS amountPaid, i.state AS state, " +
+            "i.dueDate AS dueDate FROM Installment i WHERE i.dueDate < :date AND i.state <> :state " +
+            "ORDER BY i.dueDate, i.id")
+    List<ListRow> findRowsDueBeforeAndStateNot(@Param("date") LocalDate date, @Param("state") String state);
+
+    @Query("SELECT i.id AS id, i.order.id AS orderId, i.installmentNumber AS installmentNumber, " +
+            "i.installmentAmount AS installmentAmount, i.amountPaid AS amountPaid, i.state AS state, " +
+            "i.dueDate AS dueDate FROM Installment i WHERE i.state = :state ORDER BY i.dueDate, i.id")
+    List<ListRow> findRowsByState(@Param("state") String state);
+
+    /**
+     * Fila de los listados de cuotas (proyección de sólo lectura).
+     */
+    interface ListRow {
+        Long getId();
+        Long getOrderId();
+        Integer getInstallmentNumber();
+        BigDecimal getInstallmentAmount();
+        BigDecimal getAmountPaid();
+        String getState();
+        LocalDate getDueDate();
+    }
+}
@@ -4,6 +4,8 @@ import com.example.tecnoWebEmail.Models.Order;
 import com.example.tecnoWebEmail.Models.OrderDetail;
 import com.example.tecnoWebEmail.Models.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -16,4 +18,8 @@ public interface OrderDetailRepository extends JpaRepository<OrderDetail, Long>
 
     // Encontrar todas las veces que un producto ha sido pedido
     List<OrderDetail> findByProduct(Product product);
+
+    // Unidades pedidas por producto en los pedidos de un estado: [productId, suma]
+    @Query("select d.product.id, sum(d.quantity) from OrderDetail d where d.order.status = :status group by d.product.id")
+    List<Object[]> sumQuantityByProductForOrderStatus(@Param("status") String status);
 }
\ No newline at end of file
@@ -2,14 +2,21 @@ package com.example.tecnoWebEmail.Repository;
 
 import com.example.tecnoWebEmail.Models.Client;
 import com.example.tecnoWebEmail.Models.Order;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
@@ -36,4 +43,74 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
 
     @Query("SELECT o FROM Order o JOIN FETCH o.client c")
     List<Order> findAllWithClient();
-}
\ No newline at end of file
+
+    // Ajusta el total por la diferencia de una línea (alta, cambio o baja) sin releer los detalles
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Order o SET o.totalAmount = o.totalAmount + :delta WHERE o.id = :orderId")
+    int addToTotal(@Param("orderId") Long orderId, @Param("delta") BigDecimal delta);
+
+    // Recalcula el total desde los detalles dentro del propio UPDATE, sólo si
+    // sigue siendo el total leído (0 filas = cambió entre medio, se omite)
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Order o SET o.totalAmount = " +
+            "(SELECT COALESCE(SUM(d.unitPrice * d.quantity), 0) FROM OrderDetail d WHERE d.order = o) " +
+            "WHERE o.id = :orderId AND o.totalAmount = :seenTotal")
+    int recomputeTotal(@Param("orderId") Long orderId, @Param("seenTotal") BigDecimal seenTotal);
+
+    // Pedidos cuyo total guardado no coincide con la suma de sus detalles: [orderId, total, suma]
+    @Query("SELECT o.id, o.totalAmount, COALESCE(SUM(d.unitPrice * d.quantity), 0) FROM Order o " +
+            "LEFT JOIN o.orderDetails d " +
+            "GROUP BY o.id, o.totalAmount " +
+            "HAVING o.totalAmount <> COALESCE(SUM(d.unitPrice * d.quantity), 0)")
+    List<Object[]> findTotalMismatches();
+
+    // Suma un pago al total pagado y recalcula el estado de pago en la misma
+    // sentencia (el UPDATE bloquea la fila: pagos concurrentes no se pisan)
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Order o SET o.amountPaid = o.amountPaid + :amount, " +
+            "o.paymentState = CASE WHEN o.amountPaid + :amount >= o.totalAmount THEN 'Paid' " +
+            "WHEN o.amountPaid + :amount > 0 THEN 'Partial' ELSE 'Pending' END " +
+            "WHERE o.id = :orderId")
+    int addPayment(@Param("orderId") Long orderId, @Param("amount") BigDecimal amount);
+
+    // Recalcula el pagado (y su estado) desde los pagos dentro del propio UPDATE,
+    // sólo si sigue siendo el pagado leído (0 filas = cambió entre medio, se omite)
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Order o SET " +
+            "o.amountPaid = (SELECT COALESCE(SUM(p.amount), 0) FROM Payment p WHERE p.order = o), " +
+            "o.paymentState = CASE " +
+            "WHEN (SELECT COALESCE(SUM(p.amount), 0) FROM Payment p WHERE p.order = o) >= o.totalAmount THEN 'Paid' " +
+            "WHEN (SELECT COALESCE(SUM(p.amount), 0) FROM Payment p WHERE p.order = o) > 0 THEN 'Partial' " +
+            "ELSE 'Pending' END " +
+            "WHERE o.id = :orderId AND o.amountPaid = :seenAmountPaid")
+    int recomputeAmountPaid(@Param("orderId") Long orderId, @Param("seenAmountPaid") BigDecimal seenAmountPaid);
+
+    // Pedidos cuyo total pagado no coincide con la suma de sus pagos: [orderId, pagado, suma]
+    @Query("SELECT o.id, o.amountPaid, COALESCE(SUM(p.amount), 0) FROM Order o " +
+            "LEFT JOIN o.payments p " +
+            "GROUP BY o.id, o.amountPaid " +
+            "HAVING o.amountPaid <> COALESCE(SUM(p.amount), 0)")
+    List<Object[]> findAmountPaidMismatches();
+
+    // Página de LISORD (keyset por id): sólo las columnas del listado, cliente incluido
+    @Query("SELECT o.id AS id, c.firstName AS clientName, o.orderDate AS orderDate, " +
+            "o.totalAmount AS totalAmount, o.paymentState AS paymentState, o.status AS status " +
+            "FROM Order o JOIN o.client c WHERE o.id > :after " +
+            "AND (:status IS NULL OR o.status = :status) " +
+            "AND (:paymentState IS NULL OR o.paymentState = :paymentState) ORDER BY o.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "100"))
+    Stream<ListRow> streamPage(@Param("after") Long after, @Param("status") String status,
+                               @Param("paymentState") String paymentState, Limit limit);
+
+    /**
+     * Fila de LISORD (proyección de sólo lectura).
+     */
+    interface ListRow {
+        Long getId();
+        String getClientName();
+        LocalDateTime getOrderDate();
+        BigDecimal getTotalAmount();
+        String getPaymentState();
+        String getStatus();
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.tecnoWebEmail.Repository;
+
+import com.example.tecnoWebEmail.Models.OutboundEmail;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboundEmailRepository extends JpaRepository<OutboundEmail, Long> {
+
+    // Respuestas cuyo próximo intento (o reserva de envío) ya venció, las más antiguas primero
+    @Query("select o from OutboundEmail o where o.status in :statuses and o.nextAttemptAt <= :now order by o.nextAttemptAt")
+    List<OutboundEmail> findDue(@Param("statuses") Collection<OutboundEmail.Status> statuses,
+                                @Param("now") LocalDateTime now,
+                                Pageable pageable);
+
+    // Reserva una respuesta para enviarla sólo si sigue como se leyó: de dos
+    // hilos que la leyeron igual, uno solo actualiza la fila
+    @Transactional
+    @Modifying
+    @Query("""
+           update OutboundEmail o set o.status = :claimed, o.nextAttemptAt = :lease
+           where o.id = :id and o.status = :status and o.nextAttemptAt = :seenNextAttempt
+           """)
+    int claim(@Param("id") Long id,
+              @Param("status") OutboundEmail.Status status,
+              @Param("seenNextAttempt") LocalDateTime seenNextAttempt,
+              @Param("claimed") OutboundEmail.Status claimed,
+              @Param("lease") LocalDateTime lease);
+
+    long countByStatusIn(Collection<OutboundEmail.Status> statuses);
+
+    // Limpieza de respuestas ya enviadas
+    @Modifying
+    @Query("delete from OutboundEmail o where o.status = :status and o.createdAt < :limit")
+    int deleteByStatusOlderThan(@Param("status") OutboundEmail.Status status,
+                                @Param("limit") LocalDateTime limit);
+}
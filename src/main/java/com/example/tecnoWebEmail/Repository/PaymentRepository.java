@@ -3,8 +3,12 @@ package com.example.tecnoWebEmail.Repository;
 import com.example.tecnoWebEmail.Models.Installment;
 import com.example.tecnoWebEmail.Models.Order;
 import com.example.tecnoWebEmail.Models.Payment;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -12,6 +16,7 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
@@ -59,4 +64,13 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     @Query("SELECT p FROM Payment p JOIN FETCH p.order o JOIN FETCH p.installment i WHERE i.id = :installmentId")
     List<Payment> findByInstallmentIdWithDetails(@Param("installmentId") Long installmentId);
 
-}
\ No newline at end of file
+    /**
+     * Para LISPAG paginado: keyset por id, filtros opcionales por pedido y tipo de pago.
+     */
+    @Query("SELECT p FROM Payment p WHERE p.id > :after " +
+            "AND (:orderId IS NULL OR p.order.id = :orderId) " +
+            "AND (:paymentType IS NULL OR p.paymentType = :paymentType) ORDER BY p.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "100"))
+    Stream<Payment> streamPage(@Param("after") Long after, @Param("orderId") Long orderId,
+                               @Param("paymentType") String paymentType, Limit limit);
+}
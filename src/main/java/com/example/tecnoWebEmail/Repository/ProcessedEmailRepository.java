@@ -0,0 +1,27 @@
+package com.example.tecnoWebEmail.Repository;
+
+import com.example.tecnoWebEmail.Models.ProcessedEmail;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Set;
+
+@Repository
+public interface ProcessedEmailRepository extends JpaRepository<ProcessedEmail, Long> {
+
+    // Devuelve, de los UIDs dados, los que ya fueron procesados (una sola consulta)
+    @Query("select p.uid from ProcessedEmail p where p.uid in :uids")
+    Set<String> findExistingUids(@Param("uids") Collection<String> uids);
+
+    boolean existsByUid(String uid);
+
+    // Limpieza de UIDs antiguos (el mensaje ya no está en el buzón)
+    @Modifying
+    @Query("delete from ProcessedEmail p where p.processedAt < :limit")
+    int deleteOlderThan(@Param("limit") LocalDateTime limit);
+}
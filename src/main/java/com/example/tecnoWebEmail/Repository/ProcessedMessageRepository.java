@@ -0,0 +1,33 @@
+package com.example.tecnoWebEmail.Repository;
+
+import com.example.tecnoWebEmail.Models.ProcessedMessage;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+@Repository
+public interface ProcessedMessageRepository extends JpaRepository<ProcessedMessage, Long> {
+
+    Optional<ProcessedMessage> findByMessageKey(String messageKey);
+
+    boolean existsByMessageKey(String messageKey);
+
+    // Todas las claves, para reconstruir el filtro de Bloom (dentro de una transacción)
+    @Query("select p.messageKey from ProcessedMessage p")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<String> streamKeys();
+
+    // Limpieza de mensajes antiguos
+    @Modifying
+    @Query("delete from ProcessedMessage p where p.processedAt < :limit")
+    int deleteOlderThan(@Param("limit") LocalDateTime limit);
+}
@@ -1,13 +1,48 @@
 package com.example.tecnoWebEmail.Repository;
 
 import com.example.tecnoWebEmail.Models.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.Set;
+import java.util.stream.Stream;
+
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
 
 	// Buscar producto por su SKU único
 	Product findBySku(String sku);
 
+	// De los SKUs dados, los que ya existen (una sola consulta por lote de importación)
+	@Query("select p.sku from Product p where p.sku in :skus")
+	Set<String> findExistingSkus(@Param("skus") Collection<String> skus);
+
+	// Cambios de stock en un solo UPDATE: la condición stock >= cantidad la evalúa la
+	// base de datos con la fila bloqueada, así dos salidas concurrentes no venden de más.
+	// Devuelven las filas afectadas (0 = producto inexistente o stock insuficiente).
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("update Product p set p.stockActual = p.stockActual + :qty where p.id = :id")
+	int increaseStock(@Param("id") Long id, @Param("qty") int qty);
+
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("update Product p set p.stockActual = p.stockActual - :qty where p.id = :id and p.stockActual >= :qty")
+	int decreaseStock(@Param("id") Long id, @Param("qty") int qty);
+
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("update Product p set p.stockActual = :stock where p.id = :id")
+	int setStock(@Param("id") Long id, @Param("stock") int stock);
+
+	// Página de LISPRO (keyset por id), opcionalmente filtrada por nombre
+	@Query("SELECT p FROM Product p WHERE p.id > :after " +
+			"AND (:pattern IS NULL OR lower(p.nombre) LIKE :pattern) ORDER BY p.id")
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "100"))
+	Stream<Product> streamPage(@Param("after") Long after, @Param("pattern") String pattern, Limit limit);
 }
@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -49,4 +50,17 @@ public interface ProductSupplyRepository extends JpaRepository<ProductSupply, Lo
            where s.id = :supplyId
            """)
     List<ProductSupply> findAllBySupplyIdFetchAll(@Param("supplyId") Long supplyId);
+
+    // Recetas de varios productos a la vez, como filas [productId, id de relación,
+    // supplyId, cantidad por unidad, id del producto que fabrica el insumo o null]
+    @Query("""
+           select ps.product.id, min(ps.id), s.id, sum(ps.requiredAmount), mp.id
+           from ProductSupply ps
+           join ps.supply s
+           left join s.productoFabricado mp
+           where ps.product.id in :productIds
+           group by ps.product.id, s.id, mp.id
+           order by ps.product.id, s.id
+           """)
+    List<Object[]> findBomLinesByProductIds(@Param("productIds") Collection<Long> productIds);
 }
@@ -24,4 +24,24 @@ public interface ProductionOrderRepository extends JpaRepository<ProductionOrder
             "JOIN FETCH d.product p " +
             "WHERE po.id = :id")
     Optional<ProductionOrder> findByIdWithDetails(@Param("id") Long id);
-}
\ No newline at end of file
+
+    // Respuesta de INSPROD: una consulta con las columnas que se imprimen
+    @Query("SELECT po.id AS id, d.id AS orderDetailId, p.nombre AS productName, d.quantity AS quantity, " +
+            "po.status AS status, po.startDate AS startDate, " +
+            "po.estimatedCompletionDate AS estimatedCompletionDate " +
+            "FROM ProductionOrder po JOIN po.orderDetail d JOIN d.product p WHERE po.id = :id")
+    Optional<Summary> findSummaryById(@Param("id") Long id);
+
+    /**
+     * Resumen de una orden de producción (proyección de sólo lectura).
+     */
+    interface Summary {
+        Long getId();
+        Long getOrderDetailId();
+        String getProductName();
+        Integer getQuantity();
+        String getStatus();
+        LocalDate getStartDate();
+        LocalDate getEstimatedCompletionDate();
+    }
+}
@@ -2,11 +2,18 @@ package com.example.tecnoWebEmail.Repository;
 
 import com.example.tecnoWebEmail.Models.Supply;
 import com.example.tecnoWebEmail.Models.SupplyMovement;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface SupplyMovementRepository extends JpaRepository<SupplyMovement, Long> {
@@ -28,4 +35,9 @@ public interface SupplyMovementRepository extends JpaRepository<SupplyMovement,
     
     // Buscar movimientos recientes primero
     List<SupplyMovement> findBySupplyOrderByDateDesc(Supply supply);
-}
\ No newline at end of file
+
+    // Página de MOVSUP: movimientos de un insumo, recientes primero (keyset por id descendente)
+    @Query("SELECT m FROM SupplyMovement m WHERE m.supply.id = :supplyId AND m.id < :before ORDER BY m.id DESC")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "100"))
+    Stream<SupplyMovement> streamPageBySupply(@Param("supplyId") Long supplyId, @Param("before") Long before, Limit limit);
+}
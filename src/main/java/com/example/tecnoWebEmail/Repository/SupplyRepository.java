@@ -1,10 +1,23 @@
 package com.example.tecnoWebEmail.Repository;
 
 import com.example.tecnoWebEmail.Models.Supply;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Repository
 public interface SupplyRepository extends JpaRepository<Supply, Long> {
@@ -12,7 +25,36 @@ public interface SupplyRepository extends JpaRepository<Supply, Long> {
     // Buscar insumo por su nombre
     Supply findByNombre(String nombre);
 
+    // De los nombres dados, los que ya existen (una sola consulta por lote de importación)
+    @Query("select s.nombre from Supply s where s.nombre in :nombres")
+    Set<String> findExistingNombres(@Param("nombres") Collection<String> nombres);
+
     // Encontrar por unidad de medida
     List<Supply> findByUnidadMedida(String unidadMedida);
 
+    // SELECT ... FOR UPDATE ordenado por id: quien consume varios insumos toma los
+    // bloqueos siempre en el mismo orden, así dos consumos concurrentes no se interbloquean
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from Supply s where s.id in :ids order by s.id")
+    List<Supply> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    // Cambios de stock atómicos (ver ProductRepository): 0 filas = insumo
+    // inexistente o stock insuficiente
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Supply s set s.stockActual = s.stockActual + :qty where s.id = :id")
+    int increaseStock(@Param("id") Long id, @Param("qty") BigDecimal qty);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Supply s set s.stockActual = s.stockActual - :qty where s.id = :id and s.stockActual >= :qty")
+    int decreaseStock(@Param("id") Long id, @Param("qty") BigDecimal qty);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Supply s set s.stockActual = :stock where s.id = :id")
+    int setStock(@Param("id") Long id, @Param("stock") BigDecimal stock);
+
+    // Página de LISSUP (keyset por id), opcionalmente filtrada por nombre
+    @Query("SELECT s FROM Supply s WHERE s.id > :after " +
+            "AND (:pattern IS NULL OR lower(s.nombre) LIKE :pattern) ORDER BY s.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "100"))
+    Stream<Supply> streamPage(@Param("after") Long after, @Param("pattern") String pattern, Limit limit);
 }
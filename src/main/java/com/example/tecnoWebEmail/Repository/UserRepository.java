@@ -3,11 +3,18 @@ package com.example.tecnoWebEmail.Repository;
 import com.example.tecnoWebEmail.Models.Client;
 import com.example.tecnoWebEmail.Models.Role;
 import com.example.tecnoWebEmail.Models.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -25,4 +32,26 @@ public interface UserRepository extends JpaRepository<User, Long> {
     long countByRole(Role role);
 
     Optional<User> findByCi(String ci);
+
+    // Página de LISUSU (keyset por id): sólo las columnas del listado, rol incluido
+    @Query("SELECT u.id AS id, u.ci AS ci, u.username AS username, u.firstName AS firstName, " +
+            "u.lastName AS lastName, u.email AS email, r.name AS roleName, u.active AS active " +
+            "FROM User u JOIN u.role r WHERE u.id > :after " +
+            "AND (:role IS NULL OR r.name = :role) ORDER BY u.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "100"))
+    Stream<ListRow> streamPage(@Param("after") Long after, @Param("role") String role, Limit limit);
+
+    /**
+     * Fila de LISUSU (proyección de sólo lectura).
+     */
+    interface ListRow {
+        Long getId();
+        String getCi();
+        String getUsername();
+        String getFirstName();
+        String getLastName();
+        String getEmail();
+        String getRoleName();
+        boolean isActive();
+    }
 }
@@ -0,0 +1,59 @@
+package com.example.tecnoWebEmail.Service;
+
+/**
+ * Filtro de Bloom de tamaño fijo sobre un arreglo de long. Responde "seguro
+ * que no está" o "quizás está"; nunca da falsos negativos.
+ *
+ * Los k índices de cada elemento salen de dos hashes de 64 bits
+ * (h1 + i * h2, doble hashing), así agregar o consultar cuesta O(k) sin
+ * calcular k funciones de hash. No es thread-safe.
+ */
+public class BloomFilter {
+
+    private final long[] bits;
+    private final long bitCount;
+    private final int hashCount;
+    private int count;
+
+    /**
+     * Dimensiona el filtro para {@code expectedItems} elementos con la tasa de
+     * falsos positivos indicada (ej. 0.01).
+     */
+    public BloomFilter(int expectedItems, double falsePositiveRate) {
+        int n = Math.max(1, expectedItems);
+        double p = Math.min(0.5, Math.max(1e-9, falsePositiveRate));
+        long m = (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+        this.bits = new long[(int) Math.max(1, (m + 63) / 64)];
+        this.bitCount = bits.length * 64L;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+    }
+
+    public void add(long h1, long h2) {
+        for (int i = 0; i < hashCount; i++) {
+            long index = Math.floorMod(h1 + i * h2, bitCount);
+            bits[(int) (index >>> 6)] |= 1L << index;
+        }
+        count++;
+    }
+
+    public boolean mightContain(long h1, long h2) {
+        for (int i = 0; i < hashCount; i++) {
+            long index = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits[(int) (index >>> 6)] & (1L << index)) == 0) return false;
+        }
+        return true;
+    }
+
+    /** Elementos agregados (con repetidos). */
+    public int getCount() {
+        return count;
+    }
+
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.tecnoWebEmail.Service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caché en memoria de recetas (BOM de un nivel) por producto.
+ *
+ * Cada receta se guarda como arreglos paralelos de long (relación, insumo,
+ * cantidad escalada y producto que fabrica el insumo), sin entidades JPA. La
+ * caché está acotada por el total de líneas de receta: al superarlo se
+ * descartan las recetas usadas hace más tiempo (LRU). La invalidación la hace
+ * {@link ProductSupplyService} en cada alta, cambio o baja de una relación.
+ *
+ * Cada invalidación avanza una generación global. Quien carga una receta de
+ * la base lee la generación antes de la consulta y la pasa a {@link #put}: si
+ * entre medio hubo una invalidación, la receta leída puede ser la anterior y
+ * no se guarda.
+ */
+@Component
+public class BomCache {
+
+    // Misma escala que product_supplies_bom.required_amount
+    public static final int AMOUNT_SCALE = 2;
+
+    private final int maxLines;
+    private final LinkedHashMap<Long, Bom> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private int lines;
+    private long generation;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public BomCache(@Value("${bom.cache.max-lines:100000}") int maxLines) {
+        this.maxLines = Math.max(1, maxLines);
+    }
+
+    /**
+     * Receta en caché, o null (cuenta como fallo).
+     */
+    public synchronized Bom get(Long productId) {
+        Bom bom = entries.get(productId);
+        if (bom != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return bom;
+    }
+
+    /**
+     * Generación actual; leerla antes de consultar la receta a la base.
+     */
+    public synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * Guarda la receta sólo si no hubo invalidaciones desde {@code loadedAt}.
+     */
+    public synchronized boolean put(Long productId, Bom bom, long loadedAt) {
+        if (loadedAt != generation) return false;
+        put(productId, bom);
+        return true;
+    }
+
+    public synchronized void put(Long productId, Bom bom) {
+        Bom previous = entries.put(productId, bom);
+        lines += bom.weight() - (previous != null ? previous.weight() : 0);
+        // Descartar las menos usadas hasta volver al límite (nunca la recién agregada)
+        Iterator<Map.Entry<Long, Bom>> eldest = entries.entrySet().iterator();
+        while (lines > maxLines && entries.size() > 1) {
+            Map.Entry<Long, Bom> entry = eldest.next();
+            if (entry.getKey().equals(productId)) continue;
+            lines -= entry.getValue().weight();
+            eldest.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    public synchronized void invalidate(Long productId) {
+        generation++;
+        Bom removed = entries.remove(productId);
+        if (removed != null) {
+            lines -= removed.weight();
+            invalidations.incrementAndGet();
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        invalidations.addAndGet(entries.size());
+        entries.clear();
+        lines = 0;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public long getInvalidations() {
+        return invalidations.get();
+    }
+
+    public synchronized int getSize() {
+        return entries.size();
+    }
+
+    public synchronized int getLines() {
+        return lines;
+    }
+
+    public int getMaxLines() {
+        return maxLines;
+    }
+
+    /**
+     * Cantidad escalada a long (2 decimales: 1.25 -> 125).
+     */
+    public static long scale(BigDecimal amount) {
+        return amount.setScale(AMOUNT_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Receta de un nivel de un producto, inmutable. {@code manufacturedBy} es 0
+     * si el insumo se compra.
+     */
+    public static final class Bom {
+        private final long[] relationIds;
+        private final long[] supplyIds;
+        private final long[] scaledAmounts;
+        private final long[] manufacturedBy;
+
+        public Bom(long[] relationIds, long[] supplyIds, long[] scaledAmounts, long[] manufacturedBy) {
+            this.relationIds = relationIds;
+            this.supplyIds = supplyIds;
+            this.scaledAmounts = scaledAmounts;
+            this.manufacturedBy = manufacturedBy;
+        }
+
+        public int size() {
+            return supplyIds.length;
+        }
+
+        public long relationId(int index) {
+            return relationIds[index];
+        }
+
+        public long supplyId(int index) {
+            return supplyIds[index];
+        }
+
+        public long scaledAmount(int index) {
+            return scaledAmounts[index];
+        }
+
+        public BigDecimal amount(int index) {
+            return BigDecimal.valueOf(scaledAmounts[index], AMOUNT_SCALE);
+        }
+
+        public long manufacturedBy(int index) {
+            return manufacturedBy[index];
+        }
+
+        public int indexOf(long supplyId) {
+            for (int i = 0; i < supplyIds.length; i++) {
+                if (supplyIds[i] == supplyId) return i;
+            }
+            return -1;
+        }
+
+        // Peso para el límite de la caché: las recetas vacías también ocupan lugar
+        int weight() {
+            return 1 + supplyIds.length;
+        }
+    }
+}
@@ -8,6 +8,8 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.Stream;
 
 @Service
 public class ClientService {
@@ -22,6 +24,18 @@ public class ClientService {
         return clientRepository.findAll();
     }
 
+    /**
+     * Página de LISCLI: clientes con id posterior a {@code after}, leídos con un
+     * cursor y entregados uno a uno a {@code sink}.
+     */
+    @Transactional(readOnly = true)
+    public Keyset.Page forEachClient(Long after, int limit, String name, ObjIntConsumer<Client> sink) {
+        try (Stream<Client> rows = clientRepository.streamPage(after != null ? after : 0L,
+                Keyset.containsPattern(name), Keyset.lookahead(limit))) {
+            return Keyset.forEach(rows, limit, Client::getId, sink);
+        }
+    }
+
     public Optional<Client> getClientByCi(String ci) {
         return clientRepository.findByCi(ci);
     }
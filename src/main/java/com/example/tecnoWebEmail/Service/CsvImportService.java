@@ -0,0 +1,336 @@
+package com.example.tecnoWebEmail.Service;
+
+import com.example.tecnoWebEmail.Repository.ClientRepository;
+import com.example.tecnoWebEmail.Repository.ProductRepository;
+import com.example.tecnoWebEmail.Repository.SupplyRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Importación masiva desde CSV para productos, insumos y clientes.
+ *
+ * El archivo se lee fila por fila y se procesa en lotes de {@code chunkSize}:
+ * por cada lote se hace una sola consulta de unicidad por clave (IN (...)) y
+ * un único batchUpdate JDBC. Las filas inválidas o duplicadas no detienen la
+ * importación: se informan en el resultado con su número de línea.
+ */
+@Service
+public class CsvImportService {
+
+    // ON CONFLICT DO NOTHING: si otra operación insertó la misma clave entre la
+    // consulta y el INSERT, la fila se cuenta como rechazada en lugar de abortar el lote
+    private static final String INSERT_PRODUCT =
+            "INSERT INTO products (product_id, sku, name, description, sale_price, stock_current) VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING";
+    private static final String INSERT_SUPPLY =
+            "INSERT INTO supplies (supply_id, name, description, unit_measure, stock_current) VALUES (?, ?, ?, ?, ?) ON CONFLICT DO NOTHING";
+    private static final String INSERT_CLIENT =
+            "INSERT INTO clients (id, ci, first_name, last_name, email, phone, address) VALUES (?, ?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING";
+
+    // Igual al allocationSize de las entidades: cada nextval reserva un bloque de ids
+    private static final int ID_BLOCK = 50;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private SupplyRepository supplyRepository;
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Value("${import.csv.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${import.csv.max-reported-errors:50}")
+    private int maxReportedErrors;
+
+    public ImportResult importProducts(Reader csv) throws IOException {
+        return runImport(csv, "sku", INSERT_PRODUCT, "products_seq", this::parseProduct,
+                List.of(new UniqueKey("SKU", 0, productRepository::findExistingSkus)));
+    }
+
+    public ImportResult importSupplies(Reader csv) throws IOException {
+        return runImport(csv, "nombre", INSERT_SUPPLY, "supplies_seq", this::parseSupply,
+                List.of(new UniqueKey("Nombre", 0, supplyRepository::findExistingNombres)));
+    }
+
+    public ImportResult importClients(Reader csv) throws IOException {
+        return runImport(csv, "ci", INSERT_CLIENT, "clients_seq", this::parseClient,
+                List.of(new UniqueKey("CI", 0, clientRepository::findExistingCis),
+                        new UniqueKey("Email", 3, clientRepository::findExistingEmails),
+                        new UniqueKey("Teléfono", 4, clientRepository::findExistingPhones)));
+    }
+
+    // ---- Conversión de filas (lanzan IllegalArgumentException con el motivo) ----
+
+    private Object[] parseProduct(String[] cells) {
+        requireColumns(cells, 5, "sku,nombre,descripcion,precio,stockInicial");
+        String sku = required(cells[0], "sku", 50);
+        String name = required(cells[1], "nombre", 100);
+        String description = optional(cells[2], "descripcion", Integer.MAX_VALUE);
+        BigDecimal price = decimal(cells[3], "precio", true);
+        Integer stock = cells[4].isEmpty() ? 0 : integer(cells[4], "stockInicial");
+        return new Object[]{sku, name, description, price, stock};
+    }
+
+    private Object[] parseSupply(String[] cells) {
+        requireColumns(cells, 4, "nombre,descripcion,unidadMedida,stockInicial");
+        String name = required(cells[0], "nombre", 100);
+        String description = optional(cells[1], "descripcion", Integer.MAX_VALUE);
+        String unit = optional(cells[2], "unidadMedida", 20);
+        BigDecimal stock = cells[3].isEmpty() ? BigDecimal.ZERO : decimal(cells[3], "stockInicial", true);
+        return new Object[]{name, description, unit, stock};
+    }
+
+    private Object[] parseClient(String[] cells) {
+        requireColumns(cells, 6, "ci,nombre,apellido,email,telefono,direccion");
+        String ci = required(cells[0], "ci", 10);
+        String firstName = required(cells[1], "nombre", 100);
+        String lastName = optional(cells[2], "apellido", 100);
+        String email = optional(cells[3], "email", 100);
+        String phone = optional(cells[4], "telefono", 20);
+        String address = optional(cells[5], "direccion", 255);
+        return new Object[]{ci, firstName, lastName, email, phone, address};
+    }
+
+    private static void requireColumns(String[] cells, int count, String columns) {
+        if (cells.length < count) {
+            throw new IllegalArgumentException("Se esperaban " + count + " columnas (" + columns + "), hay " + cells.length);
+        }
+    }
+
+    private static String required(String value, String column, int maxLength) {
+        if (value.isEmpty()) {
+            throw new IllegalArgumentException("La columna " + column + " no puede estar vacía");
+        }
+        return optional(value, column, maxLength);
+    }
+
+    private static String optional(String value, String column, int maxLength) {
+        if (value.isEmpty()) return null;
+        if (value.length() > maxLength) {
+            throw new IllegalArgumentException("La columna " + column + " supera " + maxLength + " caracteres");
+        }
+        return value;
+    }
+
+    private static BigDecimal decimal(String value, String column, boolean nonNegative) {
+        try {
+            BigDecimal number = new BigDecimal(value.replace(',', '.'));
+            if (nonNegative && number.signum() < 0) {
+                throw new IllegalArgumentException("La columna " + column + " no puede ser negativa");
+            }
+            return number;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("La columna " + column + " no es un número válido: " + value);
+        }
+    }
+
+    private static Integer integer(String value, String column) {
+        try {
+            int number = Integer.parseInt(value);
+            if (number < 0) {
+                throw new IllegalArgumentException("La columna " + column + " no puede ser negativa");
+            }
+            return number;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("La columna " + column + " debe ser un número entero: " + value);
+        }
+    }
+
+    // ---- Motor de importación por lotes ----
+
+    private ImportResult runImport(Reader csv, String firstColumn, String insertSql, String sequence,
+                                   Function<String[], Object[]> parser, List<UniqueKey> keys) throws IOException {
+        ImportResult result = new ImportResult(maxReportedErrors);
+        CsvReader reader = new CsvReader(csv);
+        List<Set<String>> seen = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) seen.add(new HashSet<>());
+        List<PendingRow> chunk = new ArrayList<>(chunkSize);
+
+        String[] cells;
+        boolean firstRow = true;
+        while ((cells = reader.readRow()) != null) {
+            int line = reader.getRowLineNumber();
+            if (firstRow) {
+                firstRow = false;
+                // Fila de encabezados opcional
+                if (cells.length > 0 && cells[0].equalsIgnoreCase(firstColumn)) continue;
+            }
+            result.rows++;
+
+            Object[] values;
+            try {
+                values = parser.apply(cells);
+            } catch (IllegalArgumentException e) {
+                result.reject(line, e.getMessage());
+                continue;
+            }
+
+            // Duplicados dentro del mismo archivo
+            String duplicate = null;
+            for (int k = 0; k < keys.size() && duplicate == null; k++) {
+                String value = (String) values[keys.get(k).index];
+                if (value != null && seen.get(k).contains(value)) {
+                    duplicate = keys.get(k).label + " repetido en el archivo: " + value;
+                }
+            }
+            if (duplicate != null) {
+                result.reject(line, duplicate);
+                continue;
+            }
+            for (int k = 0; k < keys.size(); k++) {
+                String value = (String) values[keys.get(k).index];
+                if (value != null) seen.get(k).add(value);
+            }
+
+            chunk.add(new PendingRow(line, values));
+            if (chunk.size() >= chunkSize) {
+                flush(chunk, insertSql, sequence, keys, result);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            flush(chunk, insertSql, sequence, keys, result);
+        }
+        return result;
+    }
+
+    private void flush(List<PendingRow> chunk, String insertSql, String sequence,
+                       List<UniqueKey> keys, ImportResult result) {
+        // Una consulta por clave para todo el lote
+        List<Set<String>> existing = new ArrayList<>();
+        for (UniqueKey key : keys) {
+            Set<String> values = new HashSet<>();
+            for (PendingRow row : chunk) {
+                String value = (String) row.values[key.index];
+                if (value != null) values.add(value);
+            }
+            existing.add(values.isEmpty() ? Set.of() : key.lookup.apply(values));
+        }
+
+        List<PendingRow> toInsert = new ArrayList<>(chunk.size());
+        for (PendingRow row : chunk) {
+            String conflict = null;
+            for (int k = 0; k < keys.size() && conflict == null; k++) {
+                String value = (String) row.values[keys.get(k).index];
+                if (value != null && existing.get(k).contains(value)) {
+                    conflict = keys.get(k).label + " ya existe: " + value;
+                }
+            }
+            if (conflict != null) {
+                result.reject(row.line, conflict);
+            } else {
+                toInsert.add(row);
+            }
+        }
+        if (toInsert.isEmpty()) return;
+
+        try {
+            long[] ids = allocateIds(sequence, toInsert.size());
+            List<Object[]> args = new ArrayList<>(toInsert.size());
+            for (int i = 0; i < toInsert.size(); i++) {
+                Object[] values = toInsert.get(i).values;
+                Object[] withId = new Object[values.length + 1];
+                withId[0] = ids[i];
+                System.arraycopy(values, 0, withId, 1, values.length);
+                args.add(withId);
+            }
+            int[] counts = new TransactionTemplate(transactionManager)
+                    .execute(status -> jdbcTemplate.batchUpdate(insertSql, args));
+            for (int i = 0; i < toInsert.size(); i++) {
+                if (counts != null && i < counts.length && counts[i] == 0) {
+                    result.reject(toInsert.get(i).line, "Ya existe un registro con la misma clave");
+                } else {
+                    result.inserted++;
+                }
+            }
+        } catch (DataAccessException e) {
+            String message = e.getMostSpecificCause().getMessage();
+            for (PendingRow row : toInsert) {
+                result.reject(row.line, "Error de base de datos en el lote: " + message);
+            }
+        }
+    }
+
+    /**
+     * Reserva {@code count} ids de la secuencia con la misma semántica pooled que
+     * Hibernate (nextval = tope del bloque), así no chocan con los que asigna JPA.
+     */
+    private long[] allocateIds(String sequence, int count) {
+        long[] ids = new long[count];
+        int n = 0;
+        while (n < count) {
+            int blocks = (count - n + ID_BLOCK - 1) / ID_BLOCK;
+            List<Long> highs = jdbcTemplate.queryForList(
+                    "SELECT nextval(?::regclass) FROM generate_series(1, ?)", Long.class, sequence, blocks);
+            for (long high : highs) {
+                // Una secuencia recién creada empieza en 1: ese primer bloque rinde un solo id
+                for (long id = Math.max(1, high - ID_BLOCK + 1); id <= high && n < count; id++) {
+                    ids[n++] = id;
+                }
+            }
+        }
+        return ids;
+    }
+
+    private record UniqueKey(String label, int index, Function<Collection<String>, Set<String>> lookup) {}
+
+    private record PendingRow(int line, Object[] values) {}
+
+    /**
+     * Resumen de una importación: filas leídas, insertadas y rechazadas
+     * (sólo se guardan los primeros motivos de rechazo).
+     */
+    public static class ImportResult {
+        private final int maxReported;
+        private final List<String> rejections = new ArrayList<>();
+        private int rows;
+        private int inserted;
+        private int rejected;
+
+        ImportResult(int maxReported) {
+            this.maxReported = maxReported;
+        }
+
+        void reject(int line, String reason) {
+            rejected++;
+            if (rejections.size() < maxReported) {
+                rejections.add("Línea " + line + ": " + reason);
+            }
+        }
+
+        public int getRows() {
+            return rows;
+        }
+
+        public int getInserted() {
+            return inserted;
+        }
+
+        public int getRejected() {
+            return rejected;
+        }
+
+        public List<String> getRejections() {
+            return rejections;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.tecnoWebEmail.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lector CSV mínimo (RFC 4180) que lee fila por fila: campos entre comillas
+ * con comas, saltos de línea y comillas dobles escapadas (""). El separador
+ * se detecta en la primera fila (',' o ';', como exporta Excel en español).
+ */
+public class CsvReader {
+
+    private final BufferedReader input;
+    private char separator;
+    private int lineNumber;
+    private int rowLineNumber;
+
+    public CsvReader(Reader input) {
+        this.input = input instanceof BufferedReader ? (BufferedReader) input : new BufferedReader(input);
+    }
+
+    /**
+     * Siguiente fila, o null al final del archivo. Las filas vacías se saltan.
+     */
+    public String[] readRow() throws IOException {
+        String line;
+        do {
+            line = input.readLine();
+            if (line == null) return null;
+            lineNumber++;
+        } while (line.isBlank());
+        rowLineNumber = lineNumber;
+
+        if (separator == 0) {
+            separator = line.indexOf(';') >= 0 && line.indexOf(',') < 0 ? ';' : ',';
+        }
+        if (lineNumber == 1 && !line.isEmpty() && line.charAt(0) == '\uFEFF') {
+            line = line.substring(1); // BOM de UTF-8
+        }
+
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        int i = 0;
+        while (true) {
+            if (i >= line.length()) {
+                if (!quoted) break;
+                // Campo entre comillas que sigue en la próxima línea
+                String next = input.readLine();
+                if (next == null) {
+                    throw new IOException("Comillas sin cerrar en la fila de la línea " + rowLineNumber);
+                }
+                lineNumber++;
+                cell.append('\n');
+                line = next;
+                i = 0;
+                continue;
+            }
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        cell.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    cell.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == separator) {
+                cells.add(cell.toString().trim());
+                cell.setLength(0);
+            } else {
+                cell.append(c);
+            }
+            i++;
+        }
+        cells.add(cell.toString().trim());
+        return cells.toArray(new String[0]);
+    }
+
+    /**
+     * Número de línea (1 = primera) donde empieza la última fila leída.
+     */
+    public int getRowLineNumber() {
+        return rowLineNumber;
+    }
+}
@@ -1,114 +1,159 @@
 package com.example.tecnoWebEmail.Service;
+import com.example.tecnoWebEmail.Commands.CommandDefinition;
+import com.example.tecnoWebEmail.Commands.CommandRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import com.example.tecnoWebEmail.Models.Client;
-
+import java.time.Clock;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
 
+/**
+ * Partes comunes de las respuestas (encabezado, errores, comando no
+ * reconocido). Los bloques fijos se arman una sola vez al cargar la clase y
+ * cada respuesta se compone concatenando esos fragmentos con las partes
+ * variables (una sola reserva del tamaño exacto). La fecha del encabezado se
+ * formatea como mucho una vez por segundo y la lista de comandos de "comando
+ * no reconocido" se arma una sola vez desde {@link CommandRegistry}.
+ */
 @Service
 public class EmailResponseService {
     private static final String SEPARATOR = "================================================";
     private static final String MINI_SEPARATOR = "------------------------";
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
+    private static final String ERROR_TITLE = " ERROR EN LA OPERACIÓN\n";
+    private static final String ERROR_DETAIL = " Detalle del error:\n";
+    private static final String UNKNOWN_TITLE = " COMANDO NO VÁLIDO\n";
+
+    // Fragmentos fijos del encabezado: ...comando: <cmd> / Fecha: <fecha> / separador
+    private static final String HEADER_START = SEPARATOR + "\n"
+            + "    SISTEMA DE GESTIÓN - GRUPO 21SA\n"
+            + "    Respuesta para comando: ";
+    private static final String HEADER_DATE = "\n    Fecha: ";
+    private static final String HEADER_END = "\n" + SEPARATOR + "\n\n";
+
+    private static final String ERROR_START = ERROR_TITLE
+            + MINI_SEPARATOR + "\n"
+            + "Se produjo un error al procesar su solicitud:\n\n"
+            + ERROR_DETAIL
+            + "   ";
+    private static final String ERROR_END = "\n\n"
+            + " AYUDA:\n"
+            + "   • Verifique que todos los parámetros sean correctos\n"
+            + "   • Asegúrese de usar el formato correcto del comando\n"
+            + "   • Contacte al administrador si el problema persiste\n";
+
+    private static final String UNKNOWN_HEADER_COMMAND = "COMANDO NO RECONOCIDO";
+    private static final String UNKNOWN_START = UNKNOWN_TITLE
+            + MINI_SEPARATOR + "\n"
+            + "El comando '";
+    private static final String UNKNOWN_END = "' no es reconocido por el sistema.\n\n";
+
+    private final Clock clock;
+
+    @Autowired
+    private CommandRegistry commandRegistry;
+
+    // El registro no cambia después de iniciar: la lista se arma una sola vez
+    private volatile String commandList;
+
+    // Fecha ya formateada y el segundo al que corresponde
+    private volatile Timestamp timestamp = new Timestamp(Long.MIN_VALUE, "");
+
+    public EmailResponseService() {
+        this(Clock.systemDefaultZone(), null); // el registro lo inyecta Spring
+    }
+
+    EmailResponseService(Clock clock, CommandRegistry commandRegistry) {
+        this.clock = clock;
+        this.commandRegistry = commandRegistry;
+    }
 
     /**
      * Genera el encabezado estándar para todas las respuestas
      */
     public String generateHeader(String comando) {
-        StringBuilder header = new StringBuilder();
-        header.append(SEPARATOR).append("\n");
-        header.append("    SISTEMA DE GESTIÓN - GRUPO 21SA\n");
-        header.append("    Respuesta para comando: ").append(comando).append("\n");
-        header.append("    Fecha: ").append(LocalDateTime.now().format(DATE_FORMATTER)).append("\n");
-        header.append(SEPARATOR).append("\n\n");
-        return header.toString();
+        return HEADER_START + comando + HEADER_DATE + currentTimestamp() + HEADER_END;
+    }
+
+    /**
+     * Fecha del encabezado; se vuelve a formatear sólo cuando cambia el segundo.
+     */
+    String currentTimestamp() {
+        long second = Math.floorDiv(clock.millis(), 1000L);
+        Timestamp cached = timestamp;
+        if (cached.second() != second) {
+            LocalDateTime now = LocalDateTime.ofInstant(Instant.ofEpochSecond(second), clock.getZone());
+            cached = new Timestamp(second, now.format(DATE_FORMATTER));
+            timestamp = cached;
+        }
+        return cached.text();
+    }
+
+    // El encabezado va en la misma concatenación (no vía generateHeader) para
+    // no reservar un String intermedio que después se copia
+    public String formatErrorResponse(String error, String command) {
+        return HEADER_START + command + HEADER_DATE + currentTimestamp() + HEADER_END
+                + ERROR_START + error + ERROR_END;
     }
+
     /**
-     * Formatea la respuesta para listar clientss
+     * Indica si una respuesta ya formateada es de error (formatErrorResponse
+     * o formatUnknownCommandResponse). Los handlers devuelven los errores como
+     * texto en lugar de lanzar excepciones.
      */
+    public boolean isErrorResponse(String response) {
+        return response == null || response.contains(ERROR_TITLE) || response.contains(UNKNOWN_TITLE);
+    }
 
-     public String formatErrorResponse(String error, String command) {
-        StringBuilder response = new StringBuilder();
-        response.append(generateHeader(command));
-        
-        response.append(" ERROR EN LA OPERACIÓN\n");
-        response.append(MINI_SEPARATOR).append("\n");
-        response.append("Se produjo un error al procesar su solicitud:\n\n");
-        response.append(" Detalle del error:\n");
-        response.append("   ").append(error).append("\n\n");
-        
-        response.append(" AYUDA:\n");
-        response.append("   • Verifique que todos los parámetros sean correctos\n");
-        response.append("   • Asegúrese de usar el formato correcto del comando\n");
-        response.append("   • Contacte al administrador si el problema persiste\n");
-
-        return response.toString();
+    /**
+     * Extrae el detalle de una respuesta de error, para resúmenes de una línea.
+     */
+    public String errorDetail(String response) {
+        if (response == null) return "Sin respuesta";
+        int start = response.indexOf(ERROR_DETAIL);
+        if (start < 0) {
+            return response.contains(UNKNOWN_TITLE) ? "Comando no reconocido" : "Error desconocido";
+        }
+        start += ERROR_DETAIL.length();
+        int end = response.indexOf("\n\n", start);
+        return response.substring(start, end < 0 ? response.length() : end).trim();
     }
+
     public String formatUnknownCommandResponse(String command) {
-        StringBuilder response = new StringBuilder();
-        response.append(generateHeader("COMANDO NO RECONOCIDO"));
-
-        response.append(" COMANDO NO VÁLIDO\n");
-        response.append(MINI_SEPARATOR).append("\n");
-        response.append("El comando '").append(command).append("' no es reconocido por el sistema.\n\n");
-
-        response.append("========== LISTA DE COMANDOS DISPONIBLES ==========\n\n");
-
-        response.append("--- GESTIÓN DE USUARIOS Y ROLES ---\n");
-        response.append("   • LISUSU[]: Listar todos los usuarios.\n");
-        response.append("   • BUSUSU[\"ci\"]: Buscar un usuario por su CI.\n");
-        response.append("   • INSUSU[\"ci\",\"user\",\"pass\",\"email\",\"nom\",\"ape\",\"rolName\"]\n");
-        response.append("   • UPDUSU[\"ci_buscar\",\"n_user\",\"n_email\",\"n_nom\",\"n_ape\",\"n_rolName\"]\n\n");
-        response.append("   • LISROL[]: Listar todos los roles.\n");
-        response.append("   • BUSROL[\"nombreRol\"]: Buscar un rol por su nombre.\n");
-        response.append("   • INSROL[\"nombreRol\"]\n");
-        response.append("   • UPDROL[\"rolActual\",\"rolNuevo\"]\n\n");
-
-        response.append("--- GESTIÓN DE CLIENTES ---\n");
-        response.append("   • LISCLI[]: Listar todos los clientes.\n");
-        response.append("   • BUSCLI[\"ci\"]: Buscar un cliente por su CI.\n");
-        response.append("   • INSCLI[\"ci\",\"nombre\",\"apellido\",\"email\",\"telefono\",\"direccion\"]\n\n");
-
-        response.append("--- GESTIÓN DE PRODUCTOS E INSUMOS (Ejemplos) ---\n");
-        response.append("   • LISPRO[]: Listar todos los productos.\n");
-        response.append("   • INSPRO[\"sku\",\"nombre\",\"desc\",\"precioVenta\",\"stockInicial\"]\n");
-        response.append("   • LISSUP[]: Listar todos los insumos.\n");
-        response.append("   • INSSUP[\"nombre\",\"desc\",\"unidadMedida\",\"stockInicial\"]\n\n");
-
-        response.append("--- FLUJO DE PEDIDOS Y PRODUCCIÓN (EN ORDEN) ---\n");
-        response.append("   1. INSORD[\"ciCliente\",\"ciUsuario\",\"CondicionPago\"]\n");
-        response.append("      (Ej: INSORD[\"123\",\"789\",\"Credit\"])\n");
-        response.append("   2. ADDET[\"idOrden\",\"idProducto\",\"cantidad\"]\n");
-        response.append("      (Ej: ADDET[\"1\",\"1\",\"5\"])\n");
-        response.append("   3. CONFORD[\"idOrden\",\"numCuotas\"]\n");
-        response.append("      (Ej Crédito: CONFORD[\"1\",\"3\"])\n");
-        response.append("      (Ej Contado: CONFORD[\"1\",\"0\"])\n");
-        response.append("   4. INSPROD[\"idDetalle\",\"fechaInicio\",\"fechaFin\"]\n");
-        response.append("      (Ej: INSPROD[\"1\",\"2025-11-10\",\"2025-11-20\"])\n\n");
-
-        response.append("--- CONSULTA DE PEDIDOS ---\n");
-        response.append("   • LISORD[]: Listar todas las órdenes.\n");
-        response.append("   • BUSORD[\"idOrden\"]: Buscar una orden por su ID.\n\n");
-
-        response.append("--- GESTIÓN DE PAGOS Y CUOTAS ---\n");
-        response.append("   5. INSPAG[\"idOrden\",\"monto\",\"tipoPago\",\"idCuota\"]\n");
-        response.append("      (Ej Contado: INSPAG[\"1\",\"150.00\",\"Cash\",\"0\"])\n");
-        response.append("      (Ej Crédito: INSPAG[\"1\",\"50.00\",\"Transfer\",\"1\"])\n");
-        response.append("   • LISPAG[]: Listar todos los pagos.\n");
-        response.append("   • BUSPAG[\"idPago\"]: Buscar un pago por su ID.\n");
-        response.append("   • LISPEDPAG[\"idOrden\"]: Listar pagos de una orden.\n");
-        response.append("   • LISCUPAG[\"idCuota\"]: Listar pagos de una cuota.\n\n");
-
-        response.append("--- CONSULTA DE CUOTAS ---\n");
-        response.append("   • LISCUP[\"idOrden\"]: Listar cuotas de una orden.\n");
-        response.append("   • LISVEN[]: Listar todas las cuotas vencidas.\n");
-        response.append("   • LISCES[\"estado\"]: Listar cuotas por estado (Pending, Partial, Paid).\n\n");
-
-        response.append("NOTA: Todos los parámetros de texto deben ir entre comillas dobles.\n");
-        response.append("Las fechas deben estar en formato YYYY-MM-DD.\n");
-
-        return response.toString();
+        return HEADER_START + UNKNOWN_HEADER_COMMAND + HEADER_DATE + currentTimestamp() + HEADER_END
+                + UNKNOWN_START + command + UNKNOWN_END + getCommandList();
     }
+
+    private String getCommandList() {
+        String list = commandList;
+        if (list == null) {
+            list = buildCommandList();
+            // Antes de que el registro termine de cargarse no se guarda la lista vacía
+            if (!commandRegistry.getCommands().isEmpty()) commandList = list;
+        }
+        return list;
+    }
+
+    // Lista de comandos de la respuesta "comando no reconocido", por sección como HELP
+    private String buildCommandList() {
+        StringBuilder list = new StringBuilder();
+        list.append("========== LISTA DE COMANDOS DISPONIBLES ==========\n\n");
+        String currentGroup = null;
+        for (CommandDefinition command : commandRegistry.getCommands()) {
+            if (!command.getGroup().equals(currentGroup)) {
+                if (currentGroup != null) list.append("\n");
+                currentGroup = command.getGroup();
+                list.append("--- ").append(currentGroup).append(" ---\n");
+            }
+            list.append("   • ").append(command.usage()).append(": ").append(command.getDescription()).append("\n");
+        }
+        list.append("\n");
+        list.append("NOTA: Todos los parámetros de texto deben ir entre comillas dobles.\n");
+        list.append("Las fechas deben estar en formato YYYY-MM-DD.\n");
+        return list.toString();
+    }
+
+    private record Timestamp(long second, String text) {}
 }
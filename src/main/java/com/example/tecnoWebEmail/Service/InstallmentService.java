@@ -77,29 +77,44 @@ public class InstallmentService {
 
     /**
      * Actualiza el estado de una cuota cuando recibe un pago.
-     * Este método debería ser llamado por 'PaymentService'.
+     * Este método debería ser llamado por 'PaymentService'. El abono se suma
+     * con un único UPDATE (sin releer la cuota), que además comprueba que la
+     * cuota pertenezca al pedido.
      *
      * @param installmentId El ID de la cuota a pagar.
+     * @param orderId El ID del pedido al que debe pertenecer la cuota.
      * @param paymentAmount El monto que se está pagando.
      */
     @Transactional
-    public void addPaymentToInstallment(Long installmentId, BigDecimal paymentAmount) {
-        Installment installment = installmentRepository.findById(installmentId)
-                .orElseThrow(() -> new RuntimeException("Installment not found with id: " + installmentId));
-
-        BigDecimal newAmountPaid = installment.getAmountPaid().add(paymentAmount);
-        installment.setAmountPaid(newAmountPaid);
-
-        // Compara el monto pagado con el monto de la cuota
-        if (newAmountPaid.compareTo(installment.getInstallmentAmount()) >= 0) {
-            // Pagado total o de más
-            installment.setState("Paid");
-        } else {
-            // Aún falta pagar
-            installment.setState("Partial");
+    public void addPaymentToInstallment(Long installmentId, Long orderId, BigDecimal paymentAmount) {
+        if (installmentRepository.addPayment(installmentId, orderId, paymentAmount) == 0) {
+            if (!installmentRepository.existsById(installmentId)) {
+                throw new RuntimeException("Installment not found with id: " + installmentId);
+            }
+            throw new IllegalStateException("Installment does not belong to the specified order.");
         }
+    }
 
-        installmentRepository.save(installment);
+    /**
+     * Conciliación: compara el monto pagado de cada cuota con la suma de sus
+     * abonos y corrige las diferencias.
+     *
+     * @return Cantidad de cuotas corregidas.
+     */
+    @Transactional
+    public int reconcileAmountsPaid() {
+        List<Object[]> mismatches = installmentRepository.findAmountPaidMismatches();
+        int fixed = 0;
+        for (Object[] row : mismatches) {
+            Long installmentId = (Long) row[0];
+            if (installmentRepository.recomputeAmountPaid(installmentId, (BigDecimal) row[1]) == 0) {
+                System.err.println("Pagado de la cuota " + installmentId + " cambió durante la conciliación, se omite");
+                continue;
+            }
+            System.err.println("Pagado de la cuota " + installmentId + " corregido: " + row[1] + " -> " + row[2]);
+            fixed++;
+        }
+        return fixed;
     }
 
     // --- Métodos de Consulta ---
@@ -114,23 +129,26 @@ public class InstallmentService {
     /**
      * Obtiene todas las cuotas de un pedido específico.
      */
-    public List<Installment> getInstallmentsByOrderId(Long orderId) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new RuntimeException("Order not found with id: " + orderId));
-        return installmentRepository.findByOrder(order);
+    public List<InstallmentRepository.ListRow> getInstallmentsByOrderId(Long orderId) {
+        List<InstallmentRepository.ListRow> rows = installmentRepository.findRowsByOrderId(orderId);
+        // Sólo si no hay cuotas hace falta distinguir "pedido sin cuotas" de "pedido inexistente"
+        if (rows.isEmpty() && !orderRepository.existsById(orderId)) {
+            throw new RuntimeException("Order not found with id: " + orderId);
+        }
+        return rows;
     }
 
     /**
      * Obtiene todas las cuotas vencidas que no estén pagadas.
      */
-    public List<Installment> getOverdueInstallments() {
-        return installmentRepository.findByDueDateBeforeAndStateNot(LocalDate.now(), "Paid");
+    public List<InstallmentRepository.ListRow> getOverdueInstallments() {
+        return installmentRepository.findRowsDueBeforeAndStateNot(LocalDate.now(), "Paid");
     }
 
     /**
      * Obtiene todas las cuotas por estado (ej: "Pending").
      */
-    public List<Installment> getInstallmentsByState(String state) {
-        return installmentRepository.findByState(state);
+    public List<InstallmentRepository.ListRow> getInstallmentsByState(String state) {
+        return installmentRepository.findRowsByState(state);
     }
 }
\ No newline at end of file
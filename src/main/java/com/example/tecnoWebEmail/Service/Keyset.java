@@ -0,0 +1,60 @@
+package com.example.tecnoWebEmail.Service;
+
+import org.springframework.data.domain.Limit;
+
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.Stream;
+
+/**
+ * Paginación por clave (keyset) de los listados LIS*. Cada página pide los
+ * registros con id posterior al último enviado, ordenados por id, y lee uno de
+ * más para saber si hay otra página. Las filas llegan como Stream (cursor del
+ * driver) y se entregan una a una al que arma la respuesta, así que en memoria
+ * nunca hay más que la página pedida.
+ */
+public final class Keyset {
+
+    private Keyset() {
+    }
+
+    /**
+     * Límite para la consulta: la página más una fila de control.
+     */
+    public static Limit lookahead(int limit) {
+        return Limit.of(limit + 1);
+    }
+
+    /**
+     * Recorre hasta {@code limit} filas del stream, numeradas desde 1.
+     *
+     * @return La página con la cantidad enviada y el id desde el que sigue la
+     * siguiente (null si ésta es la última).
+     */
+    public static <T> Page forEach(Stream<T> rows, int limit, Function<T, Long> id, ObjIntConsumer<T> sink) {
+        Iterator<T> iterator = rows.iterator();
+        int count = 0;
+        Long last = null;
+        while (iterator.hasNext()) {
+            T row = iterator.next();
+            if (count == limit) {
+                return new Page(count, last);
+            }
+            sink.accept(row, ++count);
+            last = id.apply(row);
+        }
+        return new Page(count, null);
+    }
+
+    /**
+     * Patrón LIKE (en minúsculas) para un filtro "contiene", o null sin filtro.
+     */
+    public static String containsPattern(String text) {
+        if (text == null || text.isBlank()) return null;
+        return "%" + text.trim().toLowerCase(Locale.ROOT) + "%";
+    }
+
+    public record Page(int count, Long next) {}
+}
@@ -0,0 +1,205 @@
+package com.example.tecnoWebEmail.Service;
+
+import com.example.tecnoWebEmail.Models.Product;
+import com.example.tecnoWebEmail.Models.Supply;
+import com.example.tecnoWebEmail.Repository.OrderDetailRepository;
+import com.example.tecnoWebEmail.Repository.ProductRepository;
+import com.example.tecnoWebEmail.Repository.SupplyRepository;
+import com.example.tecnoWebEmail.Service.BomCache.Bom;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Planificación de requerimientos de materiales (MRP) sobre recetas de varios
+ * niveles: un insumo puede ser un sub-ensamble que se fabrica con la receta de
+ * otro producto ({@link Supply#getProductoFabricado()}).
+ *
+ * La demanda de todos los productos se explota de una vez, en orden topológico:
+ * cada insumo se compensa con su stock recién cuando se sumaron todas sus
+ * necesidades brutas, y sólo lo que falta de un sub-ensamble se vuelve demanda
+ * de su producto. Las recetas salen de la caché de {@link ProductSupplyService}.
+ */
+@Service
+public class MrpService {
+
+    @Autowired
+    private ProductSupplyService productSupplyService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private SupplyRepository supplyRepository;
+
+    @Autowired
+    private OrderDetailRepository orderDetailRepository;
+
+    /**
+     * Plan para la demanda de los pedidos en el estado indicado (ej. "Pending").
+     */
+    @Transactional(readOnly = true)
+    public MrpPlan planOrders(String orderStatus) {
+        Map<Long, BigDecimal> demand = new LinkedHashMap<>();
+        for (Object[] row : orderDetailRepository.sumQuantityByProductForOrderStatus(orderStatus)) {
+            demand.put((Long) row[0], BigDecimal.valueOf(((Number) row[1]).longValue()));
+        }
+        return plan(demand);
+    }
+
+    /**
+     * Plan para una demanda producto -> unidades a producir.
+     */
+    @Transactional(readOnly = true)
+    public MrpPlan plan(Map<Long, BigDecimal> demand) {
+        for (Map.Entry<Long, BigDecimal> entry : demand.entrySet()) {
+            if (entry.getValue() == null || entry.getValue().signum() <= 0) {
+                throw new RuntimeException("La cantidad del producto " + entry.getKey() + " debe ser mayor que cero");
+            }
+        }
+        if (demand.isEmpty()) {
+            return new MrpPlan(Map.of(), Map.of(), List.of());
+        }
+
+        // Recetas de todos los productos alcanzables, un nivel por consulta
+        Map<Long, Bom> boms = new HashMap<>();
+        Set<Long> frontier = new HashSet<>(demand.keySet());
+        while (!frontier.isEmpty()) {
+            Map<Long, Bom> loaded = productSupplyService.getBoms(frontier);
+            boms.putAll(loaded);
+            Set<Long> next = new HashSet<>();
+            for (Bom bom : loaded.values()) {
+                for (int i = 0; i < bom.size(); i++) {
+                    long child = bom.manufacturedBy(i);
+                    if (child != 0 && !boms.containsKey(child)) next.add(child);
+                }
+            }
+            frontier = next;
+        }
+
+        Map<Long, Product> products = new HashMap<>();
+        for (Product product : productRepository.findAllById(boms.keySet())) {
+            products.put(product.getId(), product);
+        }
+        for (Long productId : demand.keySet()) {
+            if (!products.containsKey(productId)) {
+                throw new RuntimeException("Producto no encontrado con id: " + productId);
+            }
+        }
+
+        Map<Long, Long> madeFrom = new HashMap<>();
+        Map<Long, List<Long>> suppliesMadeFrom = new HashMap<>();
+        for (Bom bom : boms.values()) {
+            for (int i = 0; i < bom.size(); i++) {
+                long product = bom.manufacturedBy(i);
+                if (product != 0 && madeFrom.putIfAbsent(bom.supplyId(i), product) == null) {
+                    suppliesMadeFrom.computeIfAbsent(product, id -> new ArrayList<>()).add(bom.supplyId(i));
+                }
+            }
+        }
+        Set<Long> supplyIds = new HashSet<>();
+        for (Bom bom : boms.values()) {
+            for (int i = 0; i < bom.size(); i++) supplyIds.add(bom.supplyId(i));
+        }
+        Map<Long, Supply> supplies = new HashMap<>();
+        for (Supply supply : supplyRepository.findAllById(supplyIds)) {
+            supplies.put(supply.getId(), supply);
+        }
+
+        // Explosión: los productos que consumen un sub-ensamble van antes que el
+        // producto que lo fabrica
+        Map<Long, BigDecimal> productDemand = new LinkedHashMap<>(demand);
+        Map<Long, BigDecimal> gross = new LinkedHashMap<>();
+        for (Long productId : topologicalOrder(demand.keySet(), boms)) {
+            for (Long supplyId : suppliesMadeFrom.getOrDefault(productId, List.of())) {
+                BigDecimal net = net(gross.get(supplyId), supplies.get(supplyId));
+                if (net.signum() > 0) productDemand.merge(productId, net, BigDecimal::add);
+            }
+            BigDecimal quantity = productDemand.get(productId);
+            if (quantity == null || quantity.signum() == 0) continue;
+            Bom bom = boms.get(productId);
+            for (int i = 0; i < bom.size(); i++) {
+                gross.merge(bom.supplyId(i), bom.amount(i).multiply(quantity), BigDecimal::add);
+            }
+        }
+
+        Map<Long, BigDecimal> toProduce = new LinkedHashMap<>();
+        for (Map.Entry<Long, BigDecimal> entry : productDemand.entrySet()) {
+            if (entry.getValue().signum() > 0) toProduce.put(entry.getKey(), entry.getValue());
+        }
+        Map<Long, String> productNames = new HashMap<>();
+        for (Long productId : toProduce.keySet()) {
+            productNames.put(productId, products.get(productId).getNombre());
+        }
+
+        List<MrpLine> lines = new ArrayList<>();
+        for (Map.Entry<Long, BigDecimal> entry : gross.entrySet()) {
+            Supply supply = supplies.get(entry.getKey());
+            if (supply == null) continue; // borrado mientras se planificaba
+            lines.add(new MrpLine(supply.getId(), supply.getNombre(), supply.getUnidadMedida(),
+                    entry.getValue(), supply.getStockActual(), net(entry.getValue(), supply),
+                    madeFrom.get(supply.getId())));
+        }
+        return new MrpPlan(toProduce, productNames, lines);
+    }
+
+    private static BigDecimal net(BigDecimal gross, Supply supply) {
+        if (gross == null) return BigDecimal.ZERO;
+        BigDecimal stock = supply != null ? supply.getStockActual() : BigDecimal.ZERO;
+        BigDecimal net = gross.subtract(stock);
+        return net.signum() > 0 ? net : BigDecimal.ZERO;
+    }
+
+    /**
+     * Productos en orden padre -> hijo (DFS en post-orden invertido). Un ciclo en
+     * las recetas se informa como error en lugar de explotarse sin fin.
+     */
+    private static List<Long> topologicalOrder(Set<Long> roots, Map<Long, Bom> boms) {
+        List<Long> postOrder = new ArrayList<>();
+        Map<Long, Boolean> state = new HashMap<>(); // false = en curso, true = terminado
+        for (Long root : roots) {
+            visit(root, boms, state, postOrder);
+        }
+        Collections.reverse(postOrder);
+        return postOrder;
+    }
+
+    private static void visit(Long productId, Map<Long, Bom> boms, Map<Long, Boolean> state, List<Long> postOrder) {
+        Boolean current = state.get(productId);
+        if (Boolean.TRUE.equals(current)) return;
+        if (Boolean.FALSE.equals(current)) {
+            throw new RuntimeException("La receta del producto " + productId + " tiene un ciclo");
+        }
+        state.put(productId, false);
+        Bom bom = boms.get(productId);
+        for (int i = 0; i < bom.size(); i++) {
+            if (bom.manufacturedBy(i) != 0) {
+                visit(bom.manufacturedBy(i), boms, state, postOrder);
+            }
+        }
+        state.put(productId, true);
+        postOrder.add(productId);
+    }
+
+    /**
+     * Resultado del MRP: unidades a producir por producto (pedidas más
+     * sub-ensambles que faltan) y necesidad bruta / stock / neta por insumo.
+     */
+    public record MrpPlan(Map<Long, BigDecimal> toProduce, Map<Long, String> productNames, List<MrpLine> lines) {}
+
+    /**
+     * {@code manufacturedBy} es el producto que fabrica el insumo, o null si se compra.
+     */
+    public record MrpLine(Long supplyId, String name, String unit, BigDecimal gross, BigDecimal stock,
+                          BigDecimal net, Long manufacturedBy) {}
+}
@@ -6,12 +6,23 @@ import com.example.tecnoWebEmail.Models.Product;
 import com.example.tecnoWebEmail.Repository.OrderDetailRepository;
 import com.example.tecnoWebEmail.Repository.OrderRepository;
 import com.example.tecnoWebEmail.Repository.ProductRepository;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Detalles de pedido. El total del pedido se mantiene por diferencias: cada
+ * alta, cambio o baja de una línea suma o resta sólo esa línea con un UPDATE,
+ * en la misma transacción (OrderService.verifyOrderTotals revisa los totales
+ * completos periódicamente).
+ */
 @Service
 public class OrderDetailService {
 
@@ -24,9 +35,6 @@ public class OrderDetailService {
     @Autowired
     private ProductRepository productRepository;
 
-    @Autowired
-    private OrderService orderService; // Para llamar a 'recalculateOrderTotal'
-
     /**
      * Añade una línea de producto (un detalle) a un pedido existente.
      *
@@ -39,12 +47,7 @@ public class OrderDetailService {
     public OrderDetail addDetailToOrder(Long orderId, Long productId, Integer quantity) {
 
         // 1. Validar Pedido y Producto
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new RuntimeException("Order not found with id: " + orderId));
-
-        if (!"Draft".equals(order.getStatus())) {
-            throw new RuntimeException("No se pueden añadir detalles a un pedido que ya está confirmado.");
-        }
+        Order order = findDraftOrder(orderId);
 
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new RuntimeException("Product not found with id: " + productId));
@@ -53,19 +56,113 @@ public class OrderDetailService {
             throw new IllegalArgumentException("La cantidad (quantity) debe ser mayor que 0.");
         }
 
-        // 2. Crear el nuevo Detalle de Pedido
+        // 2. Crear y guardar el nuevo Detalle de Pedido
+        OrderDetail savedDetail = orderDetailRepository.save(newDetail(order, product, quantity));
+
+        // 3. Sumar sólo esta línea al total
+        orderRepository.addToTotal(orderId, lineTotal(savedDetail));
+
+        return savedDetail;
+    }
+
+    /**
+     * Añade varias líneas a un pedido en una sola operación: los productos se
+     * leen con una consulta, los detalles se insertan en lote y el total se
+     * actualiza una vez.
+     *
+     * @param quantities K=ID de Producto, V=Cantidad (en el orden de las líneas)
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public List<OrderDetail> addDetailsToOrder(Long orderId, Map<Long, Integer> quantities) {
+        Order order = findDraftOrder(orderId);
+        if (quantities.isEmpty()) {
+            throw new IllegalArgumentException("No se indicó ninguna línea.");
+        }
+
+        Map<Long, Product> products = new HashMap<>();
+        for (Product product : productRepository.findAllById(quantities.keySet())) {
+            products.put(product.getId(), product);
+        }
+
+        List<OrderDetail> details = new ArrayList<>(quantities.size());
+        BigDecimal delta = BigDecimal.ZERO;
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            Product product = products.get(line.getKey());
+            if (product == null) {
+                throw new RuntimeException("Product not found with id: " + line.getKey());
+            }
+            if (line.getValue() == null || line.getValue() <= 0) {
+                throw new IllegalArgumentException("La cantidad del producto " + line.getKey() + " debe ser mayor que 0.");
+            }
+            OrderDetail detail = newDetail(order, product, line.getValue());
+            details.add(detail);
+            delta = delta.add(lineTotal(detail));
+        }
+
+        List<OrderDetail> saved = orderDetailRepository.saveAll(details);
+        orderRepository.addToTotal(orderId, delta);
+        return saved;
+    }
+
+    /**
+     * Cambia la cantidad de una línea; el total se ajusta por la diferencia.
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public OrderDetail updateDetailQuantity(Long detailId, Integer quantity) {
+        if (quantity == null || quantity <= 0) {
+            throw new IllegalArgumentException("La cantidad (quantity) debe ser mayor que 0.");
+        }
+        OrderDetail detail = orderDetailRepository.findById(detailId)
+                .orElseThrow(() -> new RuntimeException("Order detail not found with id: " + detailId));
+        Long orderId = detail.getOrder().getId();
+        findDraftOrder(orderId);
+
+        BigDecimal before = lineTotal(detail);
+        detail.setQuantity(quantity);
+        OrderDetail saved = orderDetailRepository.save(detail);
+        orderRepository.addToTotal(orderId, lineTotal(saved).subtract(before));
+        Hibernate.initialize(saved.getProduct()); // la respuesta lo muestra fuera de la transacción
+        return saved;
+    }
+
+    /**
+     * Elimina una línea; su importe se resta del total.
+     *
+     * @return El ID del pedido al que pertenecía la línea.
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public Long removeDetail(Long detailId) {
+        OrderDetail detail = orderDetailRepository.findById(detailId)
+                .orElseThrow(() -> new RuntimeException("Order detail not found with id: " + detailId));
+        Long orderId = detail.getOrder().getId();
+        findDraftOrder(orderId);
+
+        BigDecimal amount = lineTotal(detail);
+        orderDetailRepository.delete(detail);
+        orderRepository.addToTotal(orderId, amount.negate());
+        return orderId;
+    }
+
+    private Order findDraftOrder(Long orderId) {
+        Order order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new RuntimeException("Order not found with id: " + orderId));
+
+        if (!"Draft".equals(order.getStatus())) {
+            throw new RuntimeException("No se pueden modificar los detalles de un pedido que ya está confirmado.");
+        }
+        return order;
+    }
+
+    private static OrderDetail newDetail(Order order, Product product, Integer quantity) {
         OrderDetail detail = new OrderDetail();
         detail.setOrder(order);
         detail.setProduct(product);
         detail.setQuantity(quantity);
         detail.setUnitPrice(product.getPrecioVenta());
-
-        // 3. Guardar el detalle
-        OrderDetail savedDetail = orderDetailRepository.save(detail);
-
-        orderService.recalculateOrderTotal(orderId);
-
-        return savedDetail;
+        return detail;
     }
 
-}
\ No newline at end of file
+    private static BigDecimal lineTotal(OrderDetail detail) {
+        return detail.getUnitPrice().multiply(BigDecimal.valueOf(detail.getQuantity()));
+    }
+}
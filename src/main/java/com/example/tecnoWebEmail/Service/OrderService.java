@@ -3,12 +3,15 @@ package com.example.tecnoWebEmail.Service;
 import com.example.tecnoWebEmail.Models.*;
 import com.example.tecnoWebEmail.Repository.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.Stream;
 
 @Service
 public class OrderService {
@@ -71,9 +74,9 @@ public class OrderService {
     }
 
     /**
-     * ¡NUEVO MÉTODO!
-     * Es llamado por OrderDetailService cada vez que se añade/elimina un detalle.
-     * Recalcula el monto total del pedido sumando sus detalles.
+     * Recalcula el monto total del pedido sumando todos sus detalles.
+     * OrderDetailService ya mantiene el total por diferencias; esto queda para
+     * corregir un pedido puntual.
      */
     @Transactional
     public void recalculateOrderTotal(Long orderId) {
@@ -93,6 +96,30 @@ public class OrderService {
         orderRepository.save(order);
     }
 
+    /**
+     * Verificación completa de totales: una sola consulta agregada encuentra los
+     * pedidos cuyo total no coincide con la suma de sus detalles y los corrige.
+     */
+    @Scheduled(cron = "${orders.verify-totals.cron:0 0 4 * * *}")
+    @Transactional
+    public int verifyOrderTotals() {
+        List<Object[]> mismatches = orderRepository.findTotalMismatches();
+        int fixed = 0;
+        for (Object[] row : mismatches) {
+            Long orderId = (Long) row[0];
+            // El total se recalcula en el UPDATE: un detalle agregado después de
+            // la consulta no se pierde, y si el total ya cambió se deja para la próxima
+            if (orderRepository.recomputeTotal(orderId, (BigDecimal) row[1]) == 0) {
+                System.err.println("Total del pedido " + orderId + " cambió durante la verificación, se omite");
+                continue;
+            }
+            System.err.println("Total del pedido " + orderId + " corregido: " + row[1] + " -> " + row[2]);
+            fixed++;
+        }
+        System.out.println("Verificación de totales: " + fixed + " pedidos corregidos");
+        return fixed;
+    }
+
     /**
      * ¡NUEVO MÉTODO!
      * Confirma el pedido, cambia el estado y crea las cuotas si es a crédito.
@@ -137,6 +164,19 @@ public class OrderService {
         return orderRepository.findAllWithClient();
     }
 
+    /**
+     * Página de LISORD: pedidos con id posterior a {@code after} (sólo las
+     * columnas del listado), leídos con un cursor y entregados uno a uno a {@code sink}.
+     */
+    @Transactional(readOnly = true)
+    public Keyset.Page forEachOrder(Long after, int limit, String status, String paymentState,
+                                    ObjIntConsumer<OrderRepository.ListRow> sink) {
+        try (Stream<OrderRepository.ListRow> rows = orderRepository.streamPage(after != null ? after : 0L,
+                status, paymentState, Keyset.lookahead(limit))) {
+            return Keyset.forEach(rows, limit, OrderRepository.ListRow::getId, sink);
+        }
+    }
+
     public List<Order> getOrdersByClientId(Long clientId) {
         Client client = clientRepository.findById(clientId)
                 .orElseThrow(() -> new RuntimeException("Client not found with id: " + clientId));
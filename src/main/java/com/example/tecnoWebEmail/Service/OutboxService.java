@@ -0,0 +1,234 @@
+package com.example.tecnoWebEmail.Service;
+
+import com.example.tecnoWebEmail.Models.OutboundEmail;
+import com.example.tecnoWebEmail.Repository.OutboundEmailRepository;
+import com.example.tecnoWebEmail.Service.service_email.ClientSMTP;
+import com.example.tecnoWebEmail.Service.service_email.EmailReply;
+import com.example.tecnoWebEmail.Service.service_email.MailMetrics;
+import com.example.tecnoWebEmail.Service.service_email.SmtpException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Outbox de respuestas: cada respuesta se guarda en la base de datos antes
+ * del DELE del correo entrante y se envía por SMTP desde aquí.
+ *
+ * El hilo que guarda la respuesta intenta enviarla de inmediato; si falla, el
+ * envío en segundo plano la reintenta con backoff exponencial hasta
+ * {@code maxAttempts} intentos, y luego la marca como DEAD. Un rechazo
+ * permanente del servidor (5xx) la descarta sin reintentar.
+ *
+ * Cada envío trabaja sobre una fila reservada (SENDING, con la reserva
+ * venciendo en next_attempt_at): la respuesta nueva nace reservada para el
+ * envío inmediato y el envío en segundo plano reserva cada fila con un UPDATE
+ * condicional antes de enviarla, así dos hilos no envían la misma respuesta.
+ * Si el hilo que la reservó muere, la fila se retoma al vencer la reserva.
+ */
+@Service
+public class OutboxService {
+
+    @Autowired
+    private OutboundEmailRepository outboundEmailRepository;
+
+    @Autowired
+    private ClientSMTP smtpClient;
+
+    @Autowired
+    private MailMetrics metrics;
+
+    @Autowired
+    private ProcessedMessageService processedMessageService;
+
+    @Value("${mail.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${mail.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${mail.outbox.backoff-base-ms:30000}")
+    private long backoffBaseMs;
+
+    @Value("${mail.outbox.backoff-max-ms:3600000}")
+    private long backoffMaxMs;
+
+    @Value("${mail.outbox.retention-days:7}")
+    private int retentionDays;
+
+    // Mayor que el tiempo de un envío (espera del pool SMTP + DATA)
+    @Value("${mail.outbox.lease-ms:300000}")
+    private long leaseMs;
+
+    private static final Set<OutboundEmail.Status> UNSENT =
+            EnumSet.of(OutboundEmail.Status.PENDING, OutboundEmail.Status.SENDING);
+
+    /**
+     * Guarda una respuesta pendiente, ya reservada para que el llamador la
+     * envíe con {@link #send}; el envío en segundo plano no la toca hasta que
+     * venza la reserva.
+     */
+    @Transactional
+    public OutboundEmail enqueue(String recipient, String subject, String body) {
+        return enqueue(recipient, subject, EmailReply.text(body));
+    }
+
+    /**
+     * Igual que {@link #enqueue(String, String, String)}, guardando también el
+     * adjunto de la respuesta si lo tiene.
+     */
+    @Transactional
+    public OutboundEmail enqueue(String recipient, String subject, EmailReply reply) {
+        return enqueue(recipient, subject, reply, null);
+    }
+
+    /**
+     * Guarda la respuesta a un correo y, si trae Message-ID, lo registra en la
+     * misma transacción: un repetido recibirá esta respuesta sin volver a
+     * ejecutar el comando.
+     */
+    @Transactional
+    public OutboundEmail enqueue(String recipient, String subject, EmailReply reply, String messageId) {
+        OutboundEmail email = new OutboundEmail(recipient, subject, reply.body(), leaseUntil());
+        email.setStatus(OutboundEmail.Status.SENDING);
+        if (reply.hasAttachment()) {
+            email.setAttachmentName(reply.attachment().fileName());
+            email.setAttachmentType(reply.attachment().contentType());
+            email.setAttachmentData(reply.attachment().data());
+        }
+        OutboundEmail saved = outboundEmailRepository.save(email);
+        if (messageId != null && !messageId.isBlank()) {
+            processedMessageService.recordReply(messageId, saved.getId());
+        }
+        return saved;
+    }
+
+    /**
+     * Contenido (cuerpo y adjunto) de una respuesta guardada.
+     */
+    public static EmailReply replyOf(OutboundEmail email) {
+        EmailReply.Attachment attachment = email.getAttachmentData() == null ? null
+                : new EmailReply.Attachment(email.getAttachmentName(), email.getAttachmentType(), email.getAttachmentData());
+        return new EmailReply(email.getBody(), attachment);
+    }
+
+    /**
+     * Intenta enviar una respuesta del outbox y registra el resultado.
+     * Devuelve true si se envió.
+     */
+    public boolean send(OutboundEmail email) {
+        try {
+            smtpClient.send(email.getRecipient(), email.getSubject(), email.getBody(), replyOf(email).attachment());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            try {
+                recordFailure(email, e);
+            } catch (RuntimeException saveError) {
+                // Base caída: la fila sigue pendiente y el envío en segundo plano la retoma
+                System.err.println("No se pudo registrar el fallo de envío a " + email.getRecipient()
+                        + ": " + saveError.getMessage());
+            }
+            return false;
+        }
+        email.setStatus(OutboundEmail.Status.SENT);
+        email.setSentAt(LocalDateTime.now());
+        email.setAttempts(email.getAttempts() + 1);
+        try {
+            outboundEmailRepository.save(email);
+        } catch (RuntimeException e) {
+            // El servidor ya aceptó el correo; si la fila queda pendiente se podría reenviar
+            System.err.println("Respuesta enviada a " + email.getRecipient()
+                    + " pero no se pudo marcar como enviada: " + e.getMessage());
+        }
+        return true;
+    }
+
+    private void recordFailure(OutboundEmail email, Exception error) {
+        int attempts = email.getAttempts() + 1;
+        email.setAttempts(attempts);
+        String message = error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+        email.setLastError(message.length() > 500 ? message.substring(0, 500) : message);
+
+        boolean permanent = error instanceof SmtpException && ((SmtpException) error).isPermanent();
+        if (permanent || attempts >= maxAttempts) {
+            email.setStatus(OutboundEmail.Status.DEAD);
+            metrics.recordOutboxDeadLetter();
+            System.err.println("Respuesta a " + email.getRecipient() + " descartada tras "
+                    + attempts + " intentos: " + email.getLastError());
+        } else {
+            long delay = Math.min(backoffMaxMs, backoffBaseMs << Math.min(attempts - 1, 20));
+            email.setStatus(OutboundEmail.Status.PENDING);
+            email.setNextAttemptAt(LocalDateTime.now().plusNanos(delay * 1_000_000));
+            metrics.recordOutboxRetry();
+            System.err.println("Fallo enviando respuesta a " + email.getRecipient()
+                    + " (intento " + attempts + "), se reintenta en " + delay + " ms");
+        }
+        outboundEmailRepository.save(email);
+    }
+
+    /**
+     * Envío en segundo plano: toma lotes de respuestas vencidas y las envía
+     * por las conexiones del pool SMTP. Si el servidor está caído se corta el
+     * lote para no gastar un intento de cada mensaje.
+     */
+    @Scheduled(fixedDelayString = "${mail.outbox.poll-interval-ms:15000}")
+    public void drain() {
+        List<OutboundEmail> due = outboundEmailRepository.findDue(
+                UNSENT, LocalDateTime.now(), PageRequest.of(0, batchSize));
+        int sent = 0;
+        for (OutboundEmail email : due) {
+            if (!claim(email)) {
+                continue; // otro hilo la tomó entre la consulta y ahora
+            }
+            if (send(email)) {
+                sent++;
+            } else if (email.getStatus() == OutboundEmail.Status.PENDING && sent == 0) {
+                break;
+            }
+        }
+        if (!due.isEmpty()) {
+            System.out.println("Outbox: " + sent + " de " + due.size() + " respuestas reenviadas");
+        }
+    }
+
+    // Reserva una fila leída por drain; false si cambió desde la consulta
+    private boolean claim(OutboundEmail email) {
+        LocalDateTime lease = leaseUntil();
+        int rows = outboundEmailRepository.claim(email.getId(), email.getStatus(), email.getNextAttemptAt(),
+                OutboundEmail.Status.SENDING, lease);
+        if (rows == 0) return false;
+        email.setStatus(OutboundEmail.Status.SENDING);
+        email.setNextAttemptAt(lease);
+        return true;
+    }
+
+    // Microsegundos: la precisión de timestamp en Postgres, para que la reserva se compare igual
+    private LocalDateTime leaseUntil() {
+        return LocalDateTime.now().plusNanos(leaseMs * 1_000_000).truncatedTo(ChronoUnit.MICROS);
+    }
+
+    public long countPending() {
+        return outboundEmailRepository.countByStatusIn(UNSENT);
+    }
+
+    /**
+     * Elimina las respuestas enviadas más antiguas (una vez al día).
+     */
+    @Scheduled(cron = "0 30 3 * * *")
+    @Transactional
+    public void purgeSent() {
+        int rows = outboundEmailRepository.deleteByStatusOlderThan(
+                OutboundEmail.Status.SENT, LocalDateTime.now().minusDays(retentionDays));
+        System.out.println("Outbox: " + rows + " respuestas enviadas eliminadas");
+    }
+}
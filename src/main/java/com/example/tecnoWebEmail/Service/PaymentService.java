@@ -1,11 +1,12 @@
 package com.example.tecnoWebEmail.Service;
 
 import com.example.tecnoWebEmail.Models.Installment;
-import com.example.tecnoWebEmail.Models.Order;
 import com.example.tecnoWebEmail.Models.Payment;
+import com.example.tecnoWebEmail.Repository.InstallmentRepository;
 import com.example.tecnoWebEmail.Repository.OrderRepository;
 import com.example.tecnoWebEmail.Repository.PaymentRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -13,6 +14,8 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.Stream;
 
 @Service
 public class PaymentService {
@@ -23,6 +26,9 @@ public class PaymentService {
     @Autowired
     private OrderRepository orderRepository;
 
+    @Autowired
+    private InstallmentRepository installmentRepository;
+
     @Autowired
     private InstallmentService installmentService;
 
@@ -31,6 +37,11 @@ public class PaymentService {
      * Este método es transaccional. Si falla la actualización del pedido,
      * el pago no se guardará.
      *
+     * Los totales pagados se mantienen por diferencias: cada pago suma su monto
+     * con un UPDATE atómico sobre el pedido (y la cuota), que bloquea la fila
+     * hasta el commit, en lugar de volver a sumar todos los pagos. La
+     * conciliación contra la tabla de pagos la hace {@link #reconcilePaymentTotals()}.
+     *
      * @param paymentData El objeto de pago (parcial) con el monto,
      * el ID del pedido (payment.getOrder().getId()) y
      * opcionalmente el ID de la cuota (payment.getInstallment().getId())
@@ -39,58 +50,52 @@ public class PaymentService {
     @Transactional(rollbackFor = Exception.class)
     public Payment createPayment(Payment paymentData) {
 
-        // 1. Validar y obtener el Pedido (Order)
+        // 1. Sumar el pago al Pedido (Order); 0 filas = no existe
         Long orderId = paymentData.getOrder().getId();
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new RuntimeException("Order not found with id: " + orderId));
-
-        // 2. Preparar el objeto Payment
-        paymentData.setOrder(order);
-        paymentData.setPaymentDate(LocalDateTime.now());
+        if (orderRepository.addPayment(orderId, paymentData.getAmount()) == 0) {
+            throw new RuntimeException("Order not found with id: " + orderId);
+        }
 
-        // 3. Validar y asignar la Cuota (Installment), si aplica
+        // 2. Sumar el abono a la Cuota (Installment), si aplica; también valida
+        // que la cuota pertenezca al pedido
+        Installment installment = null;
         if (paymentData.getInstallment() != null && paymentData.getInstallment().getId() != null) {
             Long installmentId = paymentData.getInstallment().getId();
+            installmentService.addPaymentToInstallment(installmentId, orderId, paymentData.getAmount());
+            installment = installmentRepository.getReferenceById(installmentId);
+        }
 
-            // Usamos el repositorio de Installment para buscarla
-            Installment installment = installmentService.getInstallmentById(installmentId)
-                    .orElseThrow(() -> new RuntimeException("Installment not found with id: " + installmentId));
+        // 3. Guardar el nuevo pago (referencias, sin volver a leer pedido ni cuota)
+        paymentData.setOrder(orderRepository.getReferenceById(orderId));
+        paymentData.setInstallment(installment);
+        paymentData.setPaymentDate(LocalDateTime.now());
+        return paymentRepository.save(paymentData);
+    }
 
-            // Validación de seguridad: Asegurar que la cuota pertenezca al pedido
-            if (!installment.getOrder().getId().equals(orderId)) {
-                throw new IllegalStateException("Installment does not belong to the specified order.");
+    /**
+     * Conciliación de totales pagados contra el libro de pagos: corrige los
+     * pedidos y cuotas cuyo monto pagado no coincide con la suma de sus pagos.
+     */
+    @Scheduled(cron = "${payments.reconcile.cron:0 30 4 * * *}")
+    @Transactional
+    public int reconcilePaymentTotals() {
+        List<Object[]> mismatches = orderRepository.findAmountPaidMismatches();
+        int orders = 0;
+        for (Object[] row : mismatches) {
+            Long orderId = (Long) row[0];
+            // La suma se recalcula en el UPDATE: un pago registrado después de la
+            // consulta no se pisa, y si el pagado ya cambió se deja para la próxima
+            if (orderRepository.recomputeAmountPaid(orderId, (BigDecimal) row[1]) == 0) {
+                System.err.println("Pagado del pedido " + orderId + " cambió durante la conciliación, se omite");
+                continue;
             }
-            paymentData.setInstallment(installment);
-        }
-
-        // 4. Guardar el nuevo pago
-        Payment savedPayment = paymentRepository.save(paymentData);
-
-        // 5. --- LÓGICA CLAVE: Actualizar el Pedido (Order) ---
-        // Recalculamos el total pagado para el pedido
-        BigDecimal newTotalPaidForOrder = paymentRepository.getTotalPaidForOrder(orderId);
-        order.setAmountPaid(newTotalPaidForOrder);
-
-        // Actualizamos el estado de PAGO del pedido
-        if (newTotalPaidForOrder.compareTo(order.getTotalAmount()) >= 0) {
-            order.setPaymentState("Paid");
-        } else if (newTotalPaidForOrder.compareTo(BigDecimal.ZERO) > 0) {
-            order.setPaymentState("Partial");
-        } else {
-            order.setPaymentState("Pending");
+            System.err.println("Pagado del pedido " + orderId + " corregido: " + row[1] + " -> " + row[2]);
+            orders++;
         }
-        orderRepository.save(order); // Guardar el estado actualizado del pedido
-
-        // 6. --- LÓGICA CLAVE: Actualizar la Cuota (Installment) ---
-        if (savedPayment.getInstallment() != null) {
-            // Llamamos al servicio de cuotas para que actualice su propio estado
-            installmentService.addPaymentToInstallment(
-                    savedPayment.getInstallment().getId(),
-                    savedPayment.getAmount()
-            );
-        }
-
-        return savedPayment;
+        int installments = installmentService.reconcileAmountsPaid();
+        System.out.println("Conciliación de pagos: " + orders + " pedidos y "
+                + installments + " cuotas corregidos");
+        return orders + installments;
     }
 
     // --- Métodos de Lectura ---
@@ -112,6 +117,19 @@ public class PaymentService {
         return paymentRepository.findAllWithDetails();
     }
 
+    /**
+     * Página de LISPAG: pagos con id posterior a {@code after}, leídos con un
+     * cursor y entregados uno a uno a {@code sink}.
+     */
+    @Transactional(readOnly = true)
+    public Keyset.Page forEachPayment(Long after, int limit, Long orderId, String paymentType,
+                                      ObjIntConsumer<Payment> sink) {
+        try (Stream<Payment> rows = paymentRepository.streamPage(after != null ? after : 0L,
+                orderId, paymentType, Keyset.lookahead(limit))) {
+            return Keyset.forEach(rows, limit, Payment::getId, sink);
+        }
+    }
+
     /**
      * Obtiene todos los pagos asociados a un ID de pedido.
      */
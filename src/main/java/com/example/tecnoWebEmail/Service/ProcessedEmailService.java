@@ -0,0 +1,55 @@
+package com.example.tecnoWebEmail.Service;
+
+import com.example.tecnoWebEmail.Models.ProcessedEmail;
+import com.example.tecnoWebEmail.Repository.ProcessedEmailRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+
+@Service
+public class ProcessedEmailService {
+
+    @Autowired
+    private ProcessedEmailRepository processedEmailRepository;
+
+    @Value("${mail.pop3.uid-retention-days:30}")
+    private int retentionDays;
+
+    /**
+     * Filtra los UIDs del buzón que ya fueron procesados en ciclos anteriores.
+     */
+    @Transactional(readOnly = true)
+    public Set<String> findProcessed(Collection<String> uids) {
+        if (uids.isEmpty()) {
+            return Collections.emptySet();
+        }
+        return processedEmailRepository.findExistingUids(uids);
+    }
+
+    /**
+     * Registra un UID como procesado. Debe llamarse antes del DELE.
+     */
+    @Transactional
+    public void markProcessed(String uid) {
+        if (!processedEmailRepository.existsByUid(uid)) {
+            processedEmailRepository.save(new ProcessedEmail(uid));
+        }
+    }
+
+    /**
+     * Elimina del índice los UIDs antiguos (una vez al día).
+     */
+    @Scheduled(cron = "0 0 3 * * *")
+    @Transactional
+    public void purgeOldEntries() {
+        int rows = processedEmailRepository.deleteOlderThan(LocalDateTime.now().minusDays(retentionDays));
+        System.out.println("Índice de correos procesados: " + rows + " UIDs antiguos eliminados");
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.tecnoWebEmail.Service;
+
+import com.example.tecnoWebEmail.Models.OutboundEmail;
+import com.example.tecnoWebEmail.Models.ProcessedMessage;
+import com.example.tecnoWebEmail.Repository.OutboundEmailRepository;
+import com.example.tecnoWebEmail.Repository.ProcessedMessageRepository;
+import com.example.tecnoWebEmail.Service.service_email.EmailReply;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Deduplicación de correos entrantes por Message-ID.
+ *
+ * Cada mensaje respondido queda en processed_messages junto con su respuesta
+ * del outbox. Delante de la tabla hay un filtro de Bloom en memoria: un
+ * mensaje nuevo (el caso normal) se descarta sin ir a la base, y sólo un
+ * "quizás" (repetido real o falso positivo) busca la fila por su clave.
+ *
+ * Las filas expiran a los {@code mail.dedup.retention-days} días. El filtro no
+ * admite borrados, así que se reconstruye desde la tabla al iniciar y después
+ * de cada purga; hasta la primera carga las consultas van directo a la base.
+ */
+@Service
+public class ProcessedMessageService {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+
+    @Autowired
+    private ProcessedMessageRepository processedMessageRepository;
+
+    @Autowired
+    private OutboundEmailRepository outboundEmailRepository;
+
+    @Value("${mail.dedup.retention-days:7}")
+    private int retentionDays;
+
+    @Value("${mail.dedup.expected-messages:100000}")
+    private int expectedMessages;
+
+    @Value("${mail.dedup.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    // null hasta la primera carga; se reemplaza entero al reconstruirlo
+    private BloomFilter filter;
+    // Claves registradas mientras se reconstruye el filtro (para no perderlas)
+    private List<MessageKey> addedWhileLoading;
+
+    /**
+     * Respuesta original de un mensaje ya procesado, o vacío si el Message-ID
+     * es nuevo.
+     */
+    @Transactional(readOnly = true)
+    public Optional<EmailReply> findReply(String messageId) {
+        MessageKey key = MessageKey.of(messageId);
+        if (!mightContain(key)) {
+            return Optional.empty();
+        }
+        return processedMessageRepository.findByMessageKey(key.hex()).map(this::originalReply);
+    }
+
+    /**
+     * Registra la respuesta guardada en el outbox para un Message-ID. Se llama
+     * dentro de la misma transacción que guarda la respuesta.
+     */
+    @Transactional
+    public void recordReply(String messageId, Long outboundEmailId) {
+        MessageKey key = MessageKey.of(messageId);
+        if (!processedMessageRepository.existsByMessageKey(key.hex())) {
+            processedMessageRepository.save(new ProcessedMessage(key.hex(), outboundEmailId));
+        }
+        add(key);
+    }
+
+    private EmailReply originalReply(ProcessedMessage processed) {
+        Optional<OutboundEmail> original = processed.getOutboundEmailId() == null ? Optional.empty()
+                : outboundEmailRepository.findById(processed.getOutboundEmailId());
+        if (original.isEmpty()) {
+            // La respuesta ya se purgó del outbox: igual no se vuelve a ejecutar
+            return EmailReply.text("Este mensaje ya fue procesado el "
+                    + processed.getProcessedAt().format(DATE_FORMATTER)
+                    + ". El comando no se volvió a ejecutar y la respuesta original ya no está disponible.\n");
+        }
+        return OutboxService.replyOf(original.get());
+    }
+
+    private synchronized boolean mightContain(MessageKey key) {
+        return filter == null || filter.mightContain(key.h1(), key.h2());
+    }
+
+    private synchronized void add(MessageKey key) {
+        if (filter != null) filter.add(key.h1(), key.h2());
+        if (addedWhileLoading != null) addedWhileLoading.add(key);
+    }
+
+    /**
+     * Carga el filtro con las claves existentes al iniciar la aplicación.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadFilter() {
+        rebuildFilter();
+    }
+
+    /**
+     * Elimina los mensajes antiguos y reconstruye el filtro (una vez al día).
+     */
+    @Scheduled(cron = "${mail.dedup.purge-cron:0 15 3 * * *}")
+    @Transactional
+    public void purgeOldEntries() {
+        int rows = processedMessageRepository.deleteOlderThan(LocalDateTime.now().minusDays(retentionDays));
+        System.out.println("Índice de Message-ID: " + rows + " mensajes antiguos eliminados");
+        rebuildFilter();
+    }
+
+    // Debe correr dentro de una transacción (streamKeys)
+    private void rebuildFilter() {
+        synchronized (this) {
+            addedWhileLoading = new ArrayList<>();
+        }
+        BloomFilter rebuilt = new BloomFilter(expectedMessages, falsePositiveRate);
+        try (Stream<String> keys = processedMessageRepository.streamKeys()) {
+            keys.forEach(hex -> {
+                MessageKey key = MessageKey.fromHex(hex);
+                rebuilt.add(key.h1(), key.h2());
+            });
+        }
+        synchronized (this) {
+            for (MessageKey key : addedWhileLoading) {
+                rebuilt.add(key.h1(), key.h2());
+            }
+            addedWhileLoading = null;
+            filter = rebuilt;
+        }
+        if (rebuilt.getCount() > expectedMessages) {
+            System.err.println("Índice de Message-ID: " + rebuilt.getCount() + " mensajes superan los "
+                    + expectedMessages + " previstos (mail.dedup.expected-messages); aumentan los falsos positivos");
+        }
+        System.out.println("Índice de Message-ID: filtro cargado con " + rebuilt.getCount() + " mensajes");
+    }
+
+    /**
+     * SHA-256 del Message-ID (sin espacios ni "<>" alrededor), en hex, y los
+     * dos hashes del filtro tomados de sus primeros 16 bytes.
+     */
+    record MessageKey(String hex, long h1, long h2) {
+
+        static MessageKey of(String messageId) {
+            String id = messageId.trim();
+            if (id.startsWith("<") && id.endsWith(">")) {
+                id = id.substring(1, id.length() - 1).trim();
+            }
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(id.getBytes(StandardCharsets.UTF_8));
+                return fromHex(HexFormat.of().formatHex(digest));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 no disponible", e);
+            }
+        }
+
+        static MessageKey fromHex(String hex) {
+            return new MessageKey(hex,
+                    Long.parseUnsignedLong(hex, 0, 16, 16),
+                    Long.parseUnsignedLong(hex, 16, 32, 16));
+        }
+    }
+}
@@ -10,6 +10,8 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.Stream;
 
 @Service
 public class ProductService {
@@ -34,6 +36,18 @@ public class ProductService {
         return productRepository.findAll();
     }
 
+    /**
+     * Página de LISPRO: productos con id posterior a {@code after}, leídos con un
+     * cursor y entregados uno a uno a {@code sink}.
+     */
+    @Transactional(readOnly = true)
+    public Keyset.Page forEachProduct(Long after, int limit, String name, ObjIntConsumer<Product> sink) {
+        try (Stream<Product> rows = productRepository.streamPage(after != null ? after : 0L,
+                Keyset.containsPattern(name), Keyset.lookahead(limit))) {
+            return Keyset.forEach(rows, limit, Product::getId, sink);
+        }
+    }
+
     public Optional<Product> getProductById(Long id) {
         return productRepository.findById(id);
     }
@@ -50,73 +64,50 @@ public class ProductService {
         return productRepository.save(product);
     }
 
-    // Operaciones de inventario
+    // Operaciones de inventario: el stock se cambia con un UPDATE atómico y el
+    // movimiento se inserta en la misma transacción
     @Transactional
     public ProductMovement registerProductEntry(Long productId, int quantity, String reason, Long referenceId) {
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new RuntimeException("Product not found with id: " + productId));
-        
-        // Crear movimiento
-        ProductMovement movement = new ProductMovement(
-                product,
-                ProductMovement.MovementType.ENTRY,
-                quantity,
-                referenceId,
-                reason
-        );
-        
-        // Actualizar stock
-        product.setStockActual(product.getStockActual() + quantity);
-        productRepository.save(product);
-        
-        return productMovementRepository.save(movement);
+        if (quantity <= 0) {
+            throw new RuntimeException("Quantity must be greater than zero");
+        }
+        if (productRepository.increaseStock(productId, quantity) == 0) {
+            throw new RuntimeException("Product not found with id: " + productId);
+        }
+        return saveMovement(productId, ProductMovement.MovementType.ENTRY, quantity, referenceId, reason);
     }
 
     @Transactional
     public ProductMovement registerProductExit(Long productId, int quantity, String reason, Long referenceId) {
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new RuntimeException("Product not found with id: " + productId));
-        
-        // Verificar stock suficiente
-        if (product.getStockActual() < quantity) {
+        if (quantity <= 0) {
+            throw new RuntimeException("Quantity must be greater than zero");
+        }
+        // Verificar stock suficiente y descontar en la misma sentencia
+        if (productRepository.decreaseStock(productId, quantity) == 0) {
+            Product product = productRepository.findById(productId)
+                    .orElseThrow(() -> new RuntimeException("Product not found with id: " + productId));
             throw new RuntimeException("Insufficient stock for product: " + product.getSku());
         }
-        
-        // Crear movimiento
-        ProductMovement movement = new ProductMovement(
-                product,
-                ProductMovement.MovementType.EXIT,
-                quantity,
-                referenceId,
-                reason
-        );
-        
-        // Actualizar stock
-        product.setStockActual(product.getStockActual() - quantity);
-        productRepository.save(product);
-        
-        return productMovementRepository.save(movement);
+        return saveMovement(productId, ProductMovement.MovementType.EXIT, quantity, referenceId, reason);
     }
 
     @Transactional
     public ProductMovement adjustStock(Long productId, int quantity, String reason) {
+        if (quantity < 0) {
+            throw new RuntimeException("Stock cannot be negative");
+        }
+        if (productRepository.setStock(productId, quantity) == 0) {
+            throw new RuntimeException("Product not found with id: " + productId);
+        }
+        return saveMovement(productId, ProductMovement.MovementType.ADJUSTMENT, quantity, null, reason);
+    }
+
+    private ProductMovement saveMovement(Long productId, ProductMovement.MovementType type, int quantity,
+                                         Long referenceId, String reason) {
+        // Se lee después del UPDATE para que el movimiento devuelva el stock nuevo
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new RuntimeException("Product not found with id: " + productId));
-        
-        // Crear movimiento de ajuste
-        ProductMovement movement = new ProductMovement(
-                product,
-                ProductMovement.MovementType.ADJUSTMENT,
-                quantity,
-                null,
-                reason
-        );
-        
-        // Actualizar stock
-        product.setStockActual(quantity);
-        productRepository.save(product);
-        
-        return productMovementRepository.save(movement);
+        return productMovementRepository.save(new ProductMovement(product, type, quantity, referenceId, reason));
     }
 
     // Consultas de movimientos
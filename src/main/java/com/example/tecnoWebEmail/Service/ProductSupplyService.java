@@ -6,15 +6,26 @@ import com.example.tecnoWebEmail.Models.Supply;
 import com.example.tecnoWebEmail.Models.SupplyMovement;
 import com.example.tecnoWebEmail.Repository.ProductRepository;
 import com.example.tecnoWebEmail.Repository.ProductSupplyRepository;
+import com.example.tecnoWebEmail.Repository.SupplyMovementRepository;
 import com.example.tecnoWebEmail.Repository.SupplyRepository;
+import com.example.tecnoWebEmail.Service.BomCache.Bom;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.Set;
 
 @Service
 public class ProductSupplyService {
@@ -29,7 +40,10 @@ public class ProductSupplyService {
     private SupplyRepository supplyRepository;
 
     @Autowired
-    private SupplyService supplyService;
+    private SupplyMovementRepository supplyMovementRepository;
+
+    @Autowired
+    private BomCache bomCache;
 
     @Transactional
     public ProductSupply addSupplyToProduct(Long productId, Long supplyId, BigDecimal requiredAmount) {
@@ -41,8 +55,17 @@ public class ProductSupplyService {
         Supply supply = supplyRepository.findById(supplyId)
                 .orElseThrow(() -> new RuntimeException("Insumo no encontrado con id: " + supplyId));
 
+        // Un sub-ensamble no puede terminar usando al producto que lo consume
+        Product madeFrom = supply.getProductoFabricado();
+        if (madeFrom != null && reachableProducts(madeFrom.getId()).contains(productId)) {
+            throw new RuntimeException("El insumo " + supply.getNombre() + " se fabrica a partir del producto "
+                    + productId + " (directa o indirectamente): la receta quedaría en ciclo");
+        }
+
         ProductSupply productSupply = new ProductSupply(product, supply, requiredAmount);
-        return productSupplyRepository.save(productSupply);
+        ProductSupply saved = productSupplyRepository.save(productSupply);
+        evictBom(productId);
+        return saved;
     }
 
     @Transactional
@@ -51,6 +74,34 @@ public class ProductSupplyService {
         if (rows == 0) {
             throw new RuntimeException("Relación producto-insumo no encontrada");
         }
+        evictBom(productId);
+    }
+
+    /**
+     * Marca un insumo como sub-ensamble fabricado con la receta de un producto
+     * (o lo vuelve a insumo comprado si {@code productId} es null).
+     */
+    @Transactional
+    public Supply setManufacturingProduct(Long supplyId, Long productId) {
+        Supply supply = supplyRepository.findById(supplyId)
+                .orElseThrow(() -> new RuntimeException("Insumo no encontrado con id: " + supplyId));
+        Product product = null;
+        if (productId != null) {
+            product = productRepository.findById(productId)
+                    .orElseThrow(() -> new RuntimeException("Producto no encontrado con id: " + productId));
+            // Ciclo si la receta del producto (en cualquier nivel) ya usa este insumo
+            for (Bom bom : getBoms(reachableProducts(productId)).values()) {
+                if (bom.indexOf(supplyId) >= 0) {
+                    throw new RuntimeException("La receta del producto " + productId
+                            + " ya usa el insumo " + supply.getNombre() + ": la receta quedaría en ciclo");
+                }
+            }
+        }
+        supply.setProductoFabricado(product);
+        Supply saved = supplyRepository.save(supply);
+        // Las líneas de receta guardan de qué producto se fabrica cada insumo
+        evictAllBoms();
+        return saved;
     }
 
     @Transactional
@@ -62,12 +113,141 @@ public class ProductSupplyService {
                 .findByProductIdAndSupplyIdFetch(productId, supplyId)
                 .orElseThrow(() -> new RuntimeException("Relación producto-insumo no encontrada"));
         ps.setRequiredAmount(newAmount);
-        return productSupplyRepository.save(ps);
+        ProductSupply saved = productSupplyRepository.save(ps);
+        evictBom(productId);
+        return saved;
+    }
+
+    /**
+     * Recetas de un nivel de los productos pedidos. Las que no están en caché se
+     * cargan con una sola consulta; los productos sin receta devuelven una vacía.
+     */
+    public Map<Long, Bom> getBoms(Collection<Long> productIds) {
+        Map<Long, Bom> result = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long productId : productIds) {
+            Bom bom = bomCache.get(productId);
+            if (bom != null) {
+                result.put(productId, bom);
+            } else {
+                missing.add(productId);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        // Antes de la consulta: una invalidación durante ella descarta lo leído
+        long generation = bomCache.generation();
+        Map<Long, List<Object[]>> rowsByProduct = new HashMap<>();
+        for (Object[] row : productSupplyRepository.findBomLinesByProductIds(missing)) {
+            rowsByProduct.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add(row);
+        }
+        for (Long productId : missing) {
+            List<Object[]> rows = rowsByProduct.getOrDefault(productId, List.of());
+            long[] relationIds = new long[rows.size()];
+            long[] supplyIds = new long[rows.size()];
+            long[] amounts = new long[rows.size()];
+            long[] manufacturedBy = new long[rows.size()];
+            for (int i = 0; i < rows.size(); i++) {
+                Object[] row = rows.get(i);
+                relationIds[i] = (Long) row[1];
+                supplyIds[i] = (Long) row[2];
+                amounts[i] = BomCache.scale((BigDecimal) row[3]);
+                manufacturedBy[i] = row[4] != null ? (Long) row[4] : 0L;
+            }
+            Bom bom = new Bom(relationIds, supplyIds, amounts, manufacturedBy);
+            bomCache.put(productId, bom, generation);
+            result.put(productId, bom);
+        }
+        return result;
+    }
+
+    public Bom getBom(Long productId) {
+        return getBoms(List.of(productId)).get(productId);
+    }
+
+    /**
+     * El producto y todos los que se fabrican para él en cualquier nivel de su receta.
+     */
+    public Set<Long> reachableProducts(Long productId) {
+        Set<Long> visited = new HashSet<>();
+        Deque<Long> pending = new ArrayDeque<>();
+        visited.add(productId);
+        pending.add(productId);
+        while (!pending.isEmpty()) {
+            List<Long> level = new ArrayList<>(pending);
+            pending.clear();
+            for (Bom bom : getBoms(level).values()) {
+                for (int i = 0; i < bom.size(); i++) {
+                    long child = bom.manufacturedBy(i);
+                    if (child != 0 && visited.add(child)) {
+                        pending.add(child);
+                    }
+                }
+            }
+        }
+        return visited;
+    }
+
+    private void evictBom(Long productId) {
+        bomCache.invalidate(productId);
+        // Otra vez al terminar la transacción (confirmada o no): entre medio una
+        // lectura pudo volver a cargar la receta anterior o una sin confirmar
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    bomCache.invalidate(productId);
+                }
+            });
+        }
     }
 
+    private void evictAllBoms() {
+        bomCache.invalidateAll();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    bomCache.invalidateAll();
+                }
+            });
+        }
+    }
+
+    /**
+     * Relaciones del producto armadas desde la receta en caché; los insumos se
+     * leen por id (una consulta) para tener nombre y stock actuales.
+     */
     @Transactional(readOnly = true)
     public List<ProductSupply> getSuppliesForProduct(Long productId) {
-        return productSupplyRepository.findAllByProductIdFetchAll(productId);
+        Bom bom = getBom(productId);
+        List<ProductSupply> relations = new ArrayList<>(bom.size());
+        if (bom.size() == 0) {
+            return relations;
+        }
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new RuntimeException("Producto no encontrado con id: " + productId));
+        Map<Long, Supply> supplies = loadSupplies(bom);
+        for (int i = 0; i < bom.size(); i++) {
+            Supply supply = supplies.get(bom.supplyId(i));
+            if (supply == null) continue;
+            ProductSupply relation = new ProductSupply(product, supply, bom.amount(i));
+            relation.setId(bom.relationId(i));
+            relations.add(relation);
+        }
+        return relations;
+    }
+
+    private Map<Long, Supply> loadSupplies(Bom bom) {
+        List<Long> ids = new ArrayList<>(bom.size());
+        for (int i = 0; i < bom.size(); i++) ids.add(bom.supplyId(i));
+        Map<Long, Supply> supplies = new HashMap<>();
+        for (Supply supply : supplyRepository.findAllById(ids)) {
+            supplies.put(supply.getId(), supply);
+        }
+        return supplies;
     }
 
     @Transactional(readOnly = true)
@@ -80,12 +260,14 @@ public class ProductSupplyService {
         if (quantity == null || quantity <= 0) {
             throw new RuntimeException("La cantidad debe ser mayor que cero");
         }
-        List<ProductSupply> supplies = productSupplyRepository.findAllByProductIdFetchAll(productId);
+        Bom bom = getBom(productId);
+        Map<Long, Supply> supplies = loadSupplies(bom);
 
-        Map<Supply, BigDecimal> requiredSupplies = new HashMap<>();
-        for (ProductSupply ps : supplies) {
-            BigDecimal totalRequired = ps.getRequiredAmount().multiply(BigDecimal.valueOf(quantity));
-            requiredSupplies.put(ps.getSupply(), totalRequired);
+        Map<Supply, BigDecimal> requiredSupplies = new LinkedHashMap<>();
+        for (int i = 0; i < bom.size(); i++) {
+            Supply supply = supplies.get(bom.supplyId(i));
+            if (supply == null) continue;
+            requiredSupplies.put(supply, required(bom, i, quantity));
         }
         return requiredSupplies;
     }
@@ -103,22 +285,48 @@ public class ProductSupplyService {
         return true;
     }
 
+    /**
+     * Descuenta los insumos de una producción en una sola operación: la receta se
+     * lee una vez, los insumos se bloquean en orden de id y los descuentos y
+     * movimientos se escriben juntos al hacer flush (en lotes JDBC).
+     */
     @Transactional
     public void consumeSuppliesForProduction(Long productId, Integer quantity, Long productionOrderId) {
-        if (!validateSuppliesAvailability(productId, quantity)) {
-            throw new RuntimeException("No hay suficientes insumos disponibles para la producción");
+        if (quantity == null || quantity <= 0) {
+            throw new RuntimeException("La cantidad debe ser mayor que cero");
         }
-        Map<Supply, BigDecimal> requiredSupplies = calculateRequiredSupplies(productId, quantity);
-        for (Map.Entry<Supply, BigDecimal> entry : requiredSupplies.entrySet()) {
-            Supply supply = entry.getKey();
-            BigDecimal required = entry.getValue();
-            supplyService.registerMovement(
-                supply.getId(),
-                SupplyMovement.MovementType.EXIT,
-                required,
-                productionOrderId,
-                "Consumo para producción de " + quantity + " unidades del producto " + productId
-            );
+        Bom bom = getBom(productId);
+        Map<Long, BigDecimal> required = new LinkedHashMap<>();
+        for (int i = 0; i < bom.size(); i++) {
+            required.put(bom.supplyId(i), required(bom, i, quantity));
         }
+        if (required.isEmpty()) {
+            return;
+        }
+
+        List<Supply> supplies = supplyRepository.findAllByIdForUpdate(required.keySet());
+        List<String> missing = new ArrayList<>();
+        for (Supply supply : supplies) {
+            if (supply.getStockActual().compareTo(required.get(supply.getId())) < 0) {
+                missing.add(supply.getNombre());
+            }
+        }
+        if (!missing.isEmpty()) {
+            throw new RuntimeException("No hay suficientes insumos disponibles para la producción: "
+                    + String.join(", ", missing));
+        }
+
+        String reason = "Consumo para producción de " + quantity + " unidades del producto " + productId;
+        List<SupplyMovement> movements = new ArrayList<>(supplies.size());
+        for (Supply supply : supplies) {
+            BigDecimal amount = required.get(supply.getId());
+            supply.setStockActual(supply.getStockActual().subtract(amount));
+            movements.add(new SupplyMovement(supply, SupplyMovement.MovementType.EXIT, amount, productionOrderId, reason));
+        }
+        supplyMovementRepository.saveAll(movements);
+    }
+
+    private static BigDecimal required(Bom bom, int index, int quantity) {
+        return BigDecimal.valueOf(Math.multiplyExact(bom.scaledAmount(index), (long) quantity), BomCache.AMOUNT_SCALE);
     }
 }
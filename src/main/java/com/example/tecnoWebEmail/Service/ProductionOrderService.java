@@ -52,7 +52,7 @@ public class ProductionOrderService {
         return productionOrderRepository.save(productionOrder);
     }
 
-    public Optional<ProductionOrder> getProductionOrderWithDetails(Long id) {
-        return productionOrderRepository.findByIdWithDetails(id);
+    public Optional<ProductionOrderRepository.Summary> getProductionOrderSummary(Long id) {
+        return productionOrderRepository.findSummaryById(id);
     }
 }
\ No newline at end of file
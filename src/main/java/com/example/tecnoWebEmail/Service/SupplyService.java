@@ -12,6 +12,8 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.Stream;
 
 @Service
 public class SupplyService {
@@ -46,6 +48,18 @@ public class SupplyService {
         return supplyRepository.findAll();
     }
 
+    /**
+     * Página de LISSUP: insumos con id posterior a {@code after}, leídos con un
+     * cursor y entregados uno a uno a {@code sink}.
+     */
+    @Transactional(readOnly = true)
+    public Keyset.Page forEachSupply(Long after, int limit, String name, ObjIntConsumer<Supply> sink) {
+        try (Stream<Supply> rows = supplyRepository.streamPage(after != null ? after : 0L,
+                Keyset.containsPattern(name), Keyset.lookahead(limit))) {
+            return Keyset.forEach(rows, limit, Supply::getId, sink);
+        }
+    }
+
     public Optional<Supply> getSupplyById(Long id) {
         return supplyRepository.findById(id);
     }
@@ -86,40 +100,9 @@ public class SupplyService {
 
     @Transactional
     public Supply adjustStock(Long id, BigDecimal quantity, boolean isAddition, String reason) {
-        Supply supply = supplyRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Insumo no encontrado con id: " + id));
-
-        if (quantity == null || quantity.compareTo(BigDecimal.ZERO) <= 0) {
-            throw new RuntimeException("La cantidad debe ser mayor que cero");
-        }
-
-        BigDecimal newStock;
-        SupplyMovement.MovementType movementType;
-
-        if (isAddition) {
-            newStock = supply.getStockActual().add(quantity);
-            movementType = SupplyMovement.MovementType.ENTRY;
-        } else {
-            if (supply.getStockActual().compareTo(quantity) < 0) {
-                throw new RuntimeException("Stock insuficiente");
-            }
-            newStock = supply.getStockActual().subtract(quantity);
-            movementType = SupplyMovement.MovementType.EXIT;
-        }
-
-        // Crear y guardar el movimiento
-        SupplyMovement movement = new SupplyMovement(
-            supply,
-            movementType,
-            quantity,
-            null, // referenceId no necesario para ajustes manuales
-            reason
-        );
-        supplyMovementRepository.save(movement);
-
-        // Actualizar el stock
-        supply.setStockActual(newStock);
-        return supplyRepository.save(supply);
+        return registerMovement(id,
+                isAddition ? SupplyMovement.MovementType.ENTRY : SupplyMovement.MovementType.EXIT,
+                quantity, null, reason); // referenceId no necesario para ajustes manuales
     }
 
     @Transactional(readOnly = true)
@@ -129,6 +112,21 @@ public class SupplyService {
         return supplyMovementRepository.findBySupplyOrderByDateDesc(supply);
     }
 
+    /**
+     * Página de MOVSUP: movimientos del insumo, recientes primero, con id
+     * anterior a {@code before} (null = desde el último).
+     */
+    @Transactional(readOnly = true)
+    public Keyset.Page forEachMovement(Long supplyId, Long before, int limit, ObjIntConsumer<SupplyMovement> sink) {
+        if (!supplyRepository.existsById(supplyId)) {
+            throw new RuntimeException("Insumo no encontrado con id: " + supplyId);
+        }
+        try (Stream<SupplyMovement> rows = supplyMovementRepository.streamPageBySupply(supplyId,
+                before != null ? before : Long.MAX_VALUE, Keyset.lookahead(limit))) {
+            return Keyset.forEach(rows, limit, SupplyMovement::getId, sink);
+        }
+    }
+
     @Transactional(readOnly = true)
     public List<SupplyMovement> getMovementsByType(SupplyMovement.MovementType movementType) {
         return supplyMovementRepository.findByMovementType(movementType);
@@ -147,44 +145,43 @@ public class SupplyService {
     @Transactional
     public Supply registerMovement(Long supplyId, SupplyMovement.MovementType movementType, 
                                  BigDecimal quantity, Long referenceId, String reason) {
-        Supply supply = supplyRepository.findById(supplyId)
-                .orElseThrow(() -> new RuntimeException("Insumo no encontrado con id: " + supplyId));
-
         if (quantity == null || quantity.compareTo(BigDecimal.ZERO) <= 0) {
             throw new RuntimeException("La cantidad debe ser mayor que cero");
         }
 
-        BigDecimal newStock;
-        
+        // El stock se cambia con un único UPDATE; en las salidas la condición
+        // stock >= cantidad la evalúa la base de datos, sin leer antes el insumo
+        int updated;
         switch (movementType) {
             case ENTRY:
-                newStock = supply.getStockActual().add(quantity);
+                updated = supplyRepository.increaseStock(supplyId, quantity);
                 break;
             case EXIT:
-                if (supply.getStockActual().compareTo(quantity) < 0) {
+                updated = supplyRepository.decreaseStock(supplyId, quantity);
+                if (updated == 0 && supplyRepository.existsById(supplyId)) {
                     throw new RuntimeException("Stock insuficiente");
                 }
-                newStock = supply.getStockActual().subtract(quantity);
                 break;
             case ADJUSTMENT:
-                newStock = quantity; // En ajuste, la cantidad es el nuevo valor del stock
+                updated = supplyRepository.setStock(supplyId, quantity); // En ajuste, la cantidad es el nuevo valor del stock
                 break;
             default:
                 throw new RuntimeException("Tipo de movimiento no válido");
         }
+        if (updated == 0) {
+            throw new RuntimeException("Insumo no encontrado con id: " + supplyId);
+        }
 
-        // Crear y guardar el movimiento
-        SupplyMovement movement = new SupplyMovement(
+        // Movimiento en la misma transacción; el insumo se lee ya actualizado
+        Supply supply = supplyRepository.findById(supplyId)
+                .orElseThrow(() -> new RuntimeException("Insumo no encontrado con id: " + supplyId));
+        supplyMovementRepository.save(new SupplyMovement(
             supply,
             movementType,
             quantity,
             referenceId,
             reason
-        );
-        supplyMovementRepository.save(movement);
-
-        // Actualizar el stock
-        supply.setStockActual(newStock);
-        return supplyRepository.save(supply);
+        ));
+        return supply;
     }
 }
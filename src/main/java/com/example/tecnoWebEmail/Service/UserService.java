@@ -12,6 +12,8 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.Stream;
 
 @Service
 public class UserService {
@@ -97,6 +99,18 @@ public class UserService {
         return userRepository.findAll();
     }
 
+    /**
+     * Página de LISUSU: usuarios con id posterior a {@code after} (sólo las
+     * columnas del listado), leídos con un cursor y entregados uno a uno a {@code sink}.
+     */
+    @Transactional(readOnly = true)
+    public Keyset.Page forEachUser(Long after, int limit, String role, ObjIntConsumer<UserRepository.ListRow> sink) {
+        try (Stream<UserRepository.ListRow> rows = userRepository.streamPage(after != null ? after : 0L,
+                role, Keyset.lookahead(limit))) {
+            return Keyset.forEach(rows, limit, UserRepository.ListRow::getId, sink);
+        }
+    }
+
     public Optional<User> getUserById(Long id) {
         return userRepository.findById(id);
     }
@@ -1,16 +1,27 @@
 package com.example.tecnoWebEmail.Service.service_email;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import com.example.tecnoWebEmail.Commands.CommandProcessor;
+import com.example.tecnoWebEmail.Service.ProcessedEmailService;
+import com.example.tecnoWebEmail.Service.ProcessedMessageService;
+import com.example.tecnoWebEmail.Service.service_email.EmailHeaderParser.EmailHeaders;
 
 import java.io.*;
-import java.net.Socket;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
-import jakarta.mail.internet.MimeUtility;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class ClientPOP {
@@ -19,219 +30,345 @@ public class ClientPOP {
     private String USER = "";
     private String PASSWORD = "";
 
-    private Socket connection;
-    private BufferedReader input;
-    private DataOutputStream output;
+    private final Pop3Session session;
+    private final MailMetrics metrics;
+    private final int checkpointEvery;
+    private final long pipelineWaitMs;
 
     private CommandProcessor commandProcessor;
-    private ClientSMTP smtpClient;
+    private ProcessedEmailService processedEmailService;
+    private ProcessedMessageService processedMessageService;
+    private CommandPipeline pipeline;
+
+    // Mensajes de la sesión actual que están en el pipeline esperando su DELE
+    private final Set<InboundEmail> inFlight = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    // Respuestas ya calculadas que no se pudieron guardar en el outbox, por UID.
+    // El mensaje queda en el buzón sin marcar: en el próximo ciclo se reintenta
+    // guardar esta respuesta en lugar de ejecutar el comando otra vez
+    private final Map<String, InboundEmail> unreplied = new HashMap<>();
 
     @Autowired
-    public ClientPOP(CommandProcessor commandProcessor) {
+    public ClientPOP(CommandProcessor commandProcessor,
+                     ProcessedEmailService processedEmailService,
+                     ProcessedMessageService processedMessageService,
+                     CommandPipeline pipeline,
+                     MailMetrics metrics,
+                     @Value("${mail.pop3.max-session-age-ms:120000}") long maxSessionAgeMs,
+                     @Value("${mail.pop3.checkpoint-every:25}") int checkpointEvery,
+                     @Value("${mail.pop3.pipeline-wait-ms:300000}") long pipelineWaitMs,
+                     @Value("${mail.pop3.backoff-base-ms:1000}") long backoffBaseMs,
+                     @Value("${mail.pop3.backoff-max-ms:300000}") long backoffMaxMs) {
         this.HOST = "mail.tecnoweb.org.bo";
         this.USER = "grupo21sa";
         this.PASSWORD = "grup021grup021*";
         this.commandProcessor = commandProcessor;
-        this.smtpClient = new ClientSMTP();
-    }
-
-    public void connect() throws Exception {
-        connection = new Socket(HOST, PORT);
-        input = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-        output = new DataOutputStream(connection.getOutputStream());
-        System.out.println("S: " + input.readLine());
-    }
-
-    public void close() throws IOException {
-        if (this.connection != null) this.connection.close();
-        if (this.input != null) this.input.close();
-        if (this.output != null) this.output.close();
+        this.processedEmailService = processedEmailService;
+        this.processedMessageService = processedMessageService;
+        this.pipeline = pipeline;
+        this.metrics = metrics;
+        this.checkpointEvery = Math.max(1, checkpointEvery);
+        this.pipelineWaitMs = Math.max(1000, pipelineWaitMs);
+        this.session = new Pop3Session(HOST, PORT, USER, PASSWORD,
+                maxSessionAgeMs, backoffBaseMs, backoffMaxMs, metrics);
     }
 
-    public void login() throws IOException {
-        sendCommand("USER " + USER + "\r\n");
-        sendCommand("PASS " + PASSWORD + "\r\n");
-        System.out.println("Login exitoso");
-    }
-
-    public void checkAndProcessEmails() throws IOException {
-        // Obtener número de mensajes
-        String statResponse = sendCommand("STAT\r\n");
-        int messageCount = extractMessageCount(statResponse);
+    public void checkAndProcessEmails() throws IOException, InterruptedException {
+        while (true) {
+            // UIDL: número de mensaje + identificador único
+            List<Pop3Session.MessageRef> messages = session.listMessages();
+            System.out.println("Número de mensajes: " + messages.size());
+
+            // Una sola consulta para saber cuáles ya se procesaron antes
+            List<String> uids = new ArrayList<>();
+            for (Pop3Session.MessageRef ref : messages) {
+                if (ref.uid() != null) uids.add(ref.uid());
+            }
+            Set<String> processed = processedEmailService.findProcessed(uids);
+            unreplied.keySet().retainAll(uids); // los que ya no están en el buzón
+
+            // Etapa de lectura: como máximo 'checkpointEvery' mensajes por sesión
+            int handled = 0;
+            for (Pop3Session.MessageRef ref : messages) {
+                if (handled >= checkpointEvery) break;
+                InboundEmail pending = ref.uid() != null ? unreplied.remove(ref.uid()) : null;
+                if (pending != null) {
+                    retryReply(ref, pending);
+                } else if (ref.uid() != null && processed.contains(ref.uid())) {
+                    // Ya se ejecutó en un ciclo que no alcanzó a confirmar el DELE
+                    System.out.println("Mensaje ya procesado (UID " + ref.uid() + "), sólo se elimina");
+                    session.delete(ref.number());
+                } else {
+                    fetchMessage(ref);
+                }
+                handled++;
+                applyCompleted(0);
+            }
 
-        System.out.println("Número de mensajes: " + messageCount);
+            // Esperar a que el pipeline termine con todo lo leído en esta sesión
+            awaitPipeline();
 
-        // Procesar cada mensaje
-        for (int i = 1; i <= messageCount; i++) {
-            processMessage(i);
+            // Checkpoint: QUIT confirma los DELE; si quedan mensajes se reabre la sesión
+            if (session.getPendingDeletes() > 0) {
+                session.checkpoint();
+                if (messages.size() > handled) {
+                    session.ensureOpen();
+                    continue;
+                }
+            }
+            return;
         }
     }
 
-    private void processMessage(int messageNumber) throws IOException {
-        // Obtener el mensaje completo
-        String emailContent = sendCommand("RETR " + messageNumber + "\r\n");
-
-        // Extraer información del correo
-        EmailInfo emailInfo = parseEmail(emailContent); // <--- ESTO AHORA FUNCIONARÁ
-
-        if (emailInfo != null && emailInfo.subject != null && !emailInfo.subject.trim().isEmpty()) {
-            System.out.println("Procesando comando: " + emailInfo.subject);
-
-            // Procesar el comando
-            System.out.println("DEBUG: Llamando al CommandProcessor...");
-            String response;
-            try {
-                response = commandProcessor.processCommand(emailInfo.subject, emailInfo.from);
-                System.out.println("DEBUG: Respuesta del CommandProcessor recibida: " + (response != null ? response.substring(0, Math.min(100, response.length())) + "..." : "null"));
-            } catch (Exception e) {
-                System.out.println("DEBUG: ERROR en CommandProcessor: " + e.getMessage());
-                e.printStackTrace();
-                response = "Error interno al procesar comando";
+    /**
+     * Lee los encabezados del mensaje y lo entrega al pipeline de comandos.
+     */
+    private void fetchMessage(Pop3Session.MessageRef ref) throws IOException, InterruptedException {
+        int messageNumber = ref.number();
+        // Sólo los encabezados (TOP n 0): el comando viaja en el Subject y así
+        // no se descargan adjuntos grandes
+        String status = session.sendCommand("TOP " + messageNumber + " 0\r\n");
+        boolean fullMessage = false;
+        if (!status.startsWith("+OK")) {
+            // TOP es opcional en POP3: si el servidor no lo soporta se usa RETR
+            status = session.sendCommand("RETR " + messageNumber + "\r\n");
+            fullMessage = true;
+        }
+        if (!status.startsWith("+OK")) {
+            System.err.println("No se pudo obtener el mensaje " + messageNumber + ": " + status);
+            return;
+        }
+        // Los encabezados se leen directo del socket; el cuerpo no se guarda
+        Pop3LineReader reader = session.multilineReader();
+        EmailHeaders headers = EmailHeaderParser.parse(reader);
+        String body = null;
+
+        // Mismo Message-ID que un mensaje ya respondido: se reenvía la respuesta
+        // original sin ejecutar el comando otra vez
+        if (headers.getMessageId() != null) {
+            Optional<EmailReply> original = processedMessageService.findReply(headers.getMessageId());
+            if (original.isPresent()) {
+                reader.drain();
+                replyDuplicate(ref, headers, original.get());
+                return;
             }
-
-            // Enviar respuesta por SMTP
-            System.out.println("DEBUG: Iniciando envío de respuesta por SMTP...");
-            System.out.println("DEBUG: Host SMTP = " + smtpClient.getServer() + ", Port = " + smtpClient.getPort());
-            smtpClient.sendEmail(emailInfo.from, "Re: " + emailInfo.subject, response);
-
-            System.out.println("Respuesta enviada a: " + emailInfo.from);
         }
 
-        // Marcar mensaje para eliminación después de procesarlo
-        sendCommand("DELE " + messageNumber + "\r\n");
-    }
-
-    // --- MÉTODO CORREGIDO ---
-    // Este método ahora maneja encabezados "doblados" (multi-línea)
-    private EmailInfo parseEmail(String emailContent) {
-        EmailInfo info = new EmailInfo();
-        String currentHeader = null;
-        StringBuilder headerValue = new StringBuilder();
-        String[] lines = emailContent.split("\n");
-
-        for (String line : lines) {
-            // Si la línea está vacía, terminaron los encabezados.
-            if (line.trim().isEmpty()) {
-                if (currentHeader != null) {
-                    break;
+        if (headers.getSubject() != null && commandProcessor.requiresAttachment(headers.getSubject())) {
+            if (!fullMessage) {
+                reader.drain();
+                String retrStatus = session.sendCommand("RETR " + messageNumber + "\r\n");
+                if (!retrStatus.startsWith("+OK")) {
+                    System.err.println("No se pudo obtener el mensaje " + messageNumber + ": " + retrStatus);
+                    return;
                 }
-                continue;
+                reader = session.multilineReader();
+                EmailHeaderParser.parse(reader); // saltar encabezados
             }
+            importAttachment(ref, headers, reader);
+            return;
+        }
 
-            if (line.startsWith("From: ") || line.startsWith("Subject: ")) {
-                if (currentHeader != null) {
-                    processHeader(info, currentHeader, headerValue.toString().trim());
-                }
-
-                if (line.startsWith("From: ")) {
-                    currentHeader = "From";
-                    headerValue = new StringBuilder(line.substring(6));
-                } else {
-                    currentHeader = "Subject";
-                    headerValue = new StringBuilder(line.substring(9));
-                }
-            }
-            // Detectar una línea "doblada" (continúa el encabezado anterior)
-            else if (line.startsWith(" ") || line.startsWith("\t")) {
-                if (currentHeader != null) {
-                    headerValue.append(" ").append(line.trim());
+        // RETR completo únicamente si el comando necesita el cuerpo del correo
+        if (headers.getSubject() != null && commandProcessor.requiresMessageBody(headers.getSubject())) {
+            if (!fullMessage) {
+                reader.drain();
+                String retrStatus = session.sendCommand("RETR " + messageNumber + "\r\n");
+                if (!retrStatus.startsWith("+OK")) {
+                    System.err.println("No se pudo obtener el mensaje " + messageNumber + ": " + retrStatus);
+                    return;
                 }
+                reader = session.multilineReader();
+                EmailHeaderParser.parse(reader); // saltar encabezados
             }
+            // Texto plano del cuerpo (decodificado y sin las demás partes MIME)
+            body = MimeText.plainText(headers.getContentType(), headers.getTransferEncoding(), reader.readRemaining());
+        } else {
+            reader.drain();
         }
 
-        // Asegurarse de guardar el último encabezado que se estaba procesando
-        if (currentHeader != null && info.subject == null) {
-            processHeader(info, currentHeader, headerValue.toString().trim());
+        String subject = headers.getSubject();
+        if (subject == null || subject.trim().isEmpty()) {
+            // Sin comando: no hay nada que responder
+            markAndDelete(messageNumber, ref.uid());
+            return;
         }
 
-        return info;
+        System.out.println("Procesando comando: " + subject);
+        InboundEmail email = new InboundEmail(messageNumber, ref.uid(), headers.getFrom(), subject, body,
+                headers.getMessageId());
+        offerCommand(email);
     }
 
-    // Ayudante para asignar los valores de encabezado a la clase EmailInfo
-    private void processHeader(EmailInfo info, String headerName, String headerValue) {
-        if ("From".equals(headerName)) {
-            info.from = extractEmailAddress(headerValue);
-        } else if ("Subject".equals(headerName)) {
-            try {
-                info.subject = MimeUtility.decodeText(headerValue);
-            } catch (UnsupportedEncodingException e) {
-                // Si falla la decodificación, usamos el valor crudo
-                System.err.println("Error decoding subject, using raw value: " + e.getMessage());
-                info.subject = headerValue;
+    /**
+     * Comandos de importación CSV: el adjunto decodificado se copia a un
+     * archivo temporal mientras se lee del socket (sin cargarlo en memoria) y
+     * el correo sigue por la cola de comandos como cualquier otro. Así la
+     * importación corre en el hilo escritor de CommandExecutor, con su
+     * timeout, y la sesión POP3 no queda esperando las inserciones.
+     */
+    private void importAttachment(Pop3Session.MessageRef ref, EmailHeaders headers, Pop3LineReader reader)
+            throws IOException, InterruptedException {
+        String subject = headers.getSubject();
+        System.out.println("Procesando importación: " + subject);
+        Path csvFile = null;
+        try {
+            Reader csv = MimeAttachmentReader.openCsv(reader, headers);
+            if (csv != null) {
+                csvFile = Files.createTempFile("import-", ".csv");
+                try (Writer out = Files.newBufferedWriter(csvFile, StandardCharsets.UTF_8)) {
+                    csv.transferTo(out);
+                }
             }
+        } catch (IOException e) {
+            if (csvFile != null) Files.deleteIfExists(csvFile);
+            throw e;
+        } finally {
+            // Resto del mensaje (otras partes después del CSV)
+            reader.drain();
         }
-    }
 
-
-    private String extractEmailAddress(String fromField) {
-        // Extraer email de campos como "Name <email@domain.com>" o "email@domain.com"
-        Pattern emailPattern = Pattern.compile("<(.+?)>|([\\w.-]+@[\\w.-]+\\.[a-zA-Z]+)");
-        Matcher matcher = emailPattern.matcher(fromField);
-        if (matcher.find()) {
-            return matcher.group(1) != null ? matcher.group(1) : matcher.group(2);
+        InboundEmail email = new InboundEmail(ref.number(), ref.uid(), headers.getFrom(), subject, null,
+                headers.getMessageId());
+        email.setAttachment(csvFile);
+        try {
+            offerCommand(email);
+        } catch (InterruptedException e) {
+            if (csvFile != null) Files.deleteIfExists(csvFile); // no llegó al pipeline
+            throw e;
         }
-        return fromField.trim();
     }
 
-    private int extractMessageCount(String statResponse) {
-        Pattern pattern = Pattern.compile("\\+OK (\\d+)");
-        Matcher matcher = pattern.matcher(statResponse);
-        if (matcher.find()) {
-            return Integer.parseInt(matcher.group(1));
+    private void offerCommand(InboundEmail email) throws IOException, InterruptedException {
+        // Backpressure: si la cola está llena se esperan completados mientras tanto
+        while (!pipeline.offer(email, 200, TimeUnit.MILLISECONDS)) {
+            applyCompleted(0);
         }
-        return 0;
+        inFlight.add(email);
+        metrics.setInFlight(inFlight.size());
     }
 
-    private String sendCommand(String command) throws IOException {
-        this.output.writeBytes(command);
+    /**
+     * Mensaje repetido: la respuesta original va directo a la etapa de envío
+     * (sin Message-ID, porque ya está registrado) y luego se hace el DELE.
+     */
+    private void replyDuplicate(Pop3Session.MessageRef ref, EmailHeaders headers, EmailReply original)
+            throws IOException, InterruptedException {
+        System.out.println("Mensaje repetido (Message-ID " + headers.getMessageId() + "), se reenvía la respuesta original");
+        metrics.recordDuplicateMessage();
+        InboundEmail email = new InboundEmail(ref.number(), ref.uid(), headers.getFrom(), headers.getSubject(), null, null);
+        email.setReply(original);
+        offerReply(email);
+    }
 
-        if (command.startsWith("RETR") || command.startsWith("LIST")) {
-            return readMultilineResponse(input);
-        }
+    /**
+     * Respuesta calculada en un ciclo anterior que no llegó al outbox: se
+     * vuelve a encolar para guardarla, sin ejecutar el comando otra vez.
+     */
+    private void retryReply(Pop3Session.MessageRef ref, InboundEmail previous)
+            throws IOException, InterruptedException {
+        System.out.println("Reintentando guardar la respuesta del mensaje UID " + ref.uid());
+        InboundEmail email = new InboundEmail(ref.number(), ref.uid(), previous.getFrom(), previous.getSubject(),
+                null, previous.getMessageId());
+        email.setReply(previous.getReply());
+        offerReply(email);
+    }
 
-        return this.input.readLine();
+    // Entrega un correo con respuesta ya calculada directo a la etapa de envío
+    private void offerReply(InboundEmail email) throws IOException, InterruptedException {
+        while (!pipeline.offerReply(email, 200, TimeUnit.MILLISECONDS)) {
+            applyCompleted(0);
+        }
+        inFlight.add(email);
+        metrics.setInFlight(inFlight.size());
     }
 
-    static protected String readMultilineResponse(BufferedReader text) throws IOException {
-        StringBuilder lines = new StringBuilder();
-        // Leemos la primera línea de respuesta (ej: +OK)
-        lines.append(text.readLine());
+    /**
+     * Aplica los resultados del pipeline en la sesión POP3: el DELE se hace
+     * sólo si la respuesta quedó guardada en el outbox.
+     */
+    private void applyCompleted(long waitMillis) throws IOException, InterruptedException {
+        InboundEmail email = pipeline.pollCompleted(waitMillis, TimeUnit.MILLISECONDS);
+        while (email != null) {
+            boolean currentSession = inFlight.remove(email);
+            metrics.setInFlight(inFlight.size());
+            if (email.isReplyQueued() && !currentSession) {
+                // Abandonado por awaitPipeline: su número de mensaje ya no es válido;
+                // con el UID registrado el próximo ciclo lo elimina
+                if (email.getUid() != null) {
+                    processedEmailService.markProcessed(email.getUid());
+                }
+            } else if (email.isReplyQueued()) {
+                markAndDelete(email.getMessageNumber(), email.getUid());
+            } else {
+                // El comando ya se ejecutó pero la respuesta no quedó en el outbox: no
+                // se marca el UID (eso haría que el próximo ciclo lo borre sin
+                // responder); se guarda la respuesta para reintentarla
+                if (email.getUid() != null) {
+                    unreplied.put(email.getUid(), email);
+                }
+                System.err.println("No se pudo guardar la respuesta para " + email.getFrom()
+                        + "; el mensaje no se elimina y se reintentará en el próximo ciclo");
+            }
+            email = pipeline.pollCompleted(0, TimeUnit.MILLISECONDS);
+        }
+    }
 
-        while (true) {
-            String line = text.readLine();
-            if (line == null)
-                throw new IOException("S: Server unawares closed the connection");
-            if (line.equals(".")) // Fin del mensaje
-                break;
-            if (line.startsWith(".")) // "Byte stuffing"
-                line = line.substring(1);
-            lines.append("\n").append(line);
-        }
-        return lines.toString();
+    /**
+     * Espera a que el pipeline termine con los mensajes de esta sesión, como
+     * máximo {@code mail.pop3.pipeline-wait-ms}. Los que no terminan a tiempo
+     * se abandonan para no bloquear el hilo del scheduler: cuando terminen no
+     * se hace DELE (el número de mensaje no sirve en otra sesión).
+     */
+    private void awaitPipeline() throws IOException, InterruptedException {
+        long deadline = System.currentTimeMillis() + pipelineWaitMs;
+        while (!inFlight.isEmpty()) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                System.err.println(inFlight.size() + " mensajes siguen en el pipeline después de "
+                        + pipelineWaitMs + " ms; se abandonan en esta sesión");
+                inFlight.clear();
+                metrics.setInFlight(0);
+                return;
+            }
+            applyCompleted(Math.min(500, remaining));
+        }
     }
 
-    // Clase interna para información del email
-    private static class EmailInfo {
-        String from;
-        String subject;
+    private void markAndDelete(int messageNumber, String uid) throws IOException {
+        // Registrar el UID antes del DELE para no re-ejecutar el comando
+        if (uid != null) {
+            processedEmailService.markProcessed(uid);
+        }
+
+        // Marcar mensaje para eliminación después de procesarlo (si la sesión
+        // se cayó, el UID registrado hará que se elimine en el próximo ciclo)
+        if (session.isOpen()) {
+            session.delete(messageNumber);
+        }
     }
 
     // Método para ejecutar el procesamiento completo
-    public void processEmails() {
+    public synchronized void processEmails() {
         try {
-            connect();
-            login();
+            session.ensureOpen();
             checkAndProcessEmails();
-            sendCommand("QUIT\r\n");
         } catch (Exception e) {
             System.err.println("Error procesando emails: " + e.getMessage());
             e.printStackTrace();
         } finally {
+            // No dejar mensajes del ciclo en el pipeline: sus números de mensaje
+            // no son válidos en otra sesión
             try {
-                close();
-            } catch (IOException e) {
-                System.err.println("Error cerrando conexión: " + e.getMessage());
+                awaitPipeline();
+            } catch (Exception e) {
+                System.err.println("Error esperando el pipeline: " + e.getMessage());
+            }
+            // Confirmar lo que se alcanzó a procesar; si no hubo DELE la sesión queda abierta
+            if (session.getPendingDeletes() > 0) {
+                session.checkpoint();
             }
+            System.out.println("Métricas: " + metrics.summary());
         }
     }
-}
\ No newline at end of file
+}
@@ -1,19 +1,46 @@
 package com.example.tecnoWebEmail.Service.service_email;
 
 import java.io.BufferedReader;
-import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.Socket;
+import java.io.UnsupportedEncodingException;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.internet.MimeUtility;
+
+@Component
 public class ClientSMTP {
     private String server = ""; 
-    private final int port = 25; 
+    private int port = 25; 
     private String emisor = "";
 
-    public ClientSMTP() {
-        this.server = "mail.tecnoweb.org.bo";
-        this.emisor = "grupo21sa@tecnoweb.org.bo";
+    private final SmtpConnectionPool pool;
+
+    // Encabezados del cuerpo de texto (mensaje simple o primera parte del multipart)
+    static final String TEXT_CONTENT_HEADERS = "Content-Type: text/plain; charset=UTF-8\r\n" +
+            "Content-Transfer-Encoding: 8bit\r\n";
+
+    @Autowired
+    public ClientSMTP(MailMetrics metrics,
+                      @Value("${mail.smtp.pool.max-connections:4}") int maxConnections,
+                      @Value("${mail.smtp.pool.timeout-ms:30000}") int timeoutMs,
+                      @Value("${mail.smtp.pool.max-idle-ms:60000}") long maxIdleMs,
+                      @Value("${mail.smtp.pool.max-transactions:100}") int maxTransactions) {
+        this("mail.tecnoweb.org.bo", 25, "grupo21sa@tecnoweb.org.bo", metrics,
+                maxConnections, timeoutMs, maxIdleMs, maxTransactions);
+    }
+
+    public ClientSMTP(String server, int port, String emisor, MailMetrics metrics,
+                      int maxConnections, int timeoutMs, long maxIdleMs, int maxTransactions) {
+        this.server = server;
+        this.port = port;
+        this.emisor = emisor;
+        this.pool = new SmtpConnectionPool(server, port, maxConnections, timeoutMs,
+                maxIdleMs, maxTransactions, metrics);
     }
 
     public String getServer() {
@@ -24,16 +51,6 @@ public class ClientSMTP {
         return port;
     }
 
-    private void sendCommand(DataOutputStream output, BufferedReader input, String command) throws IOException {
-        output.writeBytes(command);
-        String response = readResponse(input);
-        int codeResponse = Integer.parseInt(response.substring(0, 3));
-        if (codeResponse >= 400) {
-            throw new IOException("No se pudo enviar el correo, error durante el comando: " + command + ".\nError: " + response);
-        }
-        System.out.println("S: " + response.trim());
-    }
-
     static String readResponse(BufferedReader text) throws IOException {
         StringBuilder lines = new StringBuilder();
         String line;
@@ -47,37 +64,112 @@ public class ClientSMTP {
         return lines.toString();
     }
 
-    public void sendEmail(String userReceiving, String subject, String message) {
-        try (Socket socket = new Socket(server, port);
-             BufferedReader entrada = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-             DataOutputStream salida = new DataOutputStream(socket.getOutputStream())) {
+    /**
+     * Envía un correo. Devuelve true si el servidor aceptó el mensaje.
+     */
+    public boolean sendEmail(String userReceiving, String subject, String message) {
+        try {
+            send(userReceiving, subject, message);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Envío de correo interrumpido");
+            return false;
+        } catch (Exception e) {
+            System.err.println("Error al enviar correo: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Envía un correo y lanza la excepción si falla ({@link SmtpException}
+     * cuando el servidor lo rechazó).
+     *
+     * La conexión se toma del pool: varias respuestas comparten la misma sesión
+     * SMTP (separadas por RSET) en lugar de conectar y saludar cada vez. El
+     * mensaje se escribe en streaming sobre el socket ({@link ResponseWriter}:
+     * CRLF, dot-stuffing y UTF-8 al vuelo), sin armar otra copia completa.
+     */
+    public void send(String userReceiving, String subject, CharSequence message) throws IOException, InterruptedException {
+        send(userReceiving, subject, message, null);
+    }
 
-            System.out.println("Conectado al servidor SMTP");
-            System.out.println("S: " + entrada.readLine());
+    /**
+     * Envía un correo con un adjunto opcional: con adjunto el mensaje va como
+     * multipart/mixed (texto + archivo en base64).
+     */
+    public void send(String userReceiving, String subject, CharSequence message, EmailReply.Attachment attachment)
+            throws IOException, InterruptedException {
+        SmtpConnection connection = pool.borrow();
+        try {
+            boolean reused = connection.getTransactions() > 0;
+            try {
+                sendEnvelope(connection, userReceiving);
+            } catch (IOException e) {
+                // Una conexión reutilizada pudo haber sido cortada por el servidor;
+                // como aún no se envió el contenido, se reintenta una vez en una nueva
+                if (!reused || connection.isUsable()) throw e;
+                System.out.println("Conexión SMTP reutilizada caída, reconectando: " + e.getMessage());
+                connection = pool.reopen(connection);
+                sendEnvelope(connection, userReceiving);
+            }
 
-            sendCommand(salida, entrada, "HELO " + server + "\r\n");
-            sendCommand(salida, entrada, "MAIL FROM: <" + emisor + ">\r\n");
-            sendCommand(salida, entrada, "RCPT TO: <" + userReceiving + ">\r\n");
-            sendCommand(salida, entrada, "DATA\r\n");
-            
             // Enviar headers y contenido del mensaje
-            String emailContent = "From: " + emisor + "\r\n" +
-                                 "To: " + userReceiving + "\r\n" +
-                                 "Subject: " + subject + "\r\n" +
-                                 "\r\n" +
-                                 message.replace("\n", "\r\n") + "\r\n.\r\n";
-            
-            salida.writeBytes(emailContent);
-            String dataResponse = readResponse(entrada);
-            System.out.println("S: " + dataResponse.trim());
-            
-            sendCommand(salida, entrada, "QUIT\r\n");
-            
+            if (attachment == null) {
+                connection.data(headers(userReceiving, subject) + TEXT_CONTENT_HEADERS, message);
+            } else {
+                String boundary = "=_tecnoweb_" + Long.toHexString(System.nanoTime()) + "_" + connection.getTransactions();
+                connection.data(headers(userReceiving, subject)
+                        + "Content-Type: multipart/mixed; boundary=\"" + boundary + "\"\r\n", message, attachment, boundary);
+            }
+            connection.flush();
+            connection.expect("DATA (contenido)");
+            connection.transactionCompleted();
+
             System.out.println("Correo enviado exitosamente a: " + userReceiving);
+        } finally {
+            pool.release(connection);
+        }
+    }
 
-        } catch (Exception e) {
-            System.err.println("Error al enviar correo: " + e.getMessage());
-            e.printStackTrace();
+    private String headers(String userReceiving, String subject) {
+        return "From: " + emisor + "\r\n" +
+                "To: " + userReceiving + "\r\n" +
+                "Subject: " + encodeHeader(subject) + "\r\n" +
+                "MIME-Version: 1.0\r\n";
+    }
+
+    // Un Subject con acentos va como encoded-word (RFC 2047)
+    static String encodeHeader(String value) {
+        try {
+            return MimeUtility.encodeText(value, "UTF-8", "B");
+        } catch (UnsupportedEncodingException e) {
+            return value;
         }
     }
+
+    private void sendEnvelope(SmtpConnection connection, String userReceiving) throws IOException {
+        String mailFrom = "MAIL FROM: <" + emisor + ">\r\n";
+        String rcptTo = "RCPT TO: <" + userReceiving + ">\r\n";
+        if (connection.isPipelining()) {
+            // PIPELINING (RFC 2920): el sobre completo en un solo viaje de ida y vuelta
+            connection.pipeline(mailFrom, rcptTo, "DATA\r\n");
+            return;
+        }
+        connection.command(mailFrom);
+        connection.command(rcptTo);
+        connection.command("DATA\r\n");
+    }
+
+    // Cierra las conexiones que quedaron ociosas demasiado tiempo
+    @Scheduled(fixedDelayString = "${mail.smtp.pool.evict-interval-ms:30000}")
+    public void evictIdleConnections() {
+        pool.evictIdle();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.closeAll();
+    }
 }
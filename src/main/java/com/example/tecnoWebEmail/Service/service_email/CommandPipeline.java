@@ -0,0 +1,193 @@
+package com.example.tecnoWebEmail.Service.service_email;
+
+import com.example.tecnoWebEmail.Commands.CommandProcessor;
+import com.example.tecnoWebEmail.Models.OutboundEmail;
+import com.example.tecnoWebEmail.Service.EmailResponseService;
+import com.example.tecnoWebEmail.Service.OutboxService;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pipeline por etapas entre la lectura POP3 y la respuesta SMTP.
+ *
+ * <pre>
+ * ClientPOP (lectura) -> [cola comandos] -> workers de comandos
+ *                     -> [cola respuestas] -> outbox + envío SMTP
+ *                     -> [completados] -> ClientPOP (DELE)
+ * </pre>
+ *
+ * Las colas de comandos y respuestas son acotadas: si se llenan, la etapa
+ * anterior se bloquea (backpressure). El DELE lo hace siempre el hilo de la
+ * sesión POP3, y sólo para los mensajes cuya respuesta quedó guardada en el
+ * outbox (si el envío inmediato falla, {@link OutboxService} la reintenta).
+ */
+@Component
+public class CommandPipeline {
+
+    private final CommandProcessor commandProcessor;
+    private final OutboxService outboxService;
+    private final EmailResponseService emailResponseService;
+    private final MailMetrics metrics;
+
+    private final BlockingQueue<InboundEmail> commandQueue;
+    private final BlockingQueue<InboundEmail> replyQueue;
+    private final BlockingQueue<InboundEmail> completedQueue = new LinkedBlockingQueue<>();
+    private final List<Thread> threads = new ArrayList<>();
+
+    private volatile boolean running = true;
+
+    @Autowired
+    public CommandPipeline(CommandProcessor commandProcessor,
+                           OutboxService outboxService,
+                           EmailResponseService emailResponseService,
+                           MailMetrics metrics,
+                           @Value("${mail.pipeline.command-workers:8}") int commandWorkers,
+                           @Value("${mail.pipeline.reply-workers:4}") int replyWorkers,
+                           @Value("${mail.pipeline.queue-capacity:100}") int queueCapacity) {
+        this.commandProcessor = commandProcessor;
+        this.outboxService = outboxService;
+        this.emailResponseService = emailResponseService;
+        this.metrics = metrics;
+        this.commandQueue = new ArrayBlockingQueue<>(queueCapacity);
+        this.replyQueue = new ArrayBlockingQueue<>(queueCapacity);
+
+        for (int i = 0; i < commandWorkers; i++) {
+            threads.add(Thread.ofVirtual().name("cmd-worker-" + i).start(this::commandLoop));
+        }
+        for (int i = 0; i < replyWorkers; i++) {
+            threads.add(Thread.ofVirtual().name("smtp-reply-" + i).start(this::replyLoop));
+        }
+    }
+
+    /**
+     * Encola un correo para ejecutar su comando. Devuelve false si la cola
+     * siguió llena durante todo el timeout (el llamador debe reintentar).
+     */
+    public boolean offer(InboundEmail email, long timeout, TimeUnit unit) throws InterruptedException {
+        boolean accepted = commandQueue.offer(email, timeout, unit);
+        metrics.observeCommandQueue(commandQueue.size());
+        return accepted;
+    }
+
+    /**
+     * Encola un correo cuya respuesta ya se conoce (mensajes repetidos o
+     * respuestas que no llegaron al outbox) directamente para el envío.
+     */
+    public boolean offerReply(InboundEmail email, long timeout, TimeUnit unit) throws InterruptedException {
+        boolean accepted = replyQueue.offer(email, timeout, unit);
+        metrics.observeReplyQueue(replyQueue.size());
+        return accepted;
+    }
+
+    /**
+     * Siguiente correo cuya respuesta ya fue procesada (enviada o fallida),
+     * o null si no hay ninguno dentro del timeout.
+     */
+    public InboundEmail pollCompleted(long timeout, TimeUnit unit) throws InterruptedException {
+        return completedQueue.poll(timeout, unit);
+    }
+
+    private void commandLoop() {
+        while (running) {
+            InboundEmail email;
+            try {
+                email = commandQueue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            EmailReply reply;
+            try {
+                if (commandProcessor.requiresAttachment(email.getSubject())) {
+                    reply = commandProcessor.processAttachmentCommand(email.getSubject(), email.getAttachment(),
+                            email.getFrom());
+                } else {
+                    reply = commandProcessor.processCommand(email.getSubject(), email.getBody(), email.getFrom());
+                }
+            } catch (Exception e) {
+                // El remitente recibe igual una respuesta de error: el correo no se descarta
+                System.err.println("Error al procesar el comando '" + email.getSubject() + "' de "
+                        + email.getFrom() + ": " + e.getMessage());
+                e.printStackTrace();
+                reply = EmailReply.text(emailResponseService.formatErrorResponse(
+                        "Error interno al procesar el comando: " + e.getMessage(), email.getSubject()));
+            } finally {
+                deleteAttachment(email);
+            }
+            email.setReply(reply);
+            metrics.recordCommandExecuted();
+            try {
+                replyQueue.put(email); // se bloquea si la etapa SMTP va atrasada
+                metrics.observeReplyQueue(replyQueue.size());
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private static void deleteAttachment(InboundEmail email) {
+        if (email.getAttachment() == null) return;
+        try {
+            // Si la importación sigue corriendo en el escritor (timeout), ya tiene
+            // el archivo abierto y lo termina de leer igual
+            Files.deleteIfExists(email.getAttachment());
+        } catch (IOException e) {
+            System.err.println("No se pudo borrar el adjunto temporal " + email.getAttachment() + ": " + e.getMessage());
+        }
+        email.setAttachment(null);
+    }
+
+    private void replyLoop() {
+        while (running) {
+            InboundEmail email;
+            try {
+                email = replyQueue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            // Pase lo que pase el correo vuelve a ClientPOP: si el worker muriera o
+            // no lo devolviera, la sesión POP3 esperaría ese mensaje para siempre
+            try {
+                OutboundEmail outbound;
+                try {
+                    outbound = outboxService.enqueue(email.getFrom(), "Re: " + email.getSubject(),
+                            email.getReply(), email.getMessageId());
+                    email.setReplyQueued(true);
+                } catch (RuntimeException e) {
+                    System.err.println("No se pudo guardar la respuesta en el outbox: " + e.getMessage());
+                    metrics.recordReplyFailure();
+                    continue;
+                }
+                if (outboxService.send(outbound)) {
+                    metrics.recordReplySent();
+                    System.out.println("Respuesta enviada a: " + email.getFrom());
+                } else {
+                    metrics.recordReplyFailure();
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Error en la etapa de respuesta para " + email.getFrom() + ": " + e.getMessage());
+                metrics.recordReplyFailure();
+            } finally {
+                completedQueue.add(email);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.tecnoWebEmail.Service.service_email;
+
+import jakarta.mail.internet.MimeUtility;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parser de encabezados RFC 5322 que lee directamente de la respuesta POP3.
+ * También sirve para los encabezados de cada parte de un mensaje multipart.
+ *
+ * Se detiene en la línea en blanco que separa encabezados y cuerpo, por lo que
+ * el cuerpo nunca se carga en memoria. Sólo guarda los encabezados que usa el
+ * sistema, maneja encabezados "doblados" (multi-línea) y decodifica las
+ * palabras codificadas RFC 2047 (=?UTF-8?B?...?=).
+ */
+public final class EmailHeaderParser {
+
+    // Extraer email de campos como "Name <email@domain.com>" o "email@domain.com"
+    private static final Pattern EMAIL_PATTERN = Pattern.compile("<(.+?)>|([\\w.+-]+@[\\w.-]+\\.[a-zA-Z]+)");
+
+    private static final int NONE = 0;
+    private static final int FROM = 1;
+    private static final int SUBJECT = 2;
+    private static final int MESSAGE_ID = 3;
+    private static final int CONTENT_TYPE = 4;
+    private static final int TRANSFER_ENCODING = 5;
+    private static final int CONTENT_DISPOSITION = 6;
+
+    private EmailHeaderParser() {}
+
+    /**
+     * Lee los encabezados del mensaje. Al volver, el lector queda posicionado
+     * al inicio del cuerpo (o al final, si el mensaje no tiene cuerpo).
+     */
+    public static EmailHeaders parse(Pop3LineReader reader) throws IOException {
+        EmailHeaders headers = new EmailHeaders();
+        int current = NONE;
+        StringBuilder value = new StringBuilder(128);
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            // Línea en blanco: terminaron los encabezados
+            if (line.isEmpty()) {
+                break;
+            }
+
+            char first = line.charAt(0);
+            if (first == ' ' || first == '\t') {
+                // Línea "doblada": continúa el encabezado anterior (unfolding RFC 5322)
+                if (current != NONE) {
+                    value.append(line);
+                }
+                continue;
+            }
+
+            store(headers, current, value);
+            value.setLength(0);
+            current = headerType(line);
+            if (current != NONE) {
+                int colon = line.indexOf(':');
+                value.append(line, colon + 1, line.length());
+            }
+        }
+        store(headers, current, value);
+        return headers;
+    }
+
+    private static int headerType(String line) {
+        if (startsWithHeader(line, "From")) return FROM;
+        if (startsWithHeader(line, "Subject")) return SUBJECT;
+        if (startsWithHeader(line, "Message-ID")) return MESSAGE_ID;
+        if (startsWithHeader(line, "Content-Type")) return CONTENT_TYPE;
+        if (startsWithHeader(line, "Content-Transfer-Encoding")) return TRANSFER_ENCODING;
+        if (startsWithHeader(line, "Content-Disposition")) return CONTENT_DISPOSITION;
+        return NONE;
+    }
+
+    // Compara el nombre sin distinguir mayúsculas y sin crear substrings
+    private static boolean startsWithHeader(String line, String name) {
+        int length = name.length();
+        return line.length() > length
+                && line.charAt(length) == ':'
+                && line.regionMatches(true, 0, name, 0, length);
+    }
+
+    private static void store(EmailHeaders headers, int type, StringBuilder rawValue) {
+        if (type == NONE) return;
+        String value = rawValue.toString().trim();
+        switch (type) {
+            case FROM:
+                if (headers.from == null) headers.from = extractEmailAddress(value);
+                break;
+            case SUBJECT:
+                if (headers.subject == null) headers.subject = decode(value);
+                break;
+            case MESSAGE_ID:
+                if (headers.messageId == null) headers.messageId = value;
+                break;
+            case CONTENT_TYPE:
+                if (headers.contentType == null) headers.contentType = value;
+                break;
+            case TRANSFER_ENCODING:
+                if (headers.transferEncoding == null) headers.transferEncoding = value;
+                break;
+            case CONTENT_DISPOSITION:
+                if (headers.contentDisposition == null) headers.contentDisposition = value;
+                break;
+            default:
+                break;
+        }
+    }
+
+    // Decodifica palabras RFC 2047; si falla, se usa el valor crudo
+    static String decode(String value) {
+        if (value.indexOf("=?") < 0) {
+            return value;
+        }
+        try {
+            return MimeUtility.decodeText(value);
+        } catch (UnsupportedEncodingException e) {
+            System.err.println("Error decoding subject, using raw value: " + e.getMessage());
+            return value;
+        }
+    }
+
+    static String extractEmailAddress(String fromField) {
+        Matcher matcher = EMAIL_PATTERN.matcher(fromField);
+        if (matcher.find()) {
+            return matcher.group(1) != null ? matcher.group(1) : matcher.group(2);
+        }
+        return fromField.trim();
+    }
+
+    /**
+     * Encabezados de interés de un correo entrante.
+     */
+    public static class EmailHeaders {
+        String from;
+        String subject;
+        String messageId;
+        String contentType;
+        String transferEncoding;
+        String contentDisposition;
+
+        public String getFrom() {
+            return from;
+        }
+
+        public String getSubject() {
+            return subject;
+        }
+
+        public String getMessageId() {
+            return messageId;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getTransferEncoding() {
+            return transferEncoding;
+        }
+
+        public String getContentDisposition() {
+            return contentDisposition;
+        }
+    }
+}
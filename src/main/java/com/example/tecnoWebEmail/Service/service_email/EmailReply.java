@@ -0,0 +1,22 @@
+package com.example.tecnoWebEmail.Service.service_email;
+
+/**
+ * Respuesta a un correo: el texto del cuerpo y, opcionalmente, un adjunto
+ * (ej. el CSV comprimido de un listado grande). Los handlers de comandos
+ * pueden devolver un String (sólo texto) o un EmailReply.
+ */
+public record EmailReply(String body, Attachment attachment) {
+
+    public static EmailReply text(String body) {
+        return new EmailReply(body, null);
+    }
+
+    public boolean hasAttachment() {
+        return attachment != null;
+    }
+
+    /**
+     * Archivo adjunto ya codificado (se envía en base64).
+     */
+    public record Attachment(String fileName, String contentType, byte[] data) {}
+}
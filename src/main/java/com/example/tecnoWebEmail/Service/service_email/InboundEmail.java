@@ -0,0 +1,90 @@
+package com.example.tecnoWebEmail.Service.service_email;
+
+import java.nio.file.Path;
+
+/**
+ * Un correo entrante en tránsito por el pipeline:
+ * lectura POP3 -> ejecución del comando -> respuesta al outbox -> DELE.
+ */
+public class InboundEmail {
+
+    private final int messageNumber;
+    private final String uid;
+    private final String from;
+    private final String subject;
+    private final String body;
+    private final String messageId;
+    private Path attachment;
+
+    private EmailReply reply;
+    private boolean replyQueued;
+
+    public InboundEmail(int messageNumber, String uid, String from, String subject, String body, String messageId) {
+        this.messageNumber = messageNumber;
+        this.uid = uid;
+        this.from = from;
+        this.subject = subject;
+        this.body = body;
+        this.messageId = messageId;
+    }
+
+    public int getMessageNumber() {
+        return messageNumber;
+    }
+
+    public String getUid() {
+        return uid;
+    }
+
+    public String getFrom() {
+        return from;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    /**
+     * Message-ID del correo, o null si no trae o si la respuesta ya estaba
+     * registrada (repetido).
+     */
+    public String getMessageId() {
+        return messageId;
+    }
+
+    /**
+     * CSV adjunto de un comando de importación, copiado a un archivo temporal
+     * que el worker borra después de ejecutarlo; null si no trae.
+     */
+    public Path getAttachment() {
+        return attachment;
+    }
+
+    public void setAttachment(Path attachment) {
+        this.attachment = attachment;
+    }
+
+    public EmailReply getReply() {
+        return reply;
+    }
+
+    public void setReply(EmailReply reply) {
+        this.reply = reply;
+    }
+
+    /**
+     * true si la respuesta quedó guardada en el outbox (enviada o pendiente
+     * de reintento); recién entonces se puede hacer DELE del correo.
+     */
+    public boolean isReplyQueued() {
+        return replyQueued;
+    }
+
+    public void setReplyQueued(boolean replyQueued) {
+        this.replyQueued = replyQueued;
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.tecnoWebEmail.Service.service_email;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contadores simples del subsistema de correo (POP3/SMTP).
+ * Se imprimen al final de cada ciclo de monitoreo.
+ */
+@Component
+public class MailMetrics {
+
+    // --- Sesión POP3 ---
+    private final AtomicLong popLogins = new AtomicLong();
+    private final AtomicLong popLoginNanos = new AtomicLong();
+    private final AtomicLong popSessionsReused = new AtomicLong();
+    private final AtomicLong popConnectFailures = new AtomicLong();
+    private final AtomicLong popCheckpoints = new AtomicLong();
+
+    // --- Pipeline de comandos ---
+    private final AtomicLong commandQueueDepth = new AtomicLong();
+    private final AtomicLong commandQueueMaxDepth = new AtomicLong();
+    private final AtomicLong replyQueueDepth = new AtomicLong();
+    private final AtomicLong replyQueueMaxDepth = new AtomicLong();
+    private final AtomicLong inFlight = new AtomicLong();
+    private final AtomicLong commandsExecuted = new AtomicLong();
+    private final AtomicLong repliesSent = new AtomicLong();
+    private final AtomicLong replyFailures = new AtomicLong();
+    private final AtomicLong duplicateMessages = new AtomicLong();
+
+    // --- Pool SMTP ---
+    private final AtomicLong smtpHandshakes = new AtomicLong();
+    private final AtomicLong smtpHandshakeNanos = new AtomicLong();
+    private final AtomicLong smtpConnectionsReused = new AtomicLong();
+
+    // --- Outbox ---
+    private final AtomicLong outboxRetries = new AtomicLong();
+    private final AtomicLong outboxDeadLetters = new AtomicLong();
+
+    public void recordPopLogin(long nanos) {
+        popLogins.incrementAndGet();
+        popLoginNanos.addAndGet(nanos);
+    }
+
+    public void recordPopSessionReused() {
+        popSessionsReused.incrementAndGet();
+    }
+
+    public void recordPopConnectFailure() {
+        popConnectFailures.incrementAndGet();
+    }
+
+    public void recordPopCheckpoint() {
+        popCheckpoints.incrementAndGet();
+    }
+
+    public void observeCommandQueue(int depth) {
+        commandQueueDepth.set(depth);
+        commandQueueMaxDepth.accumulateAndGet(depth, Math::max);
+    }
+
+    public void observeReplyQueue(int depth) {
+        replyQueueDepth.set(depth);
+        replyQueueMaxDepth.accumulateAndGet(depth, Math::max);
+    }
+
+    public void setInFlight(int count) {
+        inFlight.set(count);
+    }
+
+    public void recordCommandExecuted() {
+        commandsExecuted.incrementAndGet();
+    }
+
+    public void recordReplySent() {
+        repliesSent.incrementAndGet();
+    }
+
+    public void recordReplyFailure() {
+        replyFailures.incrementAndGet();
+    }
+
+    public void recordDuplicateMessage() {
+        duplicateMessages.incrementAndGet();
+    }
+
+    public void recordSmtpHandshake(long nanos) {
+        smtpHandshakes.incrementAndGet();
+        smtpHandshakeNanos.addAndGet(nanos);
+    }
+
+    public void recordSmtpConnectionReused() {
+        smtpConnectionsReused.incrementAndGet();
+    }
+
+    public void recordOutboxRetry() {
+        outboxRetries.incrementAndGet();
+    }
+
+    public void recordOutboxDeadLetter() {
+        outboxDeadLetters.incrementAndGet();
+    }
+
+    public long getPopLogins() {
+        return popLogins.get();
+    }
+
+    public long getPopSessionsReused() {
+        return popSessionsReused.get();
+    }
+
+    /**
+     * Tiempo promedio (ms) de conexión + USER/PASS por cada login POP3.
+     */
+    public double getAveragePopLoginMillis() {
+        long logins = popLogins.get();
+        return logins == 0 ? 0.0 : popLoginNanos.get() / 1_000_000.0 / logins;
+    }
+
+    public String summary() {
+        return String.format(
+                "POP3 logins=%d (prom %.1f ms, total %d ms), sesiones reutilizadas=%d, fallos de conexion=%d, checkpoints=%d"
+                        + " | pipeline: en curso=%d, cola comandos=%d (max %d), cola respuestas=%d (max %d),"
+                        + " comandos=%d, respuestas=%d, fallos SMTP=%d, repetidos=%d"
+                        + " | SMTP: saludos=%d (total %d ms), conexiones reutilizadas=%d"
+                        + " | outbox: reintentos=%d, descartados=%d",
+                popLogins.get(), getAveragePopLoginMillis(), popLoginNanos.get() / 1_000_000,
+                popSessionsReused.get(), popConnectFailures.get(), popCheckpoints.get(),
+                inFlight.get(), commandQueueDepth.get(), commandQueueMaxDepth.get(),
+                replyQueueDepth.get(), replyQueueMaxDepth.get(),
+                commandsExecuted.get(), repliesSent.get(), replyFailures.get(), duplicateMessages.get(),
+                smtpHandshakes.get(), smtpHandshakeNanos.get() / 1_000_000, smtpConnectionsReused.get(),
+                outboxRetries.get(), outboxDeadLetters.get());
+    }
+}
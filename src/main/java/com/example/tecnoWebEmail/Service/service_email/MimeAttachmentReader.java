@@ -0,0 +1,177 @@
+package com.example.tecnoWebEmail.Service.service_email;
+
+import com.example.tecnoWebEmail.Service.service_email.EmailHeaderParser.EmailHeaders;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.ContentDisposition;
+import jakarta.mail.internet.ContentType;
+import jakarta.mail.internet.MimeUtility;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Busca un adjunto CSV dentro de un mensaje que se está leyendo del socket
+ * POP3 y lo entrega como un {@link Reader} que decodifica (base64 /
+ * quoted-printable) a medida que se lee. El adjunto nunca se guarda completo
+ * en memoria: las partes anteriores se saltan línea por línea.
+ *
+ * Al terminar, el llamador debe hacer {@link Pop3LineReader#drain()} para
+ * consumir el resto del mensaje.
+ */
+public final class MimeAttachmentReader {
+
+    private MimeAttachmentReader() {}
+
+    /**
+     * Posiciona el lector en el primer adjunto CSV del mensaje y lo devuelve,
+     * o devuelve null si el mensaje no trae ninguno. {@code lines} debe estar
+     * al inicio del cuerpo (después de los encabezados del mensaje).
+     */
+    public static Reader openCsv(Pop3LineReader lines, EmailHeaders headers) throws IOException {
+        ContentType type = contentType(headers.getContentType());
+        if (type.match("multipart/*")) {
+            String boundary = type.getParameter("boundary");
+            return boundary == null ? null : findCsvPart(lines, "--" + boundary);
+        }
+        if (isCsv(type, headers.getContentDisposition())) {
+            return open(lines, null, headers.getTransferEncoding(), type);
+        }
+        return null;
+    }
+
+    private static Reader findCsvPart(Pop3LineReader lines, String delimiter) throws IOException {
+        // Preámbulo hasta el primer delimitador
+        if (!skipToDelimiter(lines, delimiter)) {
+            return null;
+        }
+        while (true) {
+            EmailHeaders part = EmailHeaderParser.parse(lines);
+            ContentType type = contentType(part.getContentType());
+            if (type.match("multipart/*") && type.getParameter("boundary") != null) {
+                // multipart/mixed con un multipart/alternative adentro, por ejemplo
+                Reader nested = findCsvPart(lines, "--" + type.getParameter("boundary"));
+                if (nested != null) return nested;
+            } else if (isCsv(type, part.getContentDisposition())) {
+                return open(lines, delimiter, part.getTransferEncoding(), type);
+            }
+            if (!skipToDelimiter(lines, delimiter)) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Avanza hasta el siguiente delimitador. Devuelve true si después viene
+     * otra parte, false si era el delimitador de cierre o se acabó el mensaje.
+     */
+    private static boolean skipToDelimiter(Pop3LineReader lines, String delimiter) throws IOException {
+        String line;
+        while ((line = lines.readLine()) != null) {
+            if (line.startsWith(delimiter)) {
+                return !line.startsWith("--", delimiter.length());
+            }
+        }
+        return false;
+    }
+
+    private static Reader open(Pop3LineReader lines, String delimiter, String transferEncoding,
+                               ContentType type) throws IOException {
+        InputStream raw = new PartInputStream(lines, delimiter);
+        InputStream decoded = raw;
+        if (transferEncoding != null) {
+            String encoding = transferEncoding.trim().toLowerCase();
+            if (!encoding.isEmpty() && !encoding.equals("7bit") && !encoding.equals("8bit") && !encoding.equals("binary")) {
+                try {
+                    decoded = MimeUtility.decode(raw, encoding);
+                } catch (MessagingException e) {
+                    throw new IOException("Codificación del adjunto no soportada: " + transferEncoding, e);
+                }
+            }
+        }
+        return new BufferedReader(new InputStreamReader(decoded, charsetOf(type)));
+    }
+
+    private static boolean isCsv(ContentType type, String disposition) {
+        if (type.match("text/csv") || type.match("application/csv") || type.match("text/comma-separated-values")) {
+            return true;
+        }
+        String name = type.getParameter("name");
+        if (disposition != null) {
+            try {
+                String filename = new ContentDisposition(disposition).getParameter("filename");
+                if (filename != null) name = filename;
+            } catch (MessagingException e) {
+                // Content-Disposition mal formado: se usa el name del Content-Type
+            }
+        }
+        return name != null && EmailHeaderParser.decode(name).toLowerCase().endsWith(".csv");
+    }
+
+    private static ContentType contentType(String value) {
+        try {
+            return new ContentType(value != null ? value : "text/plain");
+        } catch (MessagingException e) {
+            return new ContentType("text", "plain", null);
+        }
+    }
+
+    private static Charset charsetOf(ContentType type) {
+        String charset = type.getParameter("charset");
+        try {
+            return charset != null ? Charset.forName(MimeUtility.javaCharset(charset)) : StandardCharsets.UTF_8;
+        } catch (IllegalArgumentException e) {
+            return StandardCharsets.UTF_8;
+        }
+    }
+
+    /**
+     * Bytes de una parte MIME, leídos línea por línea hasta el delimitador
+     * (o hasta el fin del mensaje si la parte no tiene delimitador).
+     */
+    private static class PartInputStream extends InputStream {
+        private final Pop3LineReader lines;
+        private final String delimiter;
+        private byte[] current = new byte[0];
+        private int pos;
+        private boolean finished;
+
+        PartInputStream(Pop3LineReader lines, String delimiter) {
+            this.lines = lines;
+            this.delimiter = delimiter;
+        }
+
+        private boolean fill() throws IOException {
+            while (pos >= current.length) {
+                if (finished) return false;
+                String line = lines.readLine();
+                if (line == null || (delimiter != null && line.startsWith(delimiter))) {
+                    finished = true;
+                    return false;
+                }
+                current = (line + "\r\n").getBytes(StandardCharsets.UTF_8);
+                pos = 0;
+            }
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return fill() ? current[pos++] & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) return 0;
+            if (!fill()) return -1;
+            int count = Math.min(length, current.length - pos);
+            System.arraycopy(current, pos, buffer, offset, count);
+            pos += count;
+            return count;
+        }
+    }
+}
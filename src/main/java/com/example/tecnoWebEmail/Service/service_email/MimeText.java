@@ -0,0 +1,71 @@
+package com.example.tecnoWebEmail.Service.service_email;
+
+import jakarta.mail.BodyPart;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.ContentType;
+import jakarta.mail.internet.MimeMultipart;
+import jakarta.mail.internet.MimeUtility;
+import jakarta.mail.util.ByteArrayDataSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Obtiene el texto plano del cuerpo de un correo a partir de su Content-Type
+ * y Content-Transfer-Encoding: decodifica quoted-printable/base64 y, si el
+ * mensaje es multipart, toma la primera parte text/plain.
+ */
+public final class MimeText {
+
+    private MimeText() {}
+
+    public static String plainText(String contentType, String transferEncoding, String body) {
+        if (body == null) return null;
+        try {
+            ContentType type = new ContentType(contentType != null ? contentType : "text/plain");
+            byte[] raw = body.getBytes(StandardCharsets.UTF_8);
+
+            if (type.match("multipart/*")) {
+                MimeMultipart multipart = new MimeMultipart(new ByteArrayDataSource(raw, type.toString()));
+                String text = firstPlainText(multipart);
+                return text != null ? text : body;
+            }
+            if (transferEncoding == null || transferEncoding.isBlank()) {
+                return body;
+            }
+            try (InputStream decoded = MimeUtility.decode(new ByteArrayInputStream(raw), transferEncoding.trim())) {
+                return new String(decoded.readAllBytes(), charsetOf(type));
+            }
+        } catch (MessagingException | IOException | IllegalArgumentException e) {
+            System.err.println("No se pudo decodificar el cuerpo, se usa tal cual: " + e.getMessage());
+            return body;
+        }
+    }
+
+    private static String firstPlainText(MimeMultipart multipart) throws MessagingException, IOException {
+        for (int i = 0; i < multipart.getCount(); i++) {
+            BodyPart part = multipart.getBodyPart(i);
+            if (part.isMimeType("text/plain")) {
+                Object content = part.getContent();
+                return content instanceof String ? (String) content : null;
+            }
+            if (part.isMimeType("multipart/*")) {
+                String nested = firstPlainText((MimeMultipart) part.getContent());
+                if (nested != null) return nested;
+            }
+        }
+        return null;
+    }
+
+    private static Charset charsetOf(ContentType type) {
+        String charset = type.getParameter("charset");
+        try {
+            return charset != null ? Charset.forName(MimeUtility.javaCharset(charset)) : StandardCharsets.UTF_8;
+        } catch (IllegalArgumentException e) {
+            return StandardCharsets.UTF_8;
+        }
+    }
+}
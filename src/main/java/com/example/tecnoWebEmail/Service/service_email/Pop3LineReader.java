@@ -0,0 +1,67 @@
+package com.example.tecnoWebEmail.Service.service_email;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * Lee, línea por línea, una respuesta multilínea POP3 (RETR, TOP, UIDL...)
+ * directamente del socket, quitando el "byte stuffing" y deteniéndose en la
+ * línea que contiene sólo ".". No acumula el contenido en memoria.
+ */
+public class Pop3LineReader {
+
+    private final BufferedReader input;
+    private boolean finished;
+
+    public Pop3LineReader(BufferedReader input) {
+        this.input = input;
+    }
+
+    /**
+     * Devuelve la siguiente línea (sin CRLF) o null al llegar al terminador ".".
+     */
+    public String readLine() throws IOException {
+        if (finished) return null;
+        String line = input.readLine();
+        if (line == null) {
+            finished = true;
+            throw new IOException("S: Server unawares closed the connection");
+        }
+        if (line.equals(".")) { // Fin del mensaje
+            finished = true;
+            return null;
+        }
+        if (line.startsWith(".")) // "Byte stuffing"
+            line = line.substring(1);
+        return line;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Lee lo que queda de la respuesta y lo devuelve unido con "\n".
+     */
+    public String readRemaining() throws IOException {
+        StringBuilder lines = new StringBuilder();
+        String line;
+        boolean first = true;
+        while ((line = readLine()) != null) {
+            if (!first) lines.append("\n");
+            lines.append(line);
+            first = false;
+        }
+        return lines.toString();
+    }
+
+    /**
+     * Descarta lo que queda de la respuesta sin guardarlo, para dejar la
+     * sesión lista para el siguiente comando.
+     */
+    public void drain() throws IOException {
+        while (readLine() != null) {
+            // descartar
+        }
+    }
+}
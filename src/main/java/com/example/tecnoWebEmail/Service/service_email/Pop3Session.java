@@ -0,0 +1,239 @@
+package com.example.tecnoWebEmail.Service.service_email;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sesión POP3 autenticada y reutilizable entre ciclos de monitoreo.
+ *
+ * En lugar de conectar/USER/PASS/QUIT cada 30 segundos, la sesión se mantiene
+ * abierta y se verifica con NOOP antes de usarla. Los DELE sólo se aplican en
+ * el servidor al enviar QUIT, por eso se confirman en "checkpoints" controlados
+ * (ver {@link #checkpoint()}), después de los cuales la sesión se reabre.
+ *
+ * Como muchos servidores fijan el contenido del buzón al momento del login,
+ * una sesión no se reutiliza más allá de {@code maxSessionAgeMs}.
+ */
+public class Pop3Session {
+
+    private final String host;
+    private final int port;
+    private final String user;
+    private final String password;
+    private final long maxSessionAgeMs;
+    private final long backoffBaseMs;
+    private final long backoffMaxMs;
+    private final MailMetrics metrics;
+
+    private Socket connection;
+    private BufferedReader input;
+    private DataOutputStream output;
+
+    private long openedAt;
+    private int pendingDeletes;
+
+    // Estado de reconexión con backoff exponencial
+    private int consecutiveFailures;
+    private long nextAttemptAt;
+
+    public Pop3Session(String host, int port, String user, String password,
+                       long maxSessionAgeMs, long backoffBaseMs, long backoffMaxMs,
+                       MailMetrics metrics) {
+        this.host = host;
+        this.port = port;
+        this.user = user;
+        this.password = password;
+        this.maxSessionAgeMs = maxSessionAgeMs;
+        this.backoffBaseMs = backoffBaseMs;
+        this.backoffMaxMs = backoffMaxMs;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Deja la sesión lista para usarse: reutiliza la conexión actual si responde
+     * a NOOP, o abre una nueva (respetando el backoff tras fallos previos).
+     */
+    public void ensureOpen() throws IOException {
+        if (isOpen()) {
+            if (System.currentTimeMillis() - openedAt <= maxSessionAgeMs && noop()) {
+                metrics.recordPopSessionReused();
+                return;
+            }
+            // Sesión vieja o muerta: se confirma lo pendiente y se reabre
+            checkpoint();
+        }
+
+        long now = System.currentTimeMillis();
+        if (now < nextAttemptAt) {
+            throw new IOException("Reconexión POP3 en espera (backoff) por " + (nextAttemptAt - now) + " ms");
+        }
+
+        try {
+            long start = System.nanoTime();
+            connect();
+            login();
+            metrics.recordPopLogin(System.nanoTime() - start);
+            openedAt = System.currentTimeMillis();
+            consecutiveFailures = 0;
+            nextAttemptAt = 0;
+        } catch (IOException e) {
+            metrics.recordPopConnectFailure();
+            closeQuietly();
+            consecutiveFailures++;
+            long delay = Math.min(backoffMaxMs, backoffBaseMs << Math.min(consecutiveFailures - 1, 20));
+            nextAttemptAt = System.currentTimeMillis() + delay;
+            throw e;
+        }
+    }
+
+    private void connect() throws IOException {
+        connection = new Socket();
+        connection.connect(new InetSocketAddress(host, port), 15000);
+        connection.setSoTimeout(60000);
+        input = new BufferedReader(new InputStreamReader(connection.getInputStream()));
+        output = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+        String greeting = input.readLine();
+        System.out.println("S: " + greeting);
+        if (greeting == null || !greeting.startsWith("+OK")) {
+            throw new IOException("Saludo POP3 inválido: " + greeting);
+        }
+    }
+
+    private void login() throws IOException {
+        expectOk(sendCommand("USER " + user + "\r\n"));
+        expectOk(sendCommand("PASS " + password + "\r\n"));
+        pendingDeletes = 0;
+        System.out.println("Login exitoso");
+    }
+
+    private boolean noop() {
+        try {
+            String response = sendCommand("NOOP\r\n");
+            return response != null && response.startsWith("+OK");
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public boolean isOpen() {
+        return connection != null && connection.isConnected() && !connection.isClosed();
+    }
+
+    /**
+     * Envía un comando de una línea y devuelve la línea de estado (+OK / -ERR).
+     */
+    public String sendCommand(String command) throws IOException {
+        output.writeBytes(command);
+        output.flush();
+        String response = input.readLine();
+        if (response == null) {
+            closeQuietly();
+            throw new IOException("S: Server unawares closed the connection");
+        }
+        return response;
+    }
+
+    /**
+     * Lector de la respuesta multilínea ya iniciada (después de la línea +OK).
+     * Debe consumirse completo (o con drain()) antes del siguiente comando.
+     */
+    public Pop3LineReader multilineReader() {
+        return new Pop3LineReader(input);
+    }
+
+    /**
+     * Lee una respuesta multilínea ya iniciada y la devuelve completa.
+     */
+    public String readMultilineBody() throws IOException {
+        try {
+            return multilineReader().readRemaining();
+        } catch (IOException e) {
+            closeQuietly();
+            throw e;
+        }
+    }
+
+    /**
+     * Lista los mensajes del buzón con su identificador único (UIDL).
+     * Si el servidor no soporta UIDL se usa STAT y los UIDs quedan en null.
+     */
+    public List<MessageRef> listMessages() throws IOException {
+        List<MessageRef> messages = new ArrayList<>();
+        String status = sendCommand("UIDL\r\n");
+        if (status.startsWith("+OK")) {
+            String listing = readMultilineBody();
+            for (String line : listing.split("\n")) {
+                int space = line.indexOf(' ');
+                if (space <= 0) continue;
+                messages.add(new MessageRef(Integer.parseInt(line.substring(0, space).trim()),
+                        line.substring(space + 1).trim()));
+            }
+            return messages;
+        }
+
+        String statResponse = sendCommand("STAT\r\n");
+        expectOk(statResponse);
+        int count = Integer.parseInt(statResponse.split(" ")[1]);
+        for (int i = 1; i <= count; i++) {
+            messages.add(new MessageRef(i, null));
+        }
+        return messages;
+    }
+
+    /**
+     * Marca un mensaje para eliminación. Se aplica en el próximo checkpoint.
+     */
+    public void delete(int messageNumber) throws IOException {
+        expectOk(sendCommand("DELE " + messageNumber + "\r\n"));
+        pendingDeletes++;
+    }
+
+    public int getPendingDeletes() {
+        return pendingDeletes;
+    }
+
+    /**
+     * Confirma los DELE pendientes enviando QUIT (el servidor sólo borra en el
+     * estado UPDATE) y cierra la conexión. La próxima llamada a
+     * {@link #ensureOpen()} abrirá una sesión nueva.
+     */
+    public void checkpoint() {
+        if (!isOpen()) return;
+        try {
+            sendCommand("QUIT\r\n");
+            if (pendingDeletes > 0) {
+                metrics.recordPopCheckpoint();
+            }
+        } catch (IOException e) {
+            System.err.println("Error enviando QUIT: " + e.getMessage());
+        } finally {
+            pendingDeletes = 0;
+            closeQuietly();
+        }
+    }
+
+    public void closeQuietly() {
+        try {
+            if (this.connection != null) this.connection.close();
+        } catch (IOException e) {
+            System.err.println("Error cerrando conexión: " + e.getMessage());
+        }
+        this.connection = null;
+        this.input = null;
+        this.output = null;
+    }
+
+    private static void expectOk(String response) throws IOException {
+        if (response == null || !response.startsWith("+OK")) {
+            throw new IOException("Respuesta POP3 inesperada: " + response);
+        }
+    }
+
+    /**
+     * Número de mensaje dentro de la sesión actual y su UID persistente.
+     */
+    public record MessageRef(int number, String uid) {}
+}
@@ -0,0 +1,137 @@
+package com.example.tecnoWebEmail.Service.service_email;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Escribe el contenido de un DATA SMTP a medida que llega el texto: convierte
+ * cualquier fin de línea (\n, \r o \r\n) en CRLF, duplica el punto al inicio
+ * de línea (dot-stuffing, RFC 5321 4.5.2) y codifica en UTF-8 directamente
+ * sobre el stream con buffer de la conexión, sin copias intermedias del
+ * mensaje completo.
+ *
+ * {@link #finish()} (o {@link #close()}) agrega el terminador "CRLF.CRLF";
+ * el stream de la conexión no se cierra.
+ */
+public class ResponseWriter extends Writer {
+
+    private static final int BUFFER_SIZE = 4096;
+
+    private final Writer target;
+    private final char[] buffer = new char[BUFFER_SIZE + 2];
+    private int used;
+    private boolean atLineStart = true;
+    private boolean pendingCr;
+    private boolean finished;
+
+    public ResponseWriter(OutputStream output) {
+        this.target = new OutputStreamWriter(output, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        put((char) c);
+    }
+
+    @Override
+    public void write(char[] chars, int offset, int length) throws IOException {
+        for (int i = offset; i < offset + length; i++) {
+            put(chars[i]);
+        }
+    }
+
+    @Override
+    public void write(String text, int offset, int length) throws IOException {
+        for (int i = offset; i < offset + length; i++) {
+            put(text.charAt(i));
+        }
+    }
+
+    @Override
+    public Writer append(CharSequence text) throws IOException {
+        CharSequence chars = text != null ? text : "null";
+        for (int i = 0; i < chars.length(); i++) {
+            put(chars.charAt(i));
+        }
+        return this;
+    }
+
+    private void put(char c) throws IOException {
+        if (finished) {
+            throw new IOException("El contenido DATA ya fue terminado");
+        }
+        if (c == '\n') {
+            pendingCr = false;
+            newLine();
+            return;
+        }
+        if (pendingCr) {
+            // \r suelto: también es un fin de línea
+            pendingCr = false;
+            newLine();
+        }
+        if (c == '\r') {
+            pendingCr = true;
+            return;
+        }
+        if (atLineStart && c == '.') {
+            emit('.');
+        }
+        atLineStart = false;
+        emit(c);
+    }
+
+    private void newLine() throws IOException {
+        emit('\r');
+        emit('\n');
+        atLineStart = true;
+    }
+
+    private void emit(char c) throws IOException {
+        if (used >= BUFFER_SIZE) drain();
+        buffer[used++] = c;
+    }
+
+    private void drain() throws IOException {
+        if (used > 0) {
+            target.write(buffer, 0, used);
+            used = 0;
+        }
+    }
+
+    /**
+     * Pasa lo escrito al stream de la conexión (sin terminar el DATA).
+     */
+    @Override
+    public void flush() throws IOException {
+        drain();
+        target.flush();
+    }
+
+    /**
+     * Termina el contenido: cierra la última línea si quedó abierta y escribe
+     * la línea con el punto final.
+     */
+    public void finish() throws IOException {
+        if (finished) return;
+        if (pendingCr) {
+            pendingCr = false;
+            newLine();
+        }
+        if (!atLineStart) {
+            newLine();
+        }
+        emit('.');
+        newLine();
+        finished = true;
+        flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        finish();
+    }
+}
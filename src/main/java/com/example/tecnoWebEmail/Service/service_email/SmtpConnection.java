@@ -0,0 +1,281 @@
+package com.example.tecnoWebEmail.Service.service_email;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Una conexión SMTP ya saludada (EHLO/HELO) que puede transportar varias
+ * transacciones MAIL/RCPT/DATA. Entre transacciones se envía RSET.
+ *
+ * Si el servidor anuncia PIPELINING (RFC 2920) en la respuesta a EHLO,
+ * {@link #isPipelining()} devuelve true y los comandos del sobre se pueden
+ * enviar en una sola escritura.
+ *
+ * No es thread-safe: el pool la entrega a un solo hilo a la vez.
+ */
+public class SmtpConnection {
+
+    // 57 bytes -> 76 caracteres base64 por línea (RFC 2045)
+    private static final int BASE64_LINE_BYTES = 57;
+
+    private final Socket socket;
+    private final BufferedReader input;
+    private final DataOutputStream output;
+    private final long createdAt;
+
+    private long lastUsedAt;
+    private int transactions;
+    private boolean broken;
+    private boolean pipelining;
+
+    private SmtpConnection(Socket socket) throws IOException {
+        this.socket = socket;
+        this.input = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+        this.output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        this.createdAt = System.currentTimeMillis();
+        this.lastUsedAt = createdAt;
+    }
+
+    /**
+     * Conecta, lee el saludo 220 y envía EHLO (o HELO si el servidor no
+     * soporta ESMTP).
+     */
+    public static SmtpConnection open(String host, int port, int timeoutMs) throws IOException {
+        Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(host, port), timeoutMs);
+            socket.setSoTimeout(timeoutMs);
+            SmtpConnection connection = new SmtpConnection(socket);
+            String greeting = ClientSMTP.readResponse(connection.input);
+            System.out.println("S: " + greeting.trim());
+            if (!greeting.startsWith("220")) {
+                throw new IOException("Saludo SMTP inválido: " + greeting.trim());
+            }
+            connection.hello(host);
+            return connection;
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    private void hello(String host) throws IOException {
+        write("EHLO " + host + "\r\n");
+        flush();
+        String response = ClientSMTP.readResponse(input);
+        System.out.println("S: " + response.trim());
+        if (response.startsWith("250")) {
+            pipelining = hasExtension(response, "PIPELINING");
+            return;
+        }
+        // Servidor sin ESMTP: se usa HELO y comandos uno por uno
+        command("HELO " + host + "\r\n");
+    }
+
+    // Busca una extensión en las líneas "250-EXT" / "250 EXT" de la respuesta a EHLO
+    static boolean hasExtension(String ehloResponse, String extension) {
+        for (String line : ehloResponse.split("\n")) {
+            if (line.length() < 4) continue;
+            String keyword = line.substring(4).trim();
+            int space = keyword.indexOf(' ');
+            if (space > 0) keyword = keyword.substring(0, space);
+            if (keyword.equalsIgnoreCase(extension)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Envía un grupo de comandos en una sola escritura y luego lee todas las
+     * respuestas, en orden. Se leen todas aunque alguna falle para no dejar
+     * respuestas pendientes en el socket; se lanza el primer error.
+     */
+    public void pipeline(String... commands) throws IOException {
+        for (String command : commands) {
+            write(command);
+        }
+        flush();
+        IOException firstError = null;
+        String last = null;
+        for (String command : commands) {
+            try {
+                last = expect(command);
+            } catch (IOException e) {
+                if (!isUsable()) throw e;
+                if (firstError == null) firstError = e;
+                last = null;
+            }
+        }
+        if (firstError != null) {
+            // Si el servidor igual aceptó DATA (354) la sesión quedó a mitad de
+            // un mensaje: no se puede reutilizar
+            if (last != null && last.startsWith("354")) broken = true;
+            throw firstError;
+        }
+    }
+
+    /**
+     * Envía un comando y lee su respuesta; un código >= 400 es un error.
+     */
+    public String command(String command) throws IOException {
+        write(command);
+        flush();
+        return expect(command);
+    }
+
+    /**
+     * Lee la siguiente respuesta del servidor y la valida.
+     */
+    public String expect(String command) throws IOException {
+        String response;
+        try {
+            response = ClientSMTP.readResponse(input);
+        } catch (IOException e) {
+            broken = true;
+            throw e;
+        }
+        System.out.println("S: " + response.trim());
+        int code = Integer.parseInt(response.substring(0, 3));
+        if (code >= 400) {
+            throw new SmtpException(code, "No se pudo enviar el correo, error durante el comando: "
+                    + command.trim() + ".\nError: " + response.trim());
+        }
+        return response;
+    }
+
+    public void write(String data) throws IOException {
+        try {
+            output.writeBytes(data);
+        } catch (IOException e) {
+            broken = true;
+            throw e;
+        }
+    }
+
+    /**
+     * Envía el contenido de un DATA (encabezados y cuerpo) en streaming a
+     * través de un {@link ResponseWriter}, terminado con "CRLF.CRLF". No lee
+     * la respuesta: el llamador hace {@link #expect(String)}.
+     */
+    public void data(String headers, CharSequence body) throws IOException {
+        try {
+            ResponseWriter writer = new ResponseWriter(output);
+            writer.append(headers);
+            writer.append("\r\n");
+            writer.append(body);
+            writer.finish();
+        } catch (IOException e) {
+            broken = true;
+            throw e;
+        }
+    }
+
+    /**
+     * Envía un DATA multipart/mixed: el cuerpo de texto como primera parte y
+     * el adjunto en base64 (líneas de 76 caracteres) como segunda. Los
+     * encabezados ya deben declarar el multipart con {@code boundary}.
+     */
+    public void data(String headers, CharSequence body, EmailReply.Attachment attachment, String boundary)
+            throws IOException {
+        try {
+            ResponseWriter writer = new ResponseWriter(output);
+            writer.append(headers);
+            writer.append("\r\n");
+            writer.append("--").append(boundary).append("\r\n");
+            writer.append(ClientSMTP.TEXT_CONTENT_HEADERS).append("\r\n");
+            writer.append(body);
+            writer.append("\r\n--").append(boundary).append("\r\n");
+            String fileName = ClientSMTP.encodeHeader(attachment.fileName());
+            writer.append("Content-Type: ").append(attachment.contentType())
+                    .append("; name=\"").append(fileName).append("\"\r\n");
+            writer.append("Content-Transfer-Encoding: base64\r\n");
+            writer.append("Content-Disposition: attachment; filename=\"").append(fileName).append("\"\r\n\r\n");
+            byte[] data = attachment.data();
+            Base64.Encoder encoder = Base64.getEncoder();
+            for (int offset = 0; offset < data.length; offset += BASE64_LINE_BYTES) {
+                int end = Math.min(data.length, offset + BASE64_LINE_BYTES);
+                writer.append(encoder.encodeToString(Arrays.copyOfRange(data, offset, end))).append("\r\n");
+            }
+            writer.append("--").append(boundary).append("--\r\n");
+            writer.finish();
+        } catch (IOException e) {
+            broken = true;
+            throw e;
+        }
+    }
+
+    public void flush() throws IOException {
+        try {
+            output.flush();
+        } catch (IOException e) {
+            broken = true;
+            throw e;
+        }
+    }
+
+    /**
+     * Limpia el estado de la transacción anterior. Si falla, la conexión
+     * no se puede seguir usando.
+     */
+    public boolean reset() {
+        try {
+            command("RSET\r\n");
+            return true;
+        } catch (IOException e) {
+            broken = true;
+            return false;
+        }
+    }
+
+    void transactionCompleted() {
+        transactions++;
+        lastUsedAt = System.currentTimeMillis();
+    }
+
+    public int getTransactions() {
+        return transactions;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public long getLastUsedAt() {
+        return lastUsedAt;
+    }
+
+    public boolean isPipelining() {
+        return pipelining;
+    }
+
+    public boolean isUsable() {
+        return !broken && !socket.isClosed() && socket.isConnected();
+    }
+
+    /**
+     * Envía QUIT (si la conexión sigue viva) y cierra el socket.
+     */
+    public void close() {
+        try {
+            if (isUsable()) {
+                write("QUIT\r\n");
+                flush();
+                ClientSMTP.readResponse(input);
+            }
+        } catch (IOException e) {
+            // El servidor ya pudo haber cerrado; no importa
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                System.err.println("Error cerrando conexión SMTP: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.tecnoWebEmail.Service.service_email;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Pool de conexiones SMTP de larga duración.
+ *
+ * Cada hilo de respuesta toma una conexión, envía su transacción y la
+ * devuelve; así un ciclo con cientos de respuestas hace sólo unos pocos
+ * saludos (HELO). Las conexiones ociosas por más de {@code maxIdleMs}, las que
+ * superan {@code maxTransactions} o las que fallaron se cierran en lugar de
+ * volver al pool.
+ */
+public class SmtpConnectionPool {
+
+    private final String host;
+    private final int port;
+    private final int timeoutMs;
+    private final long maxIdleMs;
+    private final int maxTransactions;
+    private final MailMetrics metrics;
+
+    // LIFO: se reutiliza primero la conexión usada más recientemente
+    private final LinkedBlockingDeque<SmtpConnection> idle = new LinkedBlockingDeque<>();
+    private final Semaphore permits;
+
+    public SmtpConnectionPool(String host, int port, int maxConnections, int timeoutMs,
+                              long maxIdleMs, int maxTransactions, MailMetrics metrics) {
+        this.host = host;
+        this.port = port;
+        this.timeoutMs = timeoutMs;
+        this.maxIdleMs = maxIdleMs;
+        this.maxTransactions = Math.max(1, maxTransactions);
+        this.metrics = metrics;
+        this.permits = new Semaphore(Math.max(1, maxConnections));
+    }
+
+    /**
+     * Toma una conexión lista para una nueva transacción. Si hay una ociosa
+     * válida se reutiliza (con RSET); si no, se abre una nueva.
+     */
+    public SmtpConnection borrow() throws IOException, InterruptedException {
+        permits.acquire();
+        try {
+            SmtpConnection connection;
+            while ((connection = idle.pollFirst()) != null) {
+                if (isExpired(connection) || !connection.reset()) {
+                    connection.close();
+                    continue;
+                }
+                metrics.recordSmtpConnectionReused();
+                return connection;
+            }
+            return openNew();
+        } catch (IOException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Reemplaza una conexión reutilizada que se cayó a mitad de camino por una
+     * nueva, conservando el permiso tomado con {@link #borrow()}.
+     */
+    public SmtpConnection reopen(SmtpConnection broken) throws IOException {
+        broken.close();
+        return openNew();
+    }
+
+    private SmtpConnection openNew() throws IOException {
+        long start = System.nanoTime();
+        SmtpConnection connection = SmtpConnection.open(host, port, timeoutMs);
+        metrics.recordSmtpHandshake(System.nanoTime() - start);
+        return connection;
+    }
+
+    /**
+     * Devuelve la conexión al pool, o la cierra si ya no sirve.
+     */
+    public void release(SmtpConnection connection) {
+        try {
+            if (connection.isUsable() && connection.getTransactions() < maxTransactions) {
+                idle.offerFirst(connection);
+            } else {
+                connection.close();
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Cierra las conexiones que pasaron demasiado tiempo sin usarse, para no
+     * esperar a que el servidor las corte por inactividad.
+     */
+    public void evictIdle() {
+        Iterator<SmtpConnection> it = idle.iterator();
+        while (it.hasNext()) {
+            SmtpConnection connection = it.next();
+            if (isExpired(connection) && idle.remove(connection)) {
+                connection.close();
+            }
+        }
+    }
+
+    public void closeAll() {
+        SmtpConnection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            connection.close();
+        }
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    private boolean isExpired(SmtpConnection connection) {
+        return System.currentTimeMillis() - connection.getLastUsedAt() > maxIdleMs;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.tecnoWebEmail.Service.service_email;
+
+import java.io.IOException;
+
+/**
+ * Respuesta de error del servidor SMTP (código 4xx o 5xx).
+ * Los 5xx son permanentes: reintentar el mismo mensaje no sirve.
+ */
+public class SmtpException extends IOException {
+
+    private final int code;
+
+    public SmtpException(int code, String message) {
+        super(message);
+        this.code = code;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public boolean isPermanent() {
+        return code >= 500;
+    }
+}
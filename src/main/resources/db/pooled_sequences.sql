@@ -0,0 +1,44 @@
+-- Migración de IDENTITY a secuencias con incremento 50 (pooled de Hibernate).
+--
+-- Se ejecuta al iniciar la aplicación (spring.sql.init), antes de que Hibernate
+-- revise el esquema. Es idempotente: una tabla se migra sólo si existe y su
+-- secuencia todavía no. En una base nueva no hace nada y Hibernate crea las
+-- tablas y secuencias directamente.
+--
+-- Por cada tabla:
+--   1. crea <tabla>_seq con INCREMENT BY 50 (igual que allocationSize);
+--   2. la posiciona para que el primer bloque empiece después del MAX(id);
+--   3. quita IDENTITY / DEFAULT de la columna id: los ids los asigna Hibernate.
+DO $$
+DECLARE
+    t record;
+BEGIN
+    FOR t IN SELECT * FROM (VALUES
+            ('clients', 'id'),
+            ('installments', 'id'),
+            ('orders', 'id'),
+            ('order_details', 'id'),
+            ('outbound_emails', 'outbound_email_id'),
+            ('payments', 'id'),
+            ('processed_emails', 'id'),
+            ('products', 'product_id'),
+            ('product_movements', 'product_movement_id'),
+            ('product_supplies_bom', 'product_supply_id'),
+            ('production_orders', 'id'),
+            ('roles', 'id'),
+            ('supplies', 'supply_id'),
+            ('supply_movements', 'supply_movement_id'),
+            ('users', 'id')
+        ) AS v(table_name, id_column)
+    LOOP
+        IF to_regclass(t.table_name) IS NOT NULL AND to_regclass(t.table_name || '_seq') IS NULL THEN
+            EXECUTE format('CREATE SEQUENCE %I INCREMENT BY 50', t.table_name || '_seq');
+            -- nextval devuelve el tope del bloque: MAX(id) + 50 reserva MAX(id)+1 .. MAX(id)+50
+            EXECUTE format('SELECT setval(%L, COALESCE((SELECT MAX(%I) FROM %I), 0) + 50, false)',
+                    t.table_name || '_seq', t.id_column, t.table_name);
+            EXECUTE format('ALTER TABLE %I ALTER COLUMN %I DROP IDENTITY IF EXISTS', t.table_name, t.id_column);
+            EXECUTE format('ALTER TABLE %I ALTER COLUMN %I DROP DEFAULT', t.table_name, t.id_column);
+        END IF;
+    END LOOP;
+END $$
+@@
@@ -0,0 +1,89 @@
+package com.example.tecnoWebEmail.Commands;
+
+import com.example.tecnoWebEmail.Service.EmailResponseService;
+import com.example.tecnoWebEmail.Service.service_email.EmailReply;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class BatchCommandTest {
+
+	private static final String BODY = "INSPRO[\"A\"]\nFALLA[\"x\"]\nINSSUP[\"B\"]\n";
+
+	private final EmailResponseService emailResponseService = new EmailResponseService();
+	private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+	private final BatchCommand batch = new BatchCommand();
+	private CommandDefinition insertProduct;
+	private CommandDefinition insertSupply;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		insertProduct = command("INSPRO", EmailReply.text("Producto creado"));
+		insertSupply = command("INSSUP", EmailReply.text("Insumo creado"));
+		// Los handlers informan sus errores como respuesta formateada, no con excepciones
+		CommandDefinition failing = command("FALLA",
+				EmailReply.text(emailResponseService.formatErrorResponse("Stock insuficiente", "FALLA")));
+
+		CommandRegistry registry = mock(CommandRegistry.class);
+		when(registry.find("INSPRO")).thenReturn(insertProduct);
+		when(registry.find("INSSUP")).thenReturn(insertSupply);
+		when(registry.find("FALLA")).thenReturn(failing);
+		when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+		ReflectionTestUtils.setField(batch, "emailResponseService", emailResponseService);
+		ReflectionTestUtils.setField(batch, "commandRegistry", registry);
+		ReflectionTestUtils.setField(batch, "transactionManager", transactionManager);
+		ReflectionTestUtils.setField(batch, "maxLines", 500);
+	}
+
+	@Test
+	void atomicModeRollsBackEarlierLinesOnFirstError() throws Exception {
+		String response = batch.handleBatch(new String[]{"ATOMICO"}, BODY);
+
+		ArgumentCaptor<TransactionStatus> status = ArgumentCaptor.forClass(TransactionStatus.class);
+		verify(transactionManager).commit(status.capture());
+		assertTrue(status.getValue().isRollbackOnly());
+		verify(insertSupply, never()).invoke(any(), any());
+
+		assertTrue(response.contains("Línea 1 INSPRO: REVERTIDO\n"), response);
+		assertTrue(response.contains("Línea 2 FALLA: ERROR - Stock insuficiente\n"), response);
+		assertTrue(response.contains("Línea 3 INSSUP[\"B\"]: NO EJECUTADO\n"), response);
+		assertTrue(response.contains("ningún cambio del lote fue guardado"), response);
+	}
+
+	@Test
+	void defaultModeKeepsLinesThatSucceeded() throws Exception {
+		String response = batch.handleBatch(new String[]{"*"}, BODY);
+
+		verifyNoInteractions(transactionManager);
+		verify(insertProduct, times(1)).invoke(any(), any());
+		verify(insertSupply, times(1)).invoke(any(), any());
+
+		assertTrue(response.contains("Línea 1 INSPRO: OK\n"), response);
+		assertTrue(response.contains("Línea 2 FALLA: ERROR - Stock insuficiente\n"), response);
+		assertTrue(response.contains("Línea 3 INSSUP: OK\n"), response);
+		assertFalse(response.contains("REVERTIDO"), response);
+	}
+
+	private static CommandDefinition command(String name, EmailReply reply) throws Exception {
+		CommandDefinition command = mock(CommandDefinition.class);
+		when(command.getName()).thenReturn(name);
+		when(command.usage()).thenReturn(name + "[\"x\"]");
+		when(command.invoke(any(), any())).thenReturn(reply);
+		return command;
+	}
+}
@@ -0,0 +1,119 @@
+package com.example.tecnoWebEmail.Commands;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * {@link CommandParser} contra la extracción con expresiones regulares que
+ * tenía CommandProcessor (extractCommand / extractParameters, sin los
+ * println de depuración). {@code regex} compila los Pattern en cada llamada
+ * como el código original; {@code regexPrecompiled} es la misma lógica con
+ * los Pattern ya compilados, para separar el costo de compilarlos.
+ *
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/test-cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/test-cp.txt) org.openjdk.jmh.Main CommandParserBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandParserBenchmark {
+
+	private static final Pattern COMMAND = Pattern.compile("^([A-Z]+)\\[");
+	private static final Pattern BRACKETS = Pattern.compile("\\[(.*)\\]");
+	private static final Pattern QUOTED = Pattern.compile("\"([^\"]*?)\"");
+
+	@Param({"LISCLI", "INSCLI", "ADDETM"})
+	public String command;
+
+	private String subject;
+	private final ParsedCommand reused = new ParsedCommand();
+
+	@Setup
+	public void setUp() {
+		subject = switch (command) {
+			case "LISCLI" -> "LISCLI[\"*\"]";
+			case "INSCLI" -> "INSCLI[\"1234567\",\"Juan\",\"Perez\",\"juan.perez@example.com\",\"70012345\",\"Av. Siempre Viva 742\"]";
+			default -> "ADDETM[\"15\",\"1:2\",\"2:5\",\"3:1\",\"4:10\",\"5:3\",\"6:7\",\"7:2\",\"8:1\",\"9:4\",\"10:6\"]";
+		};
+	}
+
+	@Benchmark
+	public void parser(Blackhole blackhole) {
+		ParsedCommand parsed = CommandParser.parse(subject);
+		blackhole.consume(parsed.getName());
+		blackhole.consume(parsed.getParameters());
+	}
+
+	@Benchmark
+	public void parserReused(Blackhole blackhole) {
+		ParsedCommand parsed = CommandParser.parse(subject, reused);
+		blackhole.consume(parsed.getName());
+		blackhole.consume(parsed.getParameters());
+	}
+
+	@Benchmark
+	public void regex(Blackhole blackhole) {
+		blackhole.consume(extractCommand(subject, Pattern.compile("^([A-Z]+)\\[")));
+		blackhole.consume(extractParameters(subject, Pattern.compile("\\[(.*)\\]"), Pattern.compile("\"([^\"]*?)\"")));
+	}
+
+	@Benchmark
+	public void regexPrecompiled(Blackhole blackhole) {
+		blackhole.consume(extractCommand(subject, COMMAND));
+		blackhole.consume(extractParameters(subject, BRACKETS, QUOTED));
+	}
+
+	// --- Extracción anterior (CommandProcessor antes de CommandParser) ---
+
+	private static String extractCommand(String subject, Pattern pattern) {
+		Matcher matcher = pattern.matcher(subject.trim());
+		if (matcher.find()) {
+			return matcher.group(1);
+		}
+		throw new IllegalArgumentException("Formato de comando inválido. Use: COMANDO[\"parametros\"]");
+	}
+
+	private static String[] extractParameters(String subject, Pattern brackets, Pattern quoted) {
+		Matcher matcher = brackets.matcher(subject.trim());
+		if (matcher.find()) {
+			String paramString = matcher.group(1);
+			if (paramString.equals("*") || paramString.equals("\"*\"")) {
+				return new String[]{"*"};
+			}
+			if (paramString.contains(",")) {
+				Matcher paramMatcher = quoted.matcher(paramString);
+				List<String> params = new ArrayList<>();
+				while (paramMatcher.find()) {
+					params.add(paramMatcher.group(1));
+				}
+				return params.toArray(new String[0]);
+			}
+			if (paramString.startsWith("\"") && paramString.endsWith("\"")) {
+				paramString = paramString.substring(1, paramString.length() - 1);
+			}
+			return new String[]{paramString};
+		}
+		return new String[0];
+	}
+}
@@ -0,0 +1,100 @@
+package com.example.tecnoWebEmail.Commands;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class CommandParserTest {
+
+	private static void assertParsed(String subject, String name, String... parameters) {
+		ParsedCommand parsed = CommandParser.parse(subject);
+		assertEquals(name, parsed.getName(), subject);
+		assertArrayEquals(parameters, parsed.getParameters(), subject);
+	}
+
+	@Test
+	void parsesCorpusOfValidSubjects() {
+		assertParsed("LISCLI[\"*\"]", "LISCLI", "*");
+		assertParsed("LISCLI[*]", "LISCLI", "*");
+		assertParsed("HELP[]", "HELP");
+		assertParsed("  lispro[ ]  ", "LISPRO");
+		assertParsed("BUSCLI[\"123456\"]", "BUSCLI", "123456");
+		assertParsed("BUSCLI[123456]", "BUSCLI", "123456");
+		assertParsed("INSCLI[\"1\", \"Juan\" , \"j@x.com\"]", "INSCLI", "1", "Juan", "j@x.com");
+		assertParsed("ADDET[1, 2 ,3,4.50]", "ADDET", "1", "2", "3", "4.50");
+		assertParsed("INSORD[\"5\",\"Mesa, sillas y [extras]\",\"100\"]", "INSORD", "5", "Mesa, sillas y [extras]", "100");
+		assertParsed("INSPRO[\"A\",\"Dice \\\"hola\\\"\",\"c:\\\\tmp\"]", "INSPRO", "A", "Dice \"hola\"", "c:\\tmp");
+		assertParsed("UPDROL[\"1\",\"\",\"desc\"]", "UPDROL", "1", "", "desc");
+		assertParsed("LISCLI[\"*\"] texto agregado por el cliente", "LISCLI", "*");
+		assertParsed("BUSSUP[\"Tela ñandú\"]", "BUSSUP", "Tela ñandú");
+	}
+
+	@Test
+	void rejectsMalformedSubjects() {
+		String[] malformed = {
+				null, "", "   ", "LISCLI", "[\"*\"]", "Re: LISCLI[\"*\"]", "LIS CLI[\"*\"]",
+				"LISCLI[\"*\"", "LISCLI[\"*", "INSCLI[\"a\",", "INSCLI[\"a\" \"b\"]", "INSCLI[a\"b\"]",
+				"INSCLI[\"a\"x]", "BUSCLI[\"abc\\\"]"
+		};
+		for (String subject : malformed) {
+			assertThrows(IllegalArgumentException.class, () -> CommandParser.parse(subject), String.valueOf(subject));
+		}
+	}
+
+	@Test
+	void reusesParsedCommandBetweenCalls() {
+		ParsedCommand target = new ParsedCommand();
+		CommandParser.parse("INSCLI[\"1\",\"2\",\"3\",\"4\",\"5\"]", target);
+		assertEquals(5, target.getParameterCount());
+		CommandParser.parse("BUSCLI[\"9\"]", target);
+		assertEquals("BUSCLI", target.getName());
+		assertArrayEquals(new String[]{"9"}, target.getParameters());
+	}
+
+	@Test
+	void roundTripsRandomQuotedParameters() {
+		Random random = new Random(21);
+		String alphabet = "abcXYZ019 ,[]\"\\*.-@ñ";
+		for (int i = 0; i < 5000; i++) {
+			String[] expected = new String[random.nextInt(6)];
+			StringBuilder subject = new StringBuilder("CMD[");
+			for (int p = 0; p < expected.length; p++) {
+				StringBuilder value = new StringBuilder();
+				int len = random.nextInt(12);
+				for (int k = 0; k < len; k++) {
+					value.append(alphabet.charAt(random.nextInt(alphabet.length())));
+				}
+				expected[p] = value.toString();
+				if (p > 0) subject.append(random.nextBoolean() ? "," : " , ");
+				subject.append('"').append(expected[p].replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+			}
+			subject.append(']');
+			assertParsed(subject.toString(), "CMD", expected);
+		}
+	}
+
+	@Test
+	void randomGarbageOnlyFailsWithIllegalArgument() {
+		Random random = new Random(2025);
+		String alphabet = "AZaz[]\",\\ *1";
+		for (int i = 0; i < 20000; i++) {
+			StringBuilder subject = new StringBuilder();
+			int len = random.nextInt(20);
+			for (int k = 0; k < len; k++) {
+				subject.append(alphabet.charAt(random.nextInt(alphabet.length())));
+			}
+			try {
+				CommandParser.parse(subject.toString());
+			} catch (IllegalArgumentException expected) {
+				// entrada inválida: es el único error permitido
+			} catch (RuntimeException e) {
+				fail("Excepción inesperada para [" + subject + "]: " + e);
+			}
+		}
+	}
+}
@@ -0,0 +1,62 @@
+package com.example.tecnoWebEmail.Commands;
+
+import com.example.tecnoWebEmail.Service.EmailResponseService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Method;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CommandProcessorTest {
+
+	private final EmailResponseService emailResponseService = new EmailResponseService();
+	private final CommandExecutor executor = new CommandExecutor(1, 1, 1000);
+	private final CommandProcessor processor = new CommandProcessor();
+	private final OrderDetailCommand orderDetails = mock(OrderDetailCommand.class);
+	private CommandDefinition addDetails;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		// Metadatos reales de ADDETM, con el handler simulado
+		Method handler = OrderDetailCommand.class.getMethod("handleAddDetailsToOrder", String[].class);
+		addDetails = new CommandDefinition(handler.getAnnotation(EmailCommand.class),
+				OrderDetailCommand.class.getAnnotation(CommandGroup.class), orderDetails, handler);
+		when(orderDetails.handleAddDetailsToOrder(any())).thenReturn("OK\n");
+
+		CommandRegistry registry = mock(CommandRegistry.class);
+		when(registry.find("ADDETM")).thenReturn(addDetails);
+		ReflectionTestUtils.setField(executor, "emailResponseService", emailResponseService);
+		ReflectionTestUtils.setField(processor, "emailResponseService", emailResponseService);
+		ReflectionTestUtils.setField(processor, "commandRegistry", registry);
+		ReflectionTestUtils.setField(processor, "commandExecutor", executor);
+	}
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdown();
+	}
+
+	@Test
+	void bulkDetailsAcceptOrderAndASingleProduct() {
+		String reply = processor.processCommand("ADDETM[\"1\",\"5:2\"]", "cliente@example.com").body();
+
+		assertEquals("OK\n", reply);
+		verify(orderDetails).handleAddDetailsToOrder(new String[]{"1", "5:2"});
+	}
+
+	@Test
+	void bulkDetailsWithoutProductsAreRejectedWithUsage() {
+		String reply = processor.processCommand("ADDETM[\"1\"]", "cliente@example.com").body();
+
+		assertTrue(emailResponseService.isErrorResponse(reply), reply);
+		assertTrue(reply.contains("Se esperaban 2: ADDETM[\"orderId\",\"productId:cantidad\"]"), reply);
+	}
+}
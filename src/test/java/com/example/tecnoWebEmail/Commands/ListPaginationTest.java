@@ -0,0 +1,81 @@
+package com.example.tecnoWebEmail.Commands;
+
+import com.example.tecnoWebEmail.Service.Keyset;
+import com.example.tecnoWebEmail.Service.service_email.EmailReply;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ListPaginationTest {
+
+	private final ListPagination pagination = new ListPagination(200, 1000);
+
+	@Test
+	void parsesOptionsAndBuildsNextPageCommand() {
+		ListPagination.ListQuery query = pagination.parse(
+				new String[]{"pedido=5", "after=123", "limit=5000"}, 0, "pedido", "tipo");
+		assertEquals(123L, query.after());
+		assertEquals(1000, query.limit()); // se recorta al máximo
+		assertEquals("5", query.filter("pedido"));
+
+		StringBuilder response = new StringBuilder();
+		pagination.appendFooter(response, "LISPAG", query, new Keyset.Page(1000, 1123L));
+		assertTrue(response.toString().contains("LISPAG[\"pedido=5\",\"after=1123\",\"limit=1000\"]"));
+
+		assertThrows(IllegalArgumentException.class, () -> pagination.parse(new String[]{"color=rojo"}, 0, "pedido"));
+		assertNull(pagination.parse(new String[]{"*"}, 0).after());
+	}
+
+	@Test
+	void readsOneRowAheadToDetectNextPage() {
+		List<Long> sent = new ArrayList<>();
+		Keyset.Page page = Keyset.forEach(Stream.of(1L, 2L, 3L), 2, id -> id, (id, n) -> sent.add(id));
+		assertEquals(List.of(1L, 2L), sent);
+		assertEquals(2L, page.next());
+
+		Keyset.Page last = Keyset.forEach(Stream.of(3L), 2, id -> id, (id, n) -> sent.add(id));
+		assertEquals(1, last.count());
+		assertNull(last.next());
+	}
+
+	@Test
+	void switchesToCompressedCsvAboveRowThreshold() throws Exception {
+		ListPagination small = new ListPagination(200, 1000, 2, 1_000_000, "zip");
+		ListPagination.ListQuery query = small.parse(new String[0], 0);
+
+		ListReply text = small.reply("LISPAG", query, "id", "motivo");
+		text.text().append("ENCABEZADO\n");
+		text.row(out -> out.append(" PAGO 1\n"), 1L, "contado");
+		EmailReply shortReply = text.finish(new Keyset.Page(1, null));
+		assertNull(shortReply.attachment());
+		assertTrue(shortReply.body().startsWith("ENCABEZADO\n PAGO 1\n"));
+
+		ListReply big = small.reply("LISPAG", query, "id", "motivo");
+		big.text().append("ENCABEZADO\n");
+		for (long id = 1; id <= 3; id++) {
+			long n = id;
+			big.row(out -> out.append(" PAGO ").append(n).append("\n"), id, id == 2 ? "cuota \"2\", saldo" : "contado");
+		}
+		EmailReply reply = big.finish(new Keyset.Page(3, null));
+		assertEquals("lispag.zip", reply.attachment().fileName());
+		assertFalse(reply.body().contains(" PAGO "));
+		assertTrue(reply.body().contains("Listado adjunto: lispag.zip"));
+
+		try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(reply.attachment().data()))) {
+			assertEquals("lispag.csv", zip.getNextEntry().getName());
+			String csv = new String(zip.readAllBytes(), StandardCharsets.UTF_8);
+			assertEquals("\uFEFFid,motivo\r\n1,contado\r\n2,\"cuota \"\"2\"\", saldo\"\r\n3,contado\r\n", csv);
+		}
+	}
+}
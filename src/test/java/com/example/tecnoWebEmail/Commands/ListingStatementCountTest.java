@@ -0,0 +1,109 @@
+package com.example.tecnoWebEmail.Commands;
+
+import com.example.tecnoWebEmail.Models.Client;
+import com.example.tecnoWebEmail.Models.Installment;
+import com.example.tecnoWebEmail.Models.Order;
+import com.example.tecnoWebEmail.Models.Role;
+import com.example.tecnoWebEmail.Models.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cada listado debe resolverse con una sola sentencia, sin importar cuántas
+ * filas devuelva (sin cargas LAZY por fila). Corre contra un Postgres
+ * descartable en un contenedor (nunca la base de application.properties); sin
+ * Docker la clase se omite.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional
+class ListingStatementCountTest {
+
+	@Container
+	@ServiceConnection
+	static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private OrderCommand orderCommand;
+
+	@Autowired
+	private UserCommand userCommand;
+
+	@Autowired
+	private InstallmentCommand installmentCommand;
+
+	private Long orderId;
+
+	@BeforeEach
+	void createRows() {
+		String suffix = Long.toString(System.nanoTime() % 1_000_000_000L);
+		Role role = new Role("ROLE_T" + suffix);
+		entityManager.persist(role);
+		for (int i = 0; i < 3; i++) {
+			entityManager.persist(new User("u" + i + suffix, "user" + i + suffix, "x",
+					"u" + i + suffix + "@test.local", "Nombre", "Apellido", role));
+
+			Client client = new Client("c" + i + suffix, "Cliente" + i, null, null, null, null);
+			entityManager.persist(client);
+			Order order = new Order();
+			order.setClient(client);
+			order.setStatus("Confirmed");
+			order.setPaymentCondition("Credit");
+			order.setTotalAmount(new BigDecimal("90.00"));
+			entityManager.persist(order);
+			orderId = order.getId();
+
+			for (int n = 1; n <= 3; n++) {
+				Installment installment = new Installment();
+				installment.setOrder(order);
+				installment.setInstallmentNumber(n);
+				installment.setInstallmentAmount(new BigDecimal("30.00"));
+				installment.setDueDate(LocalDate.now().minusDays(n));
+				entityManager.persist(installment);
+			}
+		}
+		entityManager.flush();
+		entityManager.clear();
+	}
+
+	@Test
+	void listingsRunOneStatementEach() {
+		assertSingleStatement(() -> orderCommand.handleListOrders(new String[]{"estado=Confirmed"}).body());
+		assertSingleStatement(() -> userCommand.handleListUsers(new String[0]));
+		assertSingleStatement(() -> installmentCommand.handleListInstallmentsByOrder(new String[]{orderId.toString()}));
+		assertSingleStatement(() -> installmentCommand.handleListOverdueInstallments());
+		assertSingleStatement(() -> installmentCommand.handleListInstallmentsByState(new String[]{"Pending"}));
+	}
+
+	private void assertSingleStatement(Supplier<String> command) {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		String response = command.get();
+		assertTrue(response.endsWith("OK\n"), response);
+		assertEquals(1, statistics.getPrepareStatementCount(), response);
+	}
+}
@@ -0,0 +1,36 @@
+package com.example.tecnoWebEmail.Service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterTest {
+
+	@Test
+	void neverForgetsAddedKeysAndKeepsFalsePositivesLow() {
+		BloomFilter filter = new BloomFilter(10_000, 0.01);
+		for (int i = 0; i < 10_000; i++) {
+			ProcessedMessageService.MessageKey key = ProcessedMessageService.MessageKey.of("<" + i + "@mail.example.com>");
+			filter.add(key.h1(), key.h2());
+		}
+		for (int i = 0; i < 10_000; i++) {
+			ProcessedMessageService.MessageKey key = ProcessedMessageService.MessageKey.of("<" + i + "@mail.example.com>");
+			assertTrue(filter.mightContain(key.h1(), key.h2()));
+		}
+
+		int falsePositives = 0;
+		for (int i = 0; i < 10_000; i++) {
+			ProcessedMessageService.MessageKey key = ProcessedMessageService.MessageKey.of("<otro-" + i + "@mail.example.com>");
+			if (filter.mightContain(key.h1(), key.h2())) falsePositives++;
+		}
+		assertTrue(falsePositives < 200, "falsos positivos: " + falsePositives);
+	}
+
+	@Test
+	void messageKeyIgnoresAngleBracketsAndSurvivesHexRoundTrip() {
+		ProcessedMessageService.MessageKey key = ProcessedMessageService.MessageKey.of(" <abc@example.com> ");
+		assertEquals(key, ProcessedMessageService.MessageKey.of("abc@example.com"));
+		assertEquals(64, key.hex().length());
+		assertEquals(key, ProcessedMessageService.MessageKey.fromHex(key.hex()));
+	}
+}
@@ -0,0 +1,64 @@
+package com.example.tecnoWebEmail.Service;
+
+import com.example.tecnoWebEmail.Service.BomCache.Bom;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class BomCacheTest {
+
+	private static Bom bom(int lines) {
+		long[] ids = new long[lines];
+		long[] amounts = new long[lines];
+		for (int i = 0; i < lines; i++) {
+			ids[i] = i + 1;
+			amounts[i] = BomCache.scale(new BigDecimal("1.25"));
+		}
+		return new Bom(ids, ids, amounts, new long[lines]);
+	}
+
+	@Test
+	void evictsLeastRecentlyUsedWhenLineLimitIsExceeded() {
+		BomCache cache = new BomCache(10);
+		cache.put(1L, bom(3)); // peso 4
+		cache.put(2L, bom(3)); // peso 4
+		assertNotNull(cache.get(1L)); // 1 pasa a ser la más reciente
+		cache.put(3L, bom(3)); // 12 > 10: se descarta la 2
+
+		assertNull(cache.get(2L));
+		assertNotNull(cache.get(1L));
+		assertNotNull(cache.get(3L));
+		assertEquals(8, cache.getLines());
+		assertEquals(1, cache.getEvictions());
+		assertEquals(3, cache.getHits());
+		assertEquals(1, cache.getMisses());
+	}
+
+	@Test
+	void invalidationReleasesLinesAndAmountsKeepScale() {
+		BomCache cache = new BomCache(100);
+		cache.put(7L, bom(2));
+		assertEquals(new BigDecimal("1.25"), cache.get(7L).amount(0));
+
+		cache.invalidate(7L);
+		assertNull(cache.get(7L));
+		assertEquals(0, cache.getLines());
+		assertEquals(1, cache.getInvalidations());
+	}
+
+	@Test
+	void loadStartedBeforeInvalidationIsNotCached() {
+		BomCache cache = new BomCache(100);
+		long loadedAt = cache.generation();
+		cache.invalidate(7L); // cambio confirmado mientras se consultaba la base
+
+		assertFalse(cache.put(7L, bom(2), loadedAt));
+		assertNull(cache.get(7L));
+		assertEquals(0, cache.getLines());
+	}
+}
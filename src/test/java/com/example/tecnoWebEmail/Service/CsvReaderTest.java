@@ -0,0 +1,58 @@
+package com.example.tecnoWebEmail.Service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CsvReaderTest {
+
+	@Test
+	void quotedFieldsKeepCommasAndDoubledQuotes() throws Exception {
+		CsvReader csv = new CsvReader(new StringReader(
+				"sku,nombre,descripcion\r\n" +
+				"A1,\"Mesa, roble\",\"Dice \"\"hola\"\"\"\r\n"));
+
+		assertArrayEquals(new String[]{"sku", "nombre", "descripcion"}, csv.readRow());
+		assertArrayEquals(new String[]{"A1", "Mesa, roble", "Dice \"hola\""}, csv.readRow());
+		assertNull(csv.readRow());
+	}
+
+	@Test
+	void crlfAndTrailingEmptyLinesDoNotProduceRows() throws Exception {
+		CsvReader csv = new CsvReader(new StringReader("a,b\r\n1,2\r\n\r\n"));
+
+		assertArrayEquals(new String[]{"a", "b"}, csv.readRow());
+		assertArrayEquals(new String[]{"1", "2"}, csv.readRow());
+		assertEquals(2, csv.getRowLineNumber());
+		assertNull(csv.readRow());
+	}
+
+	@Test
+	void quotedLineBreakJoinsLinesAndKeepsRowStart() throws Exception {
+		CsvReader csv = new CsvReader(new StringReader("\uFEFFnombre;direccion\r\nAna;\"Calle 1\r\nPiso 2\"\r\nLuis;Av. 3\r\n"));
+
+		// BOM de Excel y separador ';' detectado en la primera fila
+		assertArrayEquals(new String[]{"nombre", "direccion"}, csv.readRow());
+		assertArrayEquals(new String[]{"Ana", "Calle 1\nPiso 2"}, csv.readRow());
+		assertEquals(2, csv.getRowLineNumber());
+		assertArrayEquals(new String[]{"Luis", "Av. 3"}, csv.readRow());
+		assertEquals(4, csv.getRowLineNumber());
+	}
+
+	@Test
+	void unclosedQuoteIsReportedWithItsLine() {
+		CsvReader csv = new CsvReader(new StringReader("a,b\n1,\"sin cerrar\n"));
+
+		IOException e = assertThrows(IOException.class, () -> {
+			csv.readRow();
+			csv.readRow();
+		});
+		assertEquals("Comillas sin cerrar en la fila de la línea 2", e.getMessage());
+	}
+}
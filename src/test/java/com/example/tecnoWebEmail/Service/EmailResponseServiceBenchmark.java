@@ -0,0 +1,201 @@
+package com.example.tecnoWebEmail.Service;
+
+import com.example.tecnoWebEmail.Commands.CommandDefinition;
+import com.example.tecnoWebEmail.Commands.CommandRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Respuestas de {@link EmailResponseService} contra la versión anterior, que
+ * armaba cada respuesta con un StringBuilder creciente y formateaba la fecha
+ * en cada llamada (copiada abajo tal cual). Con {@code -prof gc} la columna
+ * gc.alloc.rate.norm da los bytes reservados por respuesta.
+ *
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/test-cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/test-cp.txt) org.openjdk.jmh.Main EmailResponseServiceBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EmailResponseServiceBenchmark {
+
+	private static final String COMMAND = "INSCLI";
+	private static final String ERROR = "Ya existe un cliente con CI 1234567";
+	private static final String UNKNOWN = "LISTAR[\"*\"]";
+
+	private EmailResponseService service;
+
+	@Setup
+	public void setUp() {
+		// Registro simulado con tantas entradas como la lista fija anterior
+		List<CommandDefinition> commands = new ArrayList<>();
+		for (int i = 0; i < 30; i++) {
+			CommandDefinition command = mock(CommandDefinition.class);
+			when(command.getGroup()).thenReturn("GRUPO " + i / 5);
+			when(command.usage()).thenReturn("CMD" + i + "[\"param1\",\"param2\",\"param3\"]");
+			when(command.getDescription()).thenReturn("Descripción del comando " + i);
+			commands.add(command);
+		}
+		CommandRegistry registry = mock(CommandRegistry.class);
+		when(registry.getCommands()).thenReturn(commands);
+		service = new EmailResponseService(Clock.systemDefaultZone(), registry);
+	}
+
+	@Benchmark
+	public String header() {
+		return service.generateHeader(COMMAND);
+	}
+
+	@Benchmark
+	public String headerLegacy() {
+		return Legacy.generateHeader(COMMAND);
+	}
+
+	@Benchmark
+	public String error() {
+		return service.formatErrorResponse(ERROR, COMMAND);
+	}
+
+	@Benchmark
+	public String errorLegacy() {
+		return Legacy.formatErrorResponse(ERROR, COMMAND);
+	}
+
+	@Benchmark
+	public String unknown() {
+		return service.formatUnknownCommandResponse(UNKNOWN);
+	}
+
+	@Benchmark
+	public String unknownLegacy() {
+		return Legacy.formatUnknownCommandResponse(UNKNOWN);
+	}
+
+	// --- EmailResponseService anterior ---
+
+	private static final class Legacy {
+		private static final String SEPARATOR = "================================================";
+		private static final String MINI_SEPARATOR = "------------------------";
+		private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
+		private static final String ERROR_TITLE = " ERROR EN LA OPERACIÓN\n";
+		private static final String ERROR_DETAIL = " Detalle del error:\n";
+		private static final String UNKNOWN_TITLE = " COMANDO NO VÁLIDO\n";
+
+		static String generateHeader(String comando) {
+			StringBuilder header = new StringBuilder();
+			header.append(SEPARATOR).append("\n");
+			header.append("    SISTEMA DE GESTIÓN - GRUPO 21SA\n");
+			header.append("    Respuesta para comando: ").append(comando).append("\n");
+			header.append("    Fecha: ").append(LocalDateTime.now().format(DATE_FORMATTER)).append("\n");
+			header.append(SEPARATOR).append("\n\n");
+			return header.toString();
+		}
+
+		static String formatErrorResponse(String error, String command) {
+			StringBuilder response = new StringBuilder();
+			response.append(generateHeader(command));
+
+			response.append(ERROR_TITLE);
+			response.append(MINI_SEPARATOR).append("\n");
+			response.append("Se produjo un error al procesar su solicitud:\n\n");
+			response.append(ERROR_DETAIL);
+			response.append("   ").append(error).append("\n\n");
+
+			response.append(" AYUDA:\n");
+			response.append("   • Verifique que todos los parámetros sean correctos\n");
+			response.append("   • Asegúrese de usar el formato correcto del comando\n");
+			response.append("   • Contacte al administrador si el problema persiste\n");
+
+			return response.toString();
+		}
+
+		static String formatUnknownCommandResponse(String command) {
+			StringBuilder response = new StringBuilder();
+			response.append(generateHeader("COMANDO NO RECONOCIDO"));
+
+			response.append(UNKNOWN_TITLE);
+			response.append(MINI_SEPARATOR).append("\n");
+			response.append("El comando '").append(command).append("' no es reconocido por el sistema.\n\n");
+
+			response.append("========== LISTA DE COMANDOS DISPONIBLES ==========\n\n");
+
+			response.append("--- GESTIÓN DE USUARIOS Y ROLES ---\n");
+			response.append("   • LISUSU[]: Listar todos los usuarios.\n");
+			response.append("   • BUSUSU[\"ci\"]: Buscar un usuario por su CI.\n");
+			response.append("   • INSUSU[\"ci\",\"user\",\"pass\",\"email\",\"nom\",\"ape\",\"rolName\"]\n");
+			response.append("   • UPDUSU[\"ci_buscar\",\"n_user\",\"n_email\",\"n_nom\",\"n_ape\",\"n_rolName\"]\n\n");
+			response.append("   • LISROL[]: Listar todos los roles.\n");
+			response.append("   • BUSROL[\"nombreRol\"]: Buscar un rol por su nombre.\n");
+			response.append("   • INSROL[\"nombreRol\"]\n");
+			response.append("   • UPDROL[\"rolActual\",\"rolNuevo\"]\n\n");
+
+			response.append("--- GESTIÓN DE CLIENTES ---\n");
+			response.append("   • LISCLI[]: Listar todos los clientes.\n");
+			response.append("   • BUSCLI[\"ci\"]: Buscar un cliente por su CI.\n");
+			response.append("   • INSCLI[\"ci\",\"nombre\",\"apellido\",\"email\",\"telefono\",\"direccion\"]\n\n");
+
+			response.append("--- GESTIÓN DE PRODUCTOS E INSUMOS (Ejemplos) ---\n");
+			response.append("   • LISPRO[]: Listar todos los productos.\n");
+			response.append("   • INSPRO[\"sku\",\"nombre\",\"desc\",\"precioVenta\",\"stockInicial\"]\n");
+			response.append("   • LISSUP[]: Listar todos los insumos.\n");
+			response.append("   • INSSUP[\"nombre\",\"desc\",\"unidadMedida\",\"stockInicial\"]\n\n");
+
+			response.append("--- FLUJO DE PEDIDOS Y PRODUCCIÓN (EN ORDEN) ---\n");
+			response.append("   1. INSORD[\"ciCliente\",\"ciUsuario\",\"CondicionPago\"]\n");
+			response.append("      (Ej: INSORD[\"123\",\"789\",\"Credit\"])\n");
+			response.append("   2. ADDET[\"idOrden\",\"idProducto\",\"cantidad\"]\n");
+			response.append("      (Ej: ADDET[\"1\",\"1\",\"5\"])\n");
+			response.append("   3. CONFORD[\"idOrden\",\"numCuotas\"]\n");
+			response.append("      (Ej Crédito: CONFORD[\"1\",\"3\"])\n");
+			response.append("      (Ej Contado: CONFORD[\"1\",\"0\"])\n");
+			response.append("   4. INSPROD[\"idDetalle\",\"fechaInicio\",\"fechaFin\"]\n");
+			response.append("      (Ej: INSPROD[\"1\",\"2025-11-10\",\"2025-11-20\"])\n\n");
+
+			response.append("--- CONSULTA DE PEDIDOS ---\n");
+			response.append("   • LISORD[]: Listar todas las órdenes.\n");
+			response.append("   • BUSORD[\"idOrden\"]: Buscar una orden por su ID.\n\n");
+
+			response.append("--- GESTIÓN DE PAGOS Y CUOTAS ---\n");
+			response.append("   5. INSPAG[\"idOrden\",\"monto\",\"tipoPago\",\"idCuota\"]\n");
+			response.append("      (Ej Contado: INSPAG[\"1\",\"150.00\",\"Cash\",\"0\"])\n");
+			response.append("      (Ej Crédito: INSPAG[\"1\",\"50.00\",\"Transfer\",\"1\"])\n");
+			response.append("   • LISPAG[]: Listar todos los pagos.\n");
+			response.append("   • BUSPAG[\"idPago\"]: Buscar un pago por su ID.\n");
+			response.append("   • LISPEDPAG[\"idOrden\"]: Listar pagos de una orden.\n");
+			response.append("   • LISCUPAG[\"idCuota\"]: Listar pagos de una cuota.\n\n");
+
+			response.append("--- CONSULTA DE CUOTAS ---\n");
+			response.append("   • LISCUP[\"idOrden\"]: Listar cuotas de una orden.\n");
+			response.append("   • LISVEN[]: Listar todas las cuotas vencidas.\n");
+			response.append("   • LISCES[\"estado\"]: Listar cuotas por estado (Pending, Partial, Paid).\n\n");
+
+			response.append("NOTA: Todos los parámetros de texto deben ir entre comillas dobles.\n");
+			response.append("Las fechas deben estar en formato YYYY-MM-DD.\n");
+
+			return response.toString();
+		}
+	}
+}
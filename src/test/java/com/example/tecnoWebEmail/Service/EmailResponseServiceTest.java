@@ -0,0 +1,105 @@
+package com.example.tecnoWebEmail.Service;
+
+import com.example.tecnoWebEmail.Commands.CommandDefinition;
+import com.example.tecnoWebEmail.Commands.CommandRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class EmailResponseServiceTest {
+
+	private final CommandRegistry registry = registryOf(
+			command("CLIENTES", "LISCLI[\"*\"]", "Listar clientes"),
+			command("CLIENTES", "BUSCLI[\"ci\"]", "Buscar un cliente"),
+			command("PAGOS", "LISPAG[\"*\"]", "Listar pagos"));
+
+	private final AtomicLong millis = new AtomicLong(Instant.parse("2025-11-10T12:30:15.100Z").toEpochMilli());
+	private final EmailResponseService service = new EmailResponseService(new Clock() {
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public long millis() {
+			return millis.get();
+		}
+
+		@Override
+		public Instant instant() {
+			return Instant.ofEpochMilli(millis());
+		}
+	}, registry);
+
+	private static CommandDefinition command(String group, String usage, String description) {
+		CommandDefinition command = mock(CommandDefinition.class);
+		when(command.getGroup()).thenReturn(group);
+		when(command.usage()).thenReturn(usage);
+		when(command.getDescription()).thenReturn(description);
+		return command;
+	}
+
+	private static CommandRegistry registryOf(CommandDefinition... commands) {
+		CommandRegistry registry = mock(CommandRegistry.class);
+		when(registry.getCommands()).thenReturn(List.of(commands));
+		return registry;
+	}
+
+	@Test
+	void timestampIsReusedWithinTheSameSecond() {
+		String first = service.currentTimestamp();
+		millis.addAndGet(800);
+		assertSame(first, service.currentTimestamp());
+		assertEquals("10/11/2025 12:30:15", first);
+
+		millis.addAndGet(200);
+		assertEquals("10/11/2025 12:30:16", service.currentTimestamp());
+	}
+
+	@Test
+	void repliesKeepTheirLayout() {
+		String header = service.generateHeader("LISCLI");
+		assertTrue(header.contains("    Respuesta para comando: LISCLI\n    Fecha: 10/11/2025 12:30:15\n"));
+		assertTrue(header.endsWith("================================================\n\n"));
+
+		String error = service.formatErrorResponse("Cliente no encontrado", "BUSCLI");
+		assertTrue(service.isErrorResponse(error));
+		assertEquals("Cliente no encontrado", service.errorDetail(error));
+
+		String unknown = service.formatUnknownCommandResponse("XYZ");
+		assertTrue(unknown.contains("El comando 'XYZ' no es reconocido por el sistema.\n\n========== LISTA"));
+		assertEquals("Comando no reconocido", service.errorDetail(unknown));
+	}
+
+	@Test
+	void unknownCommandListsTheRegisteredCommandsBySection() {
+		String unknown = service.formatUnknownCommandResponse("XYZ");
+
+		assertTrue(unknown.contains("--- CLIENTES ---\n"
+				+ "   • LISCLI[\"*\"]: Listar clientes\n"
+				+ "   • BUSCLI[\"ci\"]: Buscar un cliente\n\n"
+				+ "--- PAGOS ---\n"
+				+ "   • LISPAG[\"*\"]: Listar pagos\n"));
+
+		// La lista ya quedó armada: no se vuelve a recorrer el registro
+		clearInvocations(registry);
+		service.formatUnknownCommandResponse("ABC");
+		verifyNoInteractions(registry);
+	}
+}
@@ -0,0 +1,190 @@
+package com.example.tecnoWebEmail.Service;
+
+import com.example.tecnoWebEmail.Models.Product;
+import com.example.tecnoWebEmail.Models.Supply;
+import com.example.tecnoWebEmail.Repository.ProductRepository;
+import com.example.tecnoWebEmail.Repository.SupplyRepository;
+import com.example.tecnoWebEmail.Service.BomCache.Bom;
+import com.example.tecnoWebEmail.Service.MrpService.MrpLine;
+import com.example.tecnoWebEmail.Service.MrpService.MrpPlan;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MrpServiceTest {
+
+	// Productos
+	private static final long MESA = 1;
+	private static final long TABLERO_FAB = 2;
+	private static final long BANCO = 3;
+	// Insumos
+	private static final long TABLERO = 10;
+	private static final long TORNILLO = 11;
+	private static final long MADERA = 12;
+
+	private final Map<Long, Bom> boms = new HashMap<>();
+	private final Map<Long, Product> products = new HashMap<>();
+	private final Map<Long, Supply> supplies = new HashMap<>();
+	private final MrpService service = new MrpService();
+
+	@BeforeEach
+	void stubDependencies() {
+		ProductSupplyService productSupplyService = mock(ProductSupplyService.class);
+		when(productSupplyService.getBoms(any())).thenAnswer(invocation -> {
+			Map<Long, Bom> result = new HashMap<>();
+			for (Long id : invocation.<Collection<Long>>getArgument(0)) {
+				result.put(id, boms.getOrDefault(id, bom()));
+			}
+			return result;
+		});
+		ProductRepository productRepository = mock(ProductRepository.class);
+		when(productRepository.findAllById(anyIterable()))
+				.thenAnswer(invocation -> pick(products, invocation.getArgument(0)));
+		SupplyRepository supplyRepository = mock(SupplyRepository.class);
+		when(supplyRepository.findAllById(anyIterable()))
+				.thenAnswer(invocation -> pick(supplies, invocation.getArgument(0)));
+
+		ReflectionTestUtils.setField(service, "productSupplyService", productSupplyService);
+		ReflectionTestUtils.setField(service, "productRepository", productRepository);
+		ReflectionTestUtils.setField(service, "supplyRepository", supplyRepository);
+
+		product(MESA, "Mesa");
+		product(TABLERO_FAB, "Tablero");
+		product(BANCO, "Banco");
+		supply(TABLERO, "Tablero", "3");
+		supply(TORNILLO, "Tornillo", "10");
+		supply(MADERA, "Madera", "4");
+		// Mesa: 1 tablero (se fabrica) + 4 tornillos; Tablero: 2.5 de madera
+		boms.put(MESA, bom(line(TABLERO, "1", TABLERO_FAB), line(TORNILLO, "4", 0)));
+		boms.put(TABLERO_FAB, bom(line(MADERA, "2.5", 0)));
+	}
+
+	@Test
+	void twoLevelBomNetsSubAssemblyStockBeforeExploding() {
+		MrpPlan plan = service.plan(demand(MESA, 5));
+
+		// 5 tableros - 3 en stock = 2 a fabricar, y sólo esos piden madera
+		assertAmount("5", plan.toProduce().get(MESA));
+		assertAmount("2", plan.toProduce().get(TABLERO_FAB));
+		assertEquals("Tablero", plan.productNames().get(TABLERO_FAB));
+
+		MrpLine tablero = line(plan, TABLERO);
+		assertAmount("5", tablero.gross());
+		assertAmount("2", tablero.net());
+		assertEquals(TABLERO_FAB, tablero.manufacturedBy());
+		MrpLine tornillo = line(plan, TORNILLO);
+		assertAmount("20", tornillo.gross());
+		assertAmount("10", tornillo.net());
+		assertNull(tornillo.manufacturedBy());
+		MrpLine madera = line(plan, MADERA);
+		assertAmount("5", madera.gross());
+		assertAmount("1", madera.net());
+	}
+
+	@Test
+	void sharedSubAssemblyIsNettedOnceForAllParents() {
+		boms.put(BANCO, bom(line(TABLERO, "2", TABLERO_FAB)));
+
+		MrpPlan plan = service.plan(demand(MESA, 5, BANCO, 1));
+
+		// 5 + 2 tableros contra un solo stock de 3: faltan 4 (no 2 + 2 - 3 por separado)
+		assertAmount("7", line(plan, TABLERO).gross());
+		assertAmount("4", plan.toProduce().get(TABLERO_FAB));
+		assertAmount("10", line(plan, MADERA).gross());
+		assertAmount("6", line(plan, MADERA).net());
+	}
+
+	@Test
+	void subAssemblyFullyInStockIsNotProduced() {
+		MrpPlan plan = service.plan(demand(MESA, 2));
+
+		assertFalse(plan.toProduce().containsKey(TABLERO_FAB));
+		assertAmount("0", line(plan, TABLERO).net());
+		assertTrue(plan.lines().stream().noneMatch(l -> l.supplyId() == MADERA));
+	}
+
+	@Test
+	void cycleInRecipesIsReportedInsteadOfExploded() {
+		// El tablero pasa a necesitar mesas: Mesa -> Tablero -> Mesa
+		supply(20, "Mesa (insumo)", "0");
+		boms.put(TABLERO_FAB, bom(line(MADERA, "2.5", 0), line(20, "1", MESA)));
+
+		RuntimeException e = assertThrows(RuntimeException.class, () -> service.plan(demand(MESA, 1)));
+		assertTrue(e.getMessage().contains("ciclo"), e.getMessage());
+	}
+
+	private record Line(long supplyId, String amount, long manufacturedBy) {}
+
+	private static Line line(long supplyId, String amount, long manufacturedBy) {
+		return new Line(supplyId, amount, manufacturedBy);
+	}
+
+	private static Bom bom(Line... lines) {
+		long[] relationIds = new long[lines.length];
+		long[] supplyIds = new long[lines.length];
+		long[] amounts = new long[lines.length];
+		long[] manufacturedBy = new long[lines.length];
+		for (int i = 0; i < lines.length; i++) {
+			relationIds[i] = i + 1;
+			supplyIds[i] = lines[i].supplyId();
+			amounts[i] = BomCache.scale(new BigDecimal(lines[i].amount()));
+			manufacturedBy[i] = lines[i].manufacturedBy();
+		}
+		return new Bom(relationIds, supplyIds, amounts, manufacturedBy);
+	}
+
+	private void product(long id, String name) {
+		Product product = new Product();
+		product.setId(id);
+		product.setNombre(name);
+		products.put(id, product);
+	}
+
+	private void supply(long id, String name, String stock) {
+		Supply supply = new Supply(name, null, "u", new BigDecimal(stock));
+		supply.setId(id);
+		supplies.put(id, supply);
+	}
+
+	private static <T> List<T> pick(Map<Long, T> source, Iterable<Long> ids) {
+		List<T> result = new ArrayList<>();
+		for (Long id : ids) {
+			if (source.containsKey(id)) result.add(source.get(id));
+		}
+		return result;
+	}
+
+	private static Map<Long, BigDecimal> demand(long... productAndQuantity) {
+		Map<Long, BigDecimal> demand = new LinkedHashMap<>();
+		for (int i = 0; i < productAndQuantity.length; i += 2) {
+			demand.put(productAndQuantity[i], BigDecimal.valueOf(productAndQuantity[i + 1]));
+		}
+		return demand;
+	}
+
+	private static MrpLine line(MrpPlan plan, long supplyId) {
+		return plan.lines().stream().filter(l -> l.supplyId() == supplyId).findFirst().orElseThrow();
+	}
+
+	private static void assertAmount(String expected, BigDecimal actual) {
+		assertEquals(0, new BigDecimal(expected).compareTo(actual), "esperado " + expected + ", obtenido " + actual);
+	}
+}
@@ -0,0 +1,188 @@
+package com.example.tecnoWebEmail.Service.service_email;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClientSMTPTest {
+
+	private FakeSmtpServer server;
+
+	@AfterEach
+	void stopServer() throws IOException {
+		if (server != null) server.close();
+	}
+
+	private static ClientSMTP client(FakeSmtpServer server) {
+		// Timeout corto: si el cliente esperara respuesta a MAIL FROM antes de
+		// enviar RCPT/DATA, el servidor con PIPELINING no respondería y fallaría
+		return new ClientSMTP("localhost", server.getPort(), "grupo21sa@tecnoweb.org.bo",
+				new MailMetrics(), 1, 2000, 60000, 100);
+	}
+
+	@Test
+	void batchesEnvelopeWhenServerAdvertisesPipelining() throws Exception {
+		server = new FakeSmtpServer(true, true);
+		ClientSMTP smtp = client(server);
+
+		assertTrue(smtp.sendEmail("juan@example.com", "Re: LISCLI", "linea 1\nlinea 2"));
+		assertTrue(smtp.sendEmail("ana@example.com", "Re: LISPRO", "ok"));
+		smtp.shutdown();
+		server.awaitSessions(1);
+
+		// Una sola conexión para ambas respuestas, con RSET entre transacciones
+		assertEquals(1, server.getConnections());
+		assertEquals(List.of(
+				"EHLO localhost",
+				"MAIL FROM: <grupo21sa@tecnoweb.org.bo>", "RCPT TO: <juan@example.com>", "DATA", "<mensaje>",
+				"RSET",
+				"MAIL FROM: <grupo21sa@tecnoweb.org.bo>", "RCPT TO: <ana@example.com>", "DATA", "<mensaje>",
+				"QUIT"), server.getCommands());
+	}
+
+	@Test
+	void fallsBackToHeloAndLockStepWithoutEsmtp() throws Exception {
+		server = new FakeSmtpServer(false, false);
+		ClientSMTP smtp = client(server);
+
+		assertTrue(smtp.sendEmail("juan@example.com", "Re: LISCLI", "hola"));
+		smtp.shutdown();
+		server.awaitSessions(1);
+
+		assertEquals(List.of(
+				"EHLO localhost", "HELO localhost",
+				"MAIL FROM: <grupo21sa@tecnoweb.org.bo>", "RCPT TO: <juan@example.com>", "DATA", "<mensaje>",
+				"QUIT"), server.getCommands());
+	}
+
+	/**
+	 * Servidor SMTP mínimo de una conexión a la vez. Con PIPELINING no responde
+	 * MAIL/RCPT hasta recibir DATA, así un cliente "lock-step" se quedaría esperando.
+	 */
+	private static class FakeSmtpServer implements AutoCloseable {
+		private final ServerSocket serverSocket;
+		private final boolean esmtp;
+		private final boolean pipelining;
+		private final List<String> commands = new CopyOnWriteArrayList<>();
+		private final AtomicInteger connections = new AtomicInteger();
+		private final AtomicInteger finishedSessions = new AtomicInteger();
+
+		FakeSmtpServer(boolean esmtp, boolean pipelining) throws IOException {
+			this.serverSocket = new ServerSocket(0);
+			this.esmtp = esmtp;
+			this.pipelining = pipelining;
+			Thread thread = new Thread(this::acceptLoop);
+			thread.setDaemon(true);
+			thread.start();
+		}
+
+		int getPort() {
+			return serverSocket.getLocalPort();
+		}
+
+		int getConnections() {
+			return connections.get();
+		}
+
+		List<String> getCommands() {
+			return commands;
+		}
+
+		void awaitSessions(int count) throws InterruptedException {
+			long deadline = System.currentTimeMillis() + 5000;
+			while (finishedSessions.get() < count && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+		}
+
+		private void acceptLoop() {
+			while (!serverSocket.isClosed()) {
+				try (Socket socket = serverSocket.accept()) {
+					connections.incrementAndGet();
+					handle(socket);
+				} catch (IOException e) {
+					// servidor cerrado
+				} finally {
+					finishedSessions.incrementAndGet();
+				}
+			}
+		}
+
+		private void handle(Socket socket) throws IOException {
+			BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+			OutputStream out = socket.getOutputStream();
+			reply(out, "220 fake.local ESMTP");
+			int pendingEnvelope = 0;
+			String line;
+			while ((line = in.readLine()) != null) {
+				commands.add(line);
+				String verb = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line;
+				switch (verb) {
+					case "EHLO":
+						if (!esmtp) {
+							reply(out, "502 command not implemented");
+						} else if (pipelining) {
+							reply(out, "250-fake.local\r\n250-PIPELINING\r\n250 8BITMIME");
+						} else {
+							reply(out, "250 fake.local");
+						}
+						break;
+					case "MAIL":
+					case "RCPT":
+						if (pipelining) {
+							pendingEnvelope++;
+						} else {
+							reply(out, "250 OK");
+						}
+						break;
+					case "DATA":
+						StringBuilder responses = new StringBuilder();
+						for (int i = 0; i < pendingEnvelope; i++) responses.append("250 OK\r\n");
+						pendingEnvelope = 0;
+						responses.append("354 End data with <CR><LF>.<CR><LF>");
+						reply(out, responses.toString());
+						readMessage(in);
+						reply(out, "250 OK queued");
+						break;
+					case "QUIT":
+						reply(out, "221 Bye");
+						return;
+					default:
+						reply(out, "250 OK");
+						break;
+				}
+			}
+		}
+
+		private void readMessage(BufferedReader in) throws IOException {
+			String line;
+			while ((line = in.readLine()) != null && !line.equals(".")) {
+				// el contenido no interesa
+			}
+			commands.add("<mensaje>");
+		}
+
+		private static void reply(OutputStream out, String response) throws IOException {
+			out.write((response + "\r\n").getBytes(StandardCharsets.US_ASCII));
+			out.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			serverSocket.close();
+		}
+	}
+}
@@ -0,0 +1,164 @@
+package com.example.tecnoWebEmail.Service.service_email;
+
+import com.example.tecnoWebEmail.Service.service_email.EmailHeaderParser.EmailHeaders;
+import jakarta.mail.internet.MimeUtility;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UnsupportedEncodingException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Lectura de los encabezados de un mensaje RETR de 1 KB, 100 KB y 10 MB.
+ * {@code streaming} es el camino actual: {@link EmailHeaderParser} sobre el
+ * {@link Pop3LineReader} y drain() del cuerpo. {@code splitLines} es el
+ * anterior: la respuesta completa en un String (readMultilineBody) y
+ * parseEmail con split("\n"). Ambos leen de un BufferedReader sobre la
+ * respuesta POP3 cruda, como si viniera del socket.
+ *
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/test-cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/test-cp.txt) org.openjdk.jmh.Main EmailHeaderParserBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class EmailHeaderParserBenchmark {
+
+	private static final String HEADERS = "Return-Path: <juan.perez@example.com>\r\n" +
+			"Received: from mail.example.com (mail.example.com [10.0.0.5])\r\n" +
+			"\tby mx.tecnoweb.org.bo with ESMTP id 4F2A1; Mon, 10 Nov 2025 12:30:15 -0400\r\n" +
+			"From: \"Juan Perez\" <juan.perez@example.com>\r\n" +
+			"To: grupo21sa@tecnoweb.org.bo\r\n" +
+			"Subject: =?UTF-8?B?SU5TQ0xJWyIxMjM0NTY3IiwiSnVhbiIsIlBlcmV6Il0=?=\r\n" +
+			"Message-ID: <4F2A1.1762792215@mail.example.com>\r\n" +
+			"Date: Mon, 10 Nov 2025 12:30:15 -0400\r\n" +
+			"MIME-Version: 1.0\r\n" +
+			"Content-Type: text/plain; charset=UTF-8\r\n" +
+			"Content-Transfer-Encoding: 8bit\r\n" +
+			"\r\n";
+	private static final String BODY_LINE = "Lorem ipsum dolor sit amet, consectetur adipiscing elit, sed do eiusmod te\r\n";
+
+	@Param({"1024", "102400", "10485760"})
+	public int size;
+
+	private String response;
+
+	@Setup
+	public void setUp() {
+		StringBuilder message = new StringBuilder(size + 128).append(HEADERS);
+		int line = 0;
+		while (message.length() < size) {
+			// Cada tanto una línea que empieza con '.', con byte stuffing
+			message.append(++line % 50 == 0 ? ".." : "").append(BODY_LINE);
+		}
+		response = message.append(".\r\n").toString();
+	}
+
+	private BufferedReader socket() {
+		return new BufferedReader(new StringReader(response));
+	}
+
+	@Benchmark
+	public void streaming(Blackhole blackhole) throws IOException {
+		Pop3LineReader reader = new Pop3LineReader(socket());
+		EmailHeaders headers = EmailHeaderParser.parse(reader);
+		reader.drain();
+		blackhole.consume(headers.getFrom());
+		blackhole.consume(headers.getSubject());
+	}
+
+	@Benchmark
+	public void splitLines(Blackhole blackhole) throws IOException {
+		String emailContent = readMultilineBody(socket());
+		LegacyInfo info = parseEmail(emailContent);
+		blackhole.consume(info.from);
+		blackhole.consume(info.subject);
+	}
+
+	// --- Lectura anterior (Pop3Session.readMultilineBody + ClientPOP.parseEmail) ---
+
+	private static String readMultilineBody(BufferedReader input) throws IOException {
+		StringBuilder lines = new StringBuilder();
+		boolean first = true;
+		while (true) {
+			String line = input.readLine();
+			if (line == null) throw new IOException("S: Server unawares closed the connection");
+			if (line.equals(".")) break;
+			if (line.startsWith(".")) line = line.substring(1);
+			if (!first) lines.append("\n");
+			lines.append(line);
+			first = false;
+		}
+		return lines.toString();
+	}
+
+	private static LegacyInfo parseEmail(String emailContent) {
+		LegacyInfo info = new LegacyInfo();
+		String currentHeader = null;
+		StringBuilder headerValue = new StringBuilder();
+		String[] lines = emailContent.split("\n");
+
+		for (String line : lines) {
+			if (line.trim().isEmpty()) {
+				if (currentHeader != null) break;
+				continue;
+			}
+			if (line.startsWith("From: ") || line.startsWith("Subject: ")) {
+				if (currentHeader != null) {
+					processHeader(info, currentHeader, headerValue.toString().trim());
+				}
+				if (line.startsWith("From: ")) {
+					currentHeader = "From";
+					headerValue = new StringBuilder(line.substring(6));
+				} else {
+					currentHeader = "Subject";
+					headerValue = new StringBuilder(line.substring(9));
+				}
+			} else if (line.startsWith(" ") || line.startsWith("\t")) {
+				if (currentHeader != null) headerValue.append(" ").append(line.trim());
+			}
+		}
+		if (currentHeader != null && info.subject == null) {
+			processHeader(info, currentHeader, headerValue.toString().trim());
+		}
+		return info;
+	}
+
+	private static void processHeader(LegacyInfo info, String headerName, String headerValue) {
+		if ("From".equals(headerName)) {
+			Matcher matcher = Pattern.compile("<(.+?)>|([\\w.-]+@[\\w.-]+\\.[a-zA-Z]+)").matcher(headerValue);
+			info.from = matcher.find() ? (matcher.group(1) != null ? matcher.group(1) : matcher.group(2)) : headerValue.trim();
+		} else if ("Subject".equals(headerName)) {
+			try {
+				info.subject = MimeUtility.decodeText(headerValue);
+			} catch (UnsupportedEncodingException e) {
+				info.subject = headerValue;
+			}
+		}
+	}
+
+	private static class LegacyInfo {
+		String from;
+		String subject;
+	}
+}
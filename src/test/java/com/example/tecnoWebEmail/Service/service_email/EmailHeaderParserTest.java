@@ -0,0 +1,54 @@
+package com.example.tecnoWebEmail.Service.service_email;
+
+import com.example.tecnoWebEmail.Service.service_email.EmailHeaderParser.EmailHeaders;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EmailHeaderParserTest {
+
+	private static Pop3LineReader reader(String response) {
+		return new Pop3LineReader(new BufferedReader(new StringReader(response)));
+	}
+
+	@Test
+	void parsesFoldedAndEncodedHeadersAndStopsAtBlankLine() throws Exception {
+		String response = "Received: from x\r\n" +
+				"From: \"Juan Perez\" <juan@example.com>\r\n" +
+				"Subject: =?UTF-8?B?TElTQ0xJ?=\r\n" +
+				" =?UTF-8?Q?=5B=22=2A=22=5D?=\r\n" +
+				"Message-ID: <abc@example.com>\r\n" +
+				"\r\n" +
+				"cuerpo del mensaje\r\n" +
+				"..linea con punto\r\n" +
+				".\r\n";
+		Pop3LineReader lines = reader(response);
+
+		EmailHeaders headers = EmailHeaderParser.parse(lines);
+
+		assertEquals("juan@example.com", headers.getFrom());
+		assertEquals("LISCLI[\"*\"]", headers.getSubject());
+		assertEquals("<abc@example.com>", headers.getMessageId());
+		// El cuerpo queda sin leer
+		assertEquals("cuerpo del mensaje\n.linea con punto", lines.readRemaining());
+		assertTrue(lines.isFinished());
+	}
+
+	@Test
+	void handlesHeadersOnlyResponseAndCaseInsensitiveNames() throws Exception {
+		String response = "subject: BUSCLI[\"123\"]\r\n" +
+				"FROM: ana@example.com\r\n" +
+				".\r\n";
+
+		EmailHeaders headers = EmailHeaderParser.parse(reader(response));
+
+		assertEquals("ana@example.com", headers.getFrom());
+		assertEquals("BUSCLI[\"123\"]", headers.getSubject());
+		assertNull(headers.getMessageId());
+	}
+}
@@ -0,0 +1,126 @@
+package com.example.tecnoWebEmail.Service.service_email;
+
+import com.example.tecnoWebEmail.Service.service_email.EmailHeaderParser.EmailHeaders;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MimeAttachmentReaderTest {
+
+	private static Pop3LineReader reader(String response) {
+		return new Pop3LineReader(new BufferedReader(new StringReader(response)));
+	}
+
+	private static String readAll(Reader reader) throws IOException {
+		StringBuilder text = new StringBuilder();
+		char[] buffer = new char[64];
+		int count;
+		while ((count = reader.read(buffer)) != -1) {
+			text.append(buffer, 0, count);
+		}
+		return text.toString();
+	}
+
+	@Test
+	void decodesBase64CsvAfterTextPart() throws Exception {
+		Pop3LineReader lines = reader("Subject: IMPPRO[\"*\"]\r\n" +
+				"Content-Type: multipart/mixed; boundary=\"XX\"\r\n" +
+				"\r\n" +
+				"Preambulo\r\n" +
+				"--XX\r\n" +
+				"Content-Type: text/plain; charset=UTF-8\r\n" +
+				"\r\n" +
+				"Adjunto el archivo.\r\n" +
+				"--XX\r\n" +
+				"Content-Type: application/octet-stream; name=\"productos.csv\"\r\n" +
+				"Content-Disposition: attachment; filename=\"productos.csv\"\r\n" +
+				"Content-Transfer-Encoding: base64\r\n" +
+				"\r\n" +
+				"c2t1LG5vbWJyZQ0KQTEsTWVzYSByZWRvbmRh\r\n" +
+				"DQpCMiwiU2lsbGEsIHJvYmxlIg0K\r\n" +
+				"--XX--\r\n" +
+				".\r\n");
+		EmailHeaders headers = EmailHeaderParser.parse(lines);
+
+		Reader csv = MimeAttachmentReader.openCsv(lines, headers);
+
+		assertNotNull(csv);
+		assertEquals("sku,nombre\r\nA1,Mesa redonda\r\nB2,\"Silla, roble\"\r\n", readAll(csv));
+		lines.drain();
+		assertTrue(lines.isFinished());
+	}
+
+	@Test
+	void decodesQuotedPrintableCsvWithCharset() throws Exception {
+		Pop3LineReader lines = reader("Content-Type: multipart/mixed; boundary=b1\r\n" +
+				"\r\n" +
+				"--b1\r\n" +
+				"Content-Type: text/csv; charset=UTF-8\r\n" +
+				"Content-Transfer-Encoding: quoted-printable\r\n" +
+				"\r\n" +
+				"nombre,precio\r\n" +
+				"Ma=C3=B1ana,1=\r\n" +
+				"0\r\n" +
+				"--b1--\r\n" +
+				".\r\n");
+		EmailHeaders headers = EmailHeaderParser.parse(lines);
+
+		Reader csv = MimeAttachmentReader.openCsv(lines, headers);
+
+		// Salto suave (=) une "1" y "0"; =C3=B1 es ñ en UTF-8
+		assertEquals("nombre,precio\r\nMañana,10\r\n", readAll(csv));
+	}
+
+	@Test
+	void findsCsvInsideNestedMultipart() throws Exception {
+		Pop3LineReader lines = reader("Content-Type: multipart/mixed; boundary=outer\r\n" +
+				"\r\n" +
+				"--outer\r\n" +
+				"Content-Type: multipart/alternative; boundary=inner\r\n" +
+				"\r\n" +
+				"--inner\r\n" +
+				"Content-Type: text/plain\r\n" +
+				"\r\n" +
+				"texto\r\n" +
+				"--inner\r\n" +
+				"Content-Type: text/html\r\n" +
+				"\r\n" +
+				"<p>texto</p>\r\n" +
+				"--inner--\r\n" +
+				"--outer\r\n" +
+				"Content-Type: text/plain; name=\"clientes.csv\"\r\n" +
+				"\r\n" +
+				"ci,nombre\r\n" +
+				"123,Ana\r\n" +
+				"--outer--\r\n" +
+				".\r\n");
+		EmailHeaders headers = EmailHeaderParser.parse(lines);
+
+		Reader csv = MimeAttachmentReader.openCsv(lines, headers);
+
+		assertEquals("ci,nombre\r\n123,Ana\r\n", readAll(csv));
+	}
+
+	@Test
+	void messageWithoutCsvReturnsNull() throws Exception {
+		Pop3LineReader lines = reader("Content-Type: multipart/mixed; boundary=b\r\n" +
+				"\r\n" +
+				"--b\r\n" +
+				"Content-Type: text/plain\r\n" +
+				"\r\n" +
+				"sin adjunto\r\n" +
+				"--b--\r\n" +
+				".\r\n");
+		EmailHeaders headers = EmailHeaderParser.parse(lines);
+
+		assertNull(MimeAttachmentReader.openCsv(lines, headers));
+	}
+}
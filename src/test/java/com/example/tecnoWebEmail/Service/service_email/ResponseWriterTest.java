@@ -0,0 +1,32 @@
+package com.example.tecnoWebEmail.Service.service_email;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ResponseWriterTest {
+
+	private static String data(String... chunks) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ResponseWriter writer = new ResponseWriter(out);
+		for (String chunk : chunks) {
+			writer.append(chunk);
+		}
+		writer.finish();
+		return out.toString(StandardCharsets.UTF_8);
+	}
+
+	@Test
+	void normalizesLineEndingsAcrossChunks() throws Exception {
+		// El \r\n partido entre dos escrituras sigue siendo un solo fin de línea
+		assertEquals("a\r\nb\r\nc\r\nd\r\n.\r\n", data("a\nb\r", "\nc\rd"));
+	}
+
+	@Test
+	void stuffsLeadingDotsAndEncodesUtf8() throws Exception {
+		assertEquals("..oculto\r\n • Sí.\r\n..\r\n.\r\n", data(".oculto\n • Sí.\n."));
+	}
+}